@@ -0,0 +1,116 @@
+package com.paypal.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Measures how long it takes to push a batch of concurrent blocking requests through
+ * {@link HttpClient#executeAllAsync} against a local stub server, with the client's Executor backed either by
+ * a fixed pool of platform threads or by one virtual thread per request. Requests share a bounded
+ * {@link ConnectionPool}; raise {@code connections} together with the process file descriptor limit to give
+ * every request its own socket.
+ *
+ * The virtual thread variant needs a JDK 21 runtime: {@code ./gradlew :paypalhttp:jmh -PjmhIncludes=VirtualThreadBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+	private static final byte[] RESPONSE_BODY = "{\"id\":\"5O190127TN364715T\",\"status\":\"COMPLETED\"}".getBytes(UTF_8);
+
+	@Param({"platform", "virtual"})
+	public String threads;
+
+	@Param({"10000"})
+	public int requests;
+
+	@Param({"200"})
+	public int platformThreads;
+
+	@Param({"256"})
+	public int connections;
+
+	private HttpServer server;
+	private ExecutorService serverExecutor;
+	private ExecutorService clientExecutor;
+	private ConnectionPool pool;
+	private HttpClient client;
+	private List<HttpRequest<?>> batch;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		// Without this the stub's separate header and body writes stall on delayed ACKs.
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+
+		serverExecutor = VirtualThreads.isSupported() ? VirtualThreads.newVirtualThreadExecutor() : Executors.newCachedThreadPool();
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), connections);
+		server.setExecutor(serverExecutor);
+		server.createContext("/", exchange -> {
+			try (InputStream is = exchange.getRequestBody(); OutputStream os = exchange.getResponseBody()) {
+				while (is.read() != -1) {
+					// drain
+				}
+				exchange.getResponseHeaders().set("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, RESPONSE_BODY.length);
+				os.write(RESPONSE_BODY);
+			}
+		});
+		server.start();
+
+		int port = server.getAddress().getPort();
+		pool = new ConnectionPool()
+				.maxTotalConnections(connections)
+				.maxIdleConnectionsPerHost(connections);
+
+		client = new HttpClient(() -> "http://localhost:" + port);
+		client.setConnectionPool(pool);
+
+		clientExecutor = "virtual".equals(threads)
+				? VirtualThreads.newVirtualThreadExecutor()
+				: Executors.newFixedThreadPool(platformThreads);
+		client.setExecutor(clientExecutor);
+
+		batch = new ArrayList<>(requests);
+		for (int i = 0; i < requests; i++) {
+			batch.add(new HttpRequest<>("/v2/checkout/orders/" + i, "GET", Map.class));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		clientExecutor.shutdownNow();
+		pool.shutdown();
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+
+	@Benchmark
+	public int executeAllAsync() throws Exception {
+		int completed = 0;
+		for (CompletableFuture<HttpResponse<?>> future : client.executeAllAsync(batch)) {
+			if (future.get().statusCode() == 200) {
+				completed++;
+			}
+		}
+
+		return completed;
+	}
+}
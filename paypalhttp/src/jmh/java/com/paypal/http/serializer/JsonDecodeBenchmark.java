@@ -0,0 +1,108 @@
+package com.paypal.http.serializer;
+
+import com.paypal.http.annotations.ListOf;
+import com.paypal.http.annotations.Model;
+import com.paypal.http.annotations.SerializedName;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Decodes payloads that hold the same number of objects, arranged as chains of {@code depth} nested objects.
+ * The payload size barely changes between depths, so a parser that is linear in its input takes about the same
+ * time for every depth; one that re-scans or copies nested values grows with depth. {@code decodeStream} parses
+ * the UTF-8 bytes straight from a stream, the way response bodies are decoded, and {@code decodeModels} binds
+ * the same bytes to {@link Model} classes.
+ *
+ * {@code ./gradlew :paypalhttp:jmh -PjmhIncludes=JsonDecodeBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonDecodeBenchmark {
+
+	@Param({"1", "8", "64", "512"})
+	public int depth;
+
+	@Param({"4096"})
+	public int objects;
+
+	private Json json;
+	private String payload;
+	private byte[] payloadBytes;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		json = new Json();
+
+		StringBuilder builder = new StringBuilder("[");
+		for (int chain = 0; chain < objects / depth; chain++) {
+			if (chain > 0) {
+				builder.append(',');
+			}
+			for (int level = 0; level < depth; level++) {
+				builder.append("{\"id\":\"5O190127TN364715T\",\"amount\":{\"currency_code\":\"USD\",\"value\":\"10.99\"},\"level\":")
+						.append(level)
+						.append(",\"next\":");
+			}
+			builder.append("null");
+			for (int level = 0; level < depth; level++) {
+				builder.append('}');
+			}
+		}
+		payload = builder.append(']').toString();
+		payloadBytes = payload.getBytes(UTF_8);
+	}
+
+	@Benchmark
+	public List<?> decode() throws IOException {
+		return json.decode(payload, List.class);
+	}
+
+	@Benchmark
+	public List<?> decodeStream() throws IOException {
+		return json.decode(new ByteArrayInputStream(payloadBytes), List.class);
+	}
+
+	@Benchmark
+	public NodeList decodeModels() throws IOException {
+		return json.decode(new ByteArrayInputStream(payloadBytes), NodeList.class);
+	}
+
+	@ListOf(listClass = Node.class)
+	public static class NodeList extends ArrayList<Node> {
+	}
+
+	@Model
+	public static class Node {
+		@SerializedName("id")
+		public String id;
+
+		@SerializedName("amount")
+		public Amount amount;
+
+		@SerializedName("level")
+		public Integer level;
+
+		@SerializedName("next")
+		public Node next;
+	}
+
+	@Model
+	public static class Amount {
+		@SerializedName("currency_code")
+		public String currencyCode;
+
+		@SerializedName("value")
+		public String value;
+	}
+}
@@ -0,0 +1,84 @@
+package com.paypal.http.serializer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads the id, the status and the first capture's href out of an order with {@code units} purchase units, by
+ * decoding the whole order into maps, by decoding only those paths with a {@link Projection}, and by indexing it as
+ * a {@link JsonDocument}.
+ *
+ * {@code ./gradlew :paypalhttp:jmh -PjmhIncludes=JsonDocumentBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonDocumentBenchmark {
+
+	@Param({"10", "1000"})
+	public int units;
+
+	private Json json;
+	private byte[] payload;
+	private Projection projection;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		json = new Json();
+		projection = Projection.of("/id", "/status", "/purchase_units/0/payments/captures/0/links/0/href");
+
+		StringBuilder builder = new StringBuilder("{\"id\":\"5O190127TN364715T\",\"intent\":\"CAPTURE\",\"purchase_units\":[");
+		for (int i = 0; i < units; i++) {
+			if (i > 0) {
+				builder.append(',');
+			}
+			builder.append("{\"reference_id\":\"unit-").append(i)
+					.append("\",\"description\":\"Hand-thrown stoneware mug with a speckled glaze\",")
+					.append("\"amount\":{\"currency_code\":\"USD\",\"value\":\"10.99\",\"breakdown\":{\"item_total\":{\"currency_code\":\"USD\",\"value\":\"9.99\"},\"shipping\":{\"currency_code\":\"USD\",\"value\":\"1.00\"}}},")
+					.append("\"shipping\":{\"name\":{\"full_name\":\"John Doe\"},\"address\":{\"address_line_1\":\"2211 N First Street\",\"admin_area_2\":\"San Jose\",\"admin_area_1\":\"CA\",\"postal_code\":\"95131\",\"country_code\":\"US\"}},")
+					.append("\"payments\":{\"captures\":[{\"id\":\"3C679366HH90899").append(i).append("\",\"status\":\"COMPLETED\",\"final_capture\":true,")
+					.append("\"links\":[{\"href\":\"https://api.paypal.com/v2/payments/captures/3C679366HH90899").append(i).append("\",\"rel\":\"self\",\"method\":\"GET\"}]}]}}");
+		}
+		builder.append("],\"status\":\"COMPLETED\",\"links\":[{\"href\":\"https://api.paypal.com/v2/checkout/orders/5O190127TN364715T\",\"rel\":\"self\",\"method\":\"GET\"}]}");
+		payload = builder.toString().getBytes(UTF_8);
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public String decodeMaps() throws IOException {
+		Map<String, Object> order = json.decode(new ByteArrayInputStream(payload), Map.class);
+		Map<String, Object> unit = (Map<String, Object>) ((List<Object>) order.get("purchase_units")).get(0);
+		Map<String, Object> payments = (Map<String, Object>) unit.get("payments");
+		Map<String, Object> capture = (Map<String, Object>) ((List<Object>) payments.get("captures")).get(0);
+		Map<String, Object> link = (Map<String, Object>) ((List<Object>) capture.get("links")).get(0);
+		return order.get("id") + " " + order.get("status") + " " + link.get("href");
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public String projection() throws IOException {
+		Map<String, Object> order = json.decode(new ByteArrayInputStream(payload), Map.class, projection);
+		Map<String, Object> unit = (Map<String, Object>) ((List<Object>) order.get("purchase_units")).get(0);
+		Map<String, Object> payments = (Map<String, Object>) unit.get("payments");
+		Map<String, Object> capture = (Map<String, Object>) ((List<Object>) payments.get("captures")).get(0);
+		Map<String, Object> link = (Map<String, Object>) ((List<Object>) capture.get("links")).get(0);
+		return order.get("id") + " " + order.get("status") + " " + link.get("href");
+	}
+
+	@Benchmark
+	public String document() throws IOException {
+		JsonDocument order = JsonDocument.parse(payload);
+		return order.path("id").asString() + " " + order.path("status").asString() + " "
+				+ order.path("purchase_units[0].payments.captures[0].links[0].href").asString();
+	}
+}
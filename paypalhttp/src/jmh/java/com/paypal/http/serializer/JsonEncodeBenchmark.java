@@ -0,0 +1,146 @@
+package com.paypal.http.serializer;
+
+import com.paypal.http.HttpRequest;
+import com.paypal.http.annotations.Model;
+import com.paypal.http.annotations.SerializedName;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes a payout batch of about 1 MB, built either from plain maps and lists or from {@link Model} classes.
+ * Run with {@code -prof gc} to see how much garbage each encode leaves behind.
+ *
+ * {@code ./gradlew :paypalhttp:jmh -PjmhIncludes=JsonEncodeBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonEncodeBenchmark {
+
+	@Param({"maps", "models"})
+	public String body;
+
+	@Param({"5000"})
+	public int items;
+
+	private Json json;
+	private HttpRequest<Void> request;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		json = new Json();
+
+		Object batch;
+		if ("maps".equals(body)) {
+			List<Map<String, Object>> payouts = new ArrayList<>(items);
+			for (int i = 0; i < items; i++) {
+				Map<String, Object> amount = new HashMap<>();
+				amount.put("value", "10.99");
+				amount.put("currency", "USD");
+
+				Map<String, Object> item = new HashMap<>();
+				item.put("recipient_type", "EMAIL");
+				item.put("amount", amount);
+				item.put("note", "Thanks for your patronage!");
+				item.put("sender_item_id", "201403140001-" + i);
+				item.put("receiver", "receiver-" + i + "@example.com");
+				item.put("priority", i % 3);
+				payouts.add(item);
+			}
+
+			Map<String, Object> header = new HashMap<>();
+			header.put("sender_batch_id", "2014021801");
+			header.put("email_subject", "You have a payout!");
+
+			Map<String, Object> map = new HashMap<>();
+			map.put("sender_batch_header", header);
+			map.put("items", payouts);
+			batch = map;
+		} else {
+			PayoutBatch payoutBatch = new PayoutBatch();
+			payoutBatch.senderBatchHeader = new SenderBatchHeader();
+			payoutBatch.senderBatchHeader.senderBatchId = "2014021801";
+			payoutBatch.senderBatchHeader.emailSubject = "You have a payout!";
+			payoutBatch.items = new ArrayList<>(items);
+			for (int i = 0; i < items; i++) {
+				PayoutItem item = new PayoutItem();
+				item.recipientType = "EMAIL";
+				item.amount = new Currency();
+				item.amount.value = "10.99";
+				item.amount.currency = "USD";
+				item.note = "Thanks for your patronage!";
+				item.senderItemId = "201403140001-" + i;
+				item.receiver = "receiver-" + i + "@example.com";
+				item.priority = i % 3;
+				payoutBatch.items.add(item);
+			}
+			batch = payoutBatch;
+		}
+
+		request = new HttpRequest<>("/v1/payments/payouts", "POST", Void.class)
+				.header("Content-Type", "application/json")
+				.requestBody(batch);
+	}
+
+	@Benchmark
+	public byte[] encode() throws IOException {
+		return json.encode(request);
+	}
+
+	@Model
+	public static class PayoutBatch {
+		@SerializedName("sender_batch_header")
+		public SenderBatchHeader senderBatchHeader;
+
+		@SerializedName(value = "items", listClass = PayoutItem.class)
+		public List<PayoutItem> items;
+	}
+
+	@Model
+	public static class SenderBatchHeader {
+		@SerializedName("sender_batch_id")
+		public String senderBatchId;
+
+		@SerializedName("email_subject")
+		public String emailSubject;
+	}
+
+	@Model
+	public static class PayoutItem {
+		@SerializedName("recipient_type")
+		public String recipientType;
+
+		@SerializedName("amount")
+		public Currency amount;
+
+		@SerializedName("note")
+		public String note;
+
+		@SerializedName("sender_item_id")
+		public String senderItemId;
+
+		@SerializedName("receiver")
+		public String receiver;
+
+		@SerializedName("priority")
+		public Integer priority;
+	}
+
+	@Model
+	public static class Currency {
+		@SerializedName("value")
+		public String value;
+
+		@SerializedName("currency")
+		public String currency;
+	}
+}
@@ -0,0 +1,59 @@
+package com.paypal.http.serializer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes an array of numbers: integers, two-place decimals like monetary amounts, or decimals with an exponent.
+ *
+ * {@code ./gradlew :paypalhttp:jmh -PjmhIncludes=JsonNumberBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonNumberBenchmark {
+
+	@Param({"integers", "amounts", "exponents"})
+	public String kind;
+
+	@Param({"10000"})
+	public int count;
+
+	private Json json;
+	private String payload;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		json = new Json();
+
+		Random random = new Random(42);
+		StringBuilder builder = new StringBuilder("[");
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				builder.append(',');
+			}
+
+			long units = random.nextInt(10_000_000);
+			if ("integers".equals(kind)) {
+				builder.append(units - 5_000_000);
+			} else if ("amounts".equals(kind)) {
+				builder.append(units / 100).append('.').append(units % 100 / 10).append(units % 10);
+			} else {
+				builder.append(units).append("e-").append(random.nextInt(12));
+			}
+		}
+		payload = builder.append(']').toString();
+	}
+
+	@Benchmark
+	public List<?> decode() throws IOException {
+		return json.decode(payload, List.class);
+	}
+}
@@ -0,0 +1,108 @@
+package com.paypal.http.serializer;
+
+import com.paypal.http.annotations.ListOf;
+import com.paypal.http.annotations.Model;
+import com.paypal.http.annotations.SerializedName;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Decodes a {@link ListOf} response of {@code items} payout items on a pool of {@code threads} workers, or on the
+ * calling thread when {@code threads} is 0. Compare the scores across thread counts to see how the parallel
+ * decode scales with cores; 1 thread against 0 shows the cost of the extra scan.
+ *
+ * {@code ./gradlew :paypalhttp:jmh -PjmhIncludes=JsonParallelDecodeBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonParallelDecodeBenchmark {
+
+	@Param({"0", "1", "2", "4", "8"})
+	public int threads;
+
+	@Param({"50000"})
+	public int items;
+
+	private ForkJoinPool pool;
+	private Json json;
+	private byte[] payload;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		json = new Json();
+		if (threads > 0) {
+			pool = new ForkJoinPool(threads);
+			json.parallel(pool).parallelThreshold(1000);
+		}
+
+		StringBuilder builder = new StringBuilder("[");
+		for (int i = 0; i < items; i++) {
+			if (i > 0) {
+				builder.append(',');
+			}
+			builder.append("{\"recipient_type\":\"EMAIL\",\"amount\":{\"value\":\"10.99\",\"currency\":\"USD\"},")
+					.append("\"note\":\"Thanks for your patronage!\",\"sender_item_id\":\"201403140001-").append(i)
+					.append("\",\"receiver\":\"receiver-").append(i).append("@example.com\",\"priority\":").append(i % 3)
+					.append('}');
+		}
+		payload = builder.append(']').toString().getBytes(UTF_8);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	@Benchmark
+	public PayoutItems decode() throws IOException {
+		return json.decode(new ByteArrayInputStream(payload), PayoutItems.class);
+	}
+
+	@Model
+	@ListOf(listClass = PayoutItem.class)
+	public static class PayoutItems extends ArrayList<PayoutItem> {
+	}
+
+	@Model
+	public static class PayoutItem {
+		@SerializedName("recipient_type")
+		public String recipientType;
+
+		@SerializedName("amount")
+		public Currency amount;
+
+		@SerializedName("note")
+		public String note;
+
+		@SerializedName("sender_item_id")
+		public String senderItemId;
+
+		@SerializedName("receiver")
+		public String receiver;
+
+		@SerializedName("priority")
+		public Integer priority;
+	}
+
+	@Model
+	public static class Currency {
+		@SerializedName("value")
+		public String value;
+
+		@SerializedName("currency")
+		public String currency;
+	}
+}
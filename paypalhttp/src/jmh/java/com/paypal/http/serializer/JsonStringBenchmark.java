@@ -0,0 +1,75 @@
+package com.paypal.http.serializer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes and encodes items with long descriptions and postal addresses, the string-heavy parts of an invoice or
+ * a shipping response. With {@code escapes=some} every description holds quotes and line breaks, and the
+ * addresses non-ASCII characters, so both the plain fast path and the escaping path are measured.
+ *
+ * {@code ./gradlew :paypalhttp:jmh -PjmhIncludes=JsonStringBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonStringBenchmark {
+
+	private static final String DESCRIPTION = "Hand-thrown stoneware mug with a speckled glaze, fired twice for "
+			+ "strength. Holds twelve ounces and keeps coffee warm for longer than thin porcelain. Dishwasher and "
+			+ "microwave safe; each piece varies slightly in color and shape, as every one is made by hand in our "
+			+ "studio. Ships in recycled packaging. Returns are accepted within thirty days of delivery.";
+
+	@Param({"none", "some"})
+	public String escapes;
+
+	@Param({"2000"})
+	public int items;
+
+	private Json json;
+	private List<Map<String, Object>> body;
+	private String payload;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		json = new Json();
+
+		boolean escaped = "some".equals(escapes);
+		body = new ArrayList<>(items);
+		for (int i = 0; i < items; i++) {
+			Map<String, Object> address = new HashMap<>();
+			address.put("address_line_1", i + " Main Street");
+			address.put("address_line_2", escaped ? "B\u00e2timent " + i + ", \u00e9tage 3" : "Building " + i + ", floor 3");
+			address.put("admin_area_2", escaped ? "Montr\u00e9al" : "San Jose");
+			address.put("admin_area_1", escaped ? "Qu\u00e9bec" : "CA");
+			address.put("postal_code", "95131");
+			address.put("country_code", escaped ? "CA" : "US");
+
+			Map<String, Object> item = new HashMap<>();
+			item.put("name", "Item " + i);
+			item.put("description", escaped ? DESCRIPTION.replace("Holds", "\"Holds").replace("Dishwasher", "\n\tDishwasher") : DESCRIPTION);
+			item.put("shipping_address", address);
+			body.add(item);
+		}
+		payload = json.serialize(body);
+	}
+
+	@Benchmark
+	public List<?> decode() throws IOException {
+		return json.decode(payload, List.class);
+	}
+
+	@Benchmark
+	public String encode() throws IOException {
+		return json.serialize(body);
+	}
+}
@@ -0,0 +1,63 @@
+package com.paypal.http.serializer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a page of captures whose status, currency and link values repeat in every item, with and without a
+ * {@link StringCache}. The cache's hit rate is printed after each trial.
+ *
+ * {@code ./gradlew :paypalhttp:jmh -PjmhIncludes=JsonValueCacheBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonValueCacheBenchmark {
+
+	@Param({"off", "on"})
+	public String cache;
+
+	@Param({"5000"})
+	public int items;
+
+	private Json json;
+	private StringCache values;
+	private String payload;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		values = "on".equals(cache) ? new StringCache() : null;
+		json = new Json().valueCache(values);
+
+		StringBuilder builder = new StringBuilder("[");
+		for (int i = 0; i < items; i++) {
+			if (i > 0) {
+				builder.append(',');
+			}
+			builder.append("{\"id\":\"2GG279541U47130").append(i)
+					.append("\",\"status\":\"COMPLETED\",\"amount\":{\"currency_code\":\"USD\",\"value\":\"10.99\"},")
+					.append("\"final_capture\":true,\"disbursement_mode\":\"INSTANT\",\"links\":[")
+					.append("{\"href\":\"https://api.paypal.com/v2/payments/captures/2GG279541U47130").append(i).append("\",\"rel\":\"self\",\"method\":\"GET\"},")
+					.append("{\"href\":\"https://api.paypal.com/v2/payments/captures/2GG279541U47130").append(i).append("/refund\",\"rel\":\"refund\",\"method\":\"POST\"}]}");
+		}
+		payload = builder.append(']').toString();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (values != null) {
+			System.out.println(values.stats());
+		}
+	}
+
+	@Benchmark
+	public List<?> decode() throws IOException {
+		return json.decode(payload, List.class);
+	}
+}
@@ -0,0 +1,19 @@
+package com.paypal.http;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link Transport} that can send a request without tying up a thread while it waits for the response.
+ * {@link HttpClient#executeAsync(HttpRequest)} uses {@link #executeAsync(TransportRequest)} when the client's
+ * transport implements this interface, so that the client's Executor only runs injectors, serialization and
+ * deserialization.
+ */
+public interface AsyncTransport extends Transport {
+
+	/**
+	 * Sends a request and returns a future that completes once the response has been received, or completes
+	 * exceptionally with the IOException that {@link #execute(TransportRequest)} would have thrown. The future
+	 * may be completed on one of the transport's own threads, so callers should not block in its callbacks.
+	 */
+	CompletableFuture<TransportResponse> executeAsync(TransportRequest request);
+}
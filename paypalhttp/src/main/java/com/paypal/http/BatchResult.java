@@ -0,0 +1,117 @@
+package com.paypal.http;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of {@link HttpClient#executeAll(java.util.Collection, int)}: one {@link Outcome} per request, in the order
+ * the requests were given, along with timings for the batch as a whole.
+ */
+public class BatchResult {
+
+	private final List<Outcome> outcomes;
+	private final int maxConcurrency;
+	private final long elapsedNanos;
+
+	BatchResult(List<Outcome> outcomes, int maxConcurrency, long elapsedNanos) {
+		this.outcomes = Collections.unmodifiableList(outcomes);
+		this.maxConcurrency = maxConcurrency;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	public List<Outcome> outcomes() { return outcomes; }
+
+	/**
+	 * The number of requests that were allowed to run at the same time.
+	 */
+	public int maxConcurrency() { return maxConcurrency; }
+
+	/**
+	 * The wall-clock time from the start of the batch until its last request finished.
+	 */
+	public long elapsed(TimeUnit unit) { return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS); }
+
+	/**
+	 * The mean time taken by a single request in the batch.
+	 */
+	public long averageLatency(TimeUnit unit) {
+		if (outcomes.isEmpty()) {
+			return 0;
+		}
+
+		long total = 0;
+		for (Outcome outcome : outcomes) {
+			total += outcome.latencyNanos;
+		}
+		return unit.convert(total / outcomes.size(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * The time taken by the slowest request in the batch.
+	 */
+	public long maxLatency(TimeUnit unit) {
+		long max = 0;
+		for (Outcome outcome : outcomes) {
+			max = Math.max(max, outcome.latencyNanos);
+		}
+		return unit.convert(max, TimeUnit.NANOSECONDS);
+	}
+
+	public int successCount() {
+		int count = 0;
+		for (Outcome outcome : outcomes) {
+			if (outcome.isSuccess()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public int failureCount() {
+		return outcomes.size() - successCount();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("BatchResult{requests=%d, failures=%d, maxConcurrency=%d, elapsedMs=%d, averageLatencyMs=%d, maxLatencyMs=%d}",
+				outcomes.size(), failureCount(), maxConcurrency, elapsed(TimeUnit.MILLISECONDS),
+				averageLatency(TimeUnit.MILLISECONDS), maxLatency(TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * The result of one request in a batch: either the response, or whatever
+	 * {@link HttpClient#execute(HttpRequest)} threw for it.
+	 */
+	public static class Outcome {
+
+		private final HttpRequest<?> request;
+		private final HttpResponse<?> response;
+		private final Throwable exception;
+		private final long latencyNanos;
+
+		Outcome(HttpRequest<?> request, HttpResponse<?> response, Throwable exception, long latencyNanos) {
+			this.request = request;
+			this.response = response;
+			this.exception = exception;
+			this.latencyNanos = latencyNanos;
+		}
+
+		public HttpRequest<?> request() { return request; }
+
+		/**
+		 * The response, or null if the request failed.
+		 */
+		public HttpResponse<?> response() { return response; }
+
+		/**
+		 * The exception or Error the request failed with, or null if it succeeded. Non-2xx responses fail with an
+		 * {@link com.paypal.http.exceptions.HttpException}.
+		 */
+		public Throwable exception() { return exception; }
+
+		public boolean isSuccess() { return exception == null; }
+
+		public long latency(TimeUnit unit) { return unit.convert(latencyNanos, TimeUnit.NANOSECONDS); }
+	}
+}
@@ -0,0 +1,500 @@
+package com.paypal.http;
+
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A pool of persistent HTTP/1.1 connections, keyed by scheme, host and port.
+ *
+ * Connections are returned to the pool once their response body has been read to the end, and are
+ * handed out again to later requests against the same host instead of paying for a new TCP connection
+ * and TLS handshake. Idle connections are closed by a background reaper once they have been idle for
+ * longer than the keep-alive duration.
+ *
+ * When the pool is exhausted, requests marked with {@link HttpRequest#pipelined(boolean)} are pipelined onto a
+ * connection that is already serving pipelined requests to the same host, rather than waiting for one to be
+ * released.
+ *
+ * Attach a pool to an {@link HttpClient} with {@link HttpClient#setConnectionPool(ConnectionPool)}. A
+ * single pool may be shared by several clients. Pooled requests connect directly to the target host and
+ * do not go through the system proxy settings.
+ */
+public class ConnectionPool {
+
+	private int maxTotalConnections = 20;
+	private int maxIdleConnectionsPerHost = 5;
+	private long keepAliveMillis = TimeUnit.MINUTES.toMillis(1);
+	private int maxPipelinedRequests = 4;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition connectionReleased = lock.newCondition();
+	private final Map<String, Deque<PooledConnection>> idleConnections = new HashMap<>();
+	private final Map<String, List<PooledConnection>> pipelinedConnections = new HashMap<>();
+	private int totalConnections;
+	private boolean shutdown;
+	private ScheduledExecutorService reaper;
+
+	private final AtomicLong newConnections = new AtomicLong();
+	private final AtomicLong reusedConnections = new AtomicLong();
+	private final AtomicLong evictedConnections = new AtomicLong();
+	private final AtomicLong pipelinedRequests = new AtomicLong();
+
+	/**
+	 * Sets the maximum number of connections, leased and idle, across all hosts. Requests that find the pool
+	 * exhausted wait up to the client's connect timeout for a connection to be released.
+	 */
+	public ConnectionPool maxTotalConnections(int maxTotalConnections) {
+		if (maxTotalConnections < 1) {
+			throw new IllegalArgumentException("maxTotalConnections must be at least 1");
+		}
+		this.maxTotalConnections = maxTotalConnections;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of idle connections kept alive for each host.
+	 */
+	public ConnectionPool maxIdleConnectionsPerHost(int maxIdleConnectionsPerHost) {
+		if (maxIdleConnectionsPerHost < 0) {
+			throw new IllegalArgumentException("maxIdleConnectionsPerHost must not be negative");
+		}
+		this.maxIdleConnectionsPerHost = maxIdleConnectionsPerHost;
+		return this;
+	}
+
+	/**
+	 * Sets how long a connection may sit idle in the pool before the reaper closes it.
+	 */
+	public ConnectionPool keepAlive(long duration, TimeUnit unit) {
+		if (duration <= 0) {
+			throw new IllegalArgumentException("keepAlive duration must be positive");
+		}
+		this.keepAliveMillis = unit.toMillis(duration);
+		return this;
+	}
+
+	/**
+	 * Sets how many requests may be outstanding on one connection at a time when requests are pipelined. A
+	 * value of 1 turns pipelining off.
+	 */
+	public ConnectionPool maxPipelinedRequests(int maxPipelinedRequests) {
+		if (maxPipelinedRequests < 1) {
+			throw new IllegalArgumentException("maxPipelinedRequests must be at least 1");
+		}
+		this.maxPipelinedRequests = maxPipelinedRequests;
+		return this;
+	}
+
+	public int maxTotalConnections() { return maxTotalConnections; }
+
+	public int maxIdleConnectionsPerHost() { return maxIdleConnectionsPerHost; }
+
+	public long keepAliveMillis() { return keepAliveMillis; }
+
+	public int maxPipelinedRequests() { return maxPipelinedRequests; }
+
+	public Stats stats() {
+		lock.lock();
+		try {
+			int idle = 0;
+			for (Deque<PooledConnection> connections : idleConnections.values()) {
+				idle += connections.size();
+			}
+
+			return new Stats(newConnections.get(), reusedConnections.get(), evictedConnections.get(), pipelinedRequests.get(), totalConnections, idle);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Closes every connection that has been idle for longer than the keep-alive duration. This is run
+	 * periodically by the pool's reaper thread.
+	 */
+	public void evictIdleConnections() {
+		long now = System.currentTimeMillis();
+		List<PooledConnection> evicted = new ArrayList<>();
+
+		lock.lock();
+		try {
+			Iterator<Deque<PooledConnection>> hosts = idleConnections.values().iterator();
+			while (hosts.hasNext()) {
+				Deque<PooledConnection> connections = hosts.next();
+				Iterator<PooledConnection> it = connections.descendingIterator();
+				while (it.hasNext()) {
+					PooledConnection connection = it.next();
+					if (now - connection.idleSince() >= keepAliveMillis) {
+						it.remove();
+						evicted.add(connection);
+					}
+				}
+
+				if (connections.isEmpty()) {
+					hosts.remove();
+				}
+			}
+
+			discard(evicted);
+		} finally {
+			lock.unlock();
+		}
+
+		closeAll(evicted);
+	}
+
+	/**
+	 * Closes all idle connections and stops the reaper. Connections that are currently leased are closed
+	 * when they are released.
+	 */
+	public void shutdown() {
+		List<PooledConnection> idle = new ArrayList<>();
+
+		lock.lock();
+		try {
+			shutdown = true;
+			for (Deque<PooledConnection> connections : idleConnections.values()) {
+				idle.addAll(connections);
+			}
+			idleConnections.clear();
+			discard(idle);
+
+			if (reaper != null) {
+				reaper.shutdownNow();
+				reaper = null;
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		closeAll(idle);
+	}
+
+	PooledConnection acquire(URL url, int connectTimeout, int readTimeout, SSLSocketFactory sslSocketFactory) throws IOException {
+		return acquire(url, connectTimeout, readTimeout, sslSocketFactory, false);
+	}
+
+	/**
+	 * Leases a connection to the given URL's host. A pipelined request that finds the pool exhausted shares a
+	 * connection already serving pipelined requests to the same host, if one has room.
+	 */
+	PooledConnection acquire(URL url, int connectTimeout, int readTimeout, SSLSocketFactory sslSocketFactory, boolean pipelined) throws IOException {
+		String route = routeFor(url);
+		List<PooledConnection> stale = new ArrayList<>();
+
+		lock.lock();
+		try {
+			long waitNanos = TimeUnit.MILLISECONDS.toNanos(connectTimeout);
+			while (true) {
+				if (shutdown) {
+					throw new IOException("ConnectionPool has been shut down");
+				}
+
+				PooledConnection idle = pollIdle(route, stale);
+				if (idle != null) {
+					reusedConnections.incrementAndGet();
+					idle.lease(readTimeout);
+					leased(idle, pipelined);
+					return idle;
+				}
+
+				if (totalConnections < maxTotalConnections) {
+					totalConnections++;
+					break;
+				}
+
+				// Make room by closing an idle connection to some other host.
+				PooledConnection oldest = pollOldestIdle();
+				if (oldest != null) {
+					stale.add(oldest);
+					evictedConnections.incrementAndGet();
+					totalConnections--;
+					continue;
+				}
+
+				if (pipelined) {
+					PooledConnection shared = pollPipeline(route);
+					if (shared != null) {
+						pipelinedRequests.incrementAndGet();
+						return shared;
+					}
+				}
+
+				if (connectTimeout == 0) {
+					connectionReleased.await();
+				} else if (waitNanos <= 0) {
+					throw new SocketTimeoutException("Timed out waiting for a pooled connection to " + route);
+				} else {
+					waitNanos = connectionReleased.awaitNanos(waitNanos);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a pooled connection to " + route);
+		} finally {
+			lock.unlock();
+			closeAll(stale);
+		}
+
+		try {
+			PooledConnection connection = PooledConnection.open(this, route, url, connectTimeout, readTimeout, sslSocketFactory);
+			newConnections.incrementAndGet();
+
+			lock.lock();
+			try {
+				leased(connection, pipelined);
+				if (pipelined) {
+					// Requests waiting for a connection may now pipeline onto this one.
+					connectionReleased.signalAll();
+				}
+			} finally {
+				lock.unlock();
+			}
+			return connection;
+		} catch (IOException | RuntimeException e) {
+			lock.lock();
+			try {
+				totalConnections--;
+				connectionReleased.signal();
+			} finally {
+				lock.unlock();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Called when a request is done with a connection, either because its response body was closed or because
+	 * it failed. The connection is released once no pipelined request is using it any more.
+	 */
+	void finish(PooledConnection connection, boolean reusable) {
+		lock.lock();
+		try {
+			if (!connection.finish(reusable)) {
+				connectionReleased.signalAll();
+				return;
+			}
+
+			List<PooledConnection> pipelines = pipelinedConnections.get(connection.route());
+			if (pipelines != null) {
+				pipelines.remove(connection);
+				if (pipelines.isEmpty()) {
+					pipelinedConnections.remove(connection.route());
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		release(connection, reusable && !connection.isBroken());
+	}
+
+	private void release(PooledConnection connection, boolean reusable) {
+		List<PooledConnection> closing = new ArrayList<>();
+
+		lock.lock();
+		try {
+			if (reusable && !shutdown && maxIdleConnectionsPerHost > 0) {
+				Deque<PooledConnection> connections = idleConnections.computeIfAbsent(connection.route(), k -> new ArrayDeque<>());
+				if (connections.size() >= maxIdleConnectionsPerHost) {
+					closing.add(connections.pollLast());
+					evictedConnections.incrementAndGet();
+					totalConnections--;
+				}
+
+				connection.markIdle();
+				connections.addFirst(connection);
+				startReaper();
+			} else {
+				closing.add(connection);
+				totalConnections--;
+			}
+
+			connectionReleased.signal();
+		} finally {
+			lock.unlock();
+		}
+
+		closeAll(closing);
+	}
+
+	private void leased(PooledConnection connection, boolean pipelined) {
+		connection.reserve();
+		if (pipelined && maxPipelinedRequests > 1) {
+			pipelinedConnections.computeIfAbsent(connection.route(), k -> new ArrayList<>()).add(connection);
+		}
+	}
+
+	private PooledConnection pollPipeline(String route) {
+		List<PooledConnection> connections = pipelinedConnections.get(route);
+		if (connections == null) {
+			return null;
+		}
+
+		PooledConnection leastBusy = null;
+		int leastOutstanding = maxPipelinedRequests;
+		for (PooledConnection connection : connections) {
+			int outstanding = connection.outstanding();
+			if (!connection.isBroken() && outstanding < leastOutstanding) {
+				leastBusy = connection;
+				leastOutstanding = outstanding;
+			}
+		}
+
+		if (leastBusy != null) {
+			leastBusy.reserve();
+		}
+		return leastBusy;
+	}
+
+	private PooledConnection pollIdle(String route, List<PooledConnection> stale) {
+		Deque<PooledConnection> connections = idleConnections.get(route);
+		if (connections == null) {
+			return null;
+		}
+
+		long now = System.currentTimeMillis();
+		PooledConnection connection;
+		while ((connection = connections.pollFirst()) != null) {
+			if (now - connection.idleSince() < keepAliveMillis && !connection.isClosed()) {
+				break;
+			}
+			stale.add(connection);
+			evictedConnections.incrementAndGet();
+			totalConnections--;
+		}
+
+		if (connections.isEmpty()) {
+			idleConnections.remove(route);
+		}
+
+		return connection;
+	}
+
+	private PooledConnection pollOldestIdle() {
+		Deque<PooledConnection> oldestHost = null;
+		for (Deque<PooledConnection> connections : idleConnections.values()) {
+			if (oldestHost == null || connections.peekLast().idleSince() < oldestHost.peekLast().idleSince()) {
+				oldestHost = connections;
+			}
+		}
+
+		if (oldestHost == null) {
+			return null;
+		}
+
+		PooledConnection oldest = oldestHost.pollLast();
+		if (oldestHost.isEmpty()) {
+			idleConnections.values().remove(oldestHost);
+		}
+
+		return oldest;
+	}
+
+	private void discard(List<PooledConnection> connections) {
+		totalConnections -= connections.size();
+		evictedConnections.addAndGet(connections.size());
+		if (!connections.isEmpty()) {
+			connectionReleased.signalAll();
+		}
+	}
+
+	private void startReaper() {
+		if (reaper == null) {
+			reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "paypalhttp-connection-reaper");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+			long period = Math.max(keepAliveMillis / 2, 1);
+			reaper.scheduleWithFixedDelay(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void closeAll(List<PooledConnection> connections) {
+		for (PooledConnection connection : connections) {
+			connection.closeSocket();
+		}
+	}
+
+	static String routeFor(URL url) {
+		int port = url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+		return url.getProtocol().toLowerCase() + "://" + url.getHost().toLowerCase() + ":" + port;
+	}
+
+	/**
+	 * A point-in-time snapshot of a pool's counters.
+	 */
+	public static class Stats {
+
+		private final long newConnections;
+		private final long reusedConnections;
+		private final long evictedConnections;
+		private final long pipelinedRequests;
+		private final int totalConnections;
+		private final int idleConnections;
+
+		Stats(long newConnections, long reusedConnections, long evictedConnections, int totalConnections, int idleConnections) {
+			this(newConnections, reusedConnections, evictedConnections, 0, totalConnections, idleConnections);
+		}
+
+		Stats(long newConnections, long reusedConnections, long evictedConnections, long pipelinedRequests, int totalConnections, int idleConnections) {
+			this.newConnections = newConnections;
+			this.reusedConnections = reusedConnections;
+			this.evictedConnections = evictedConnections;
+			this.pipelinedRequests = pipelinedRequests;
+			this.totalConnections = totalConnections;
+			this.idleConnections = idleConnections;
+		}
+
+		/**
+		 * The number of connections opened by the pool.
+		 */
+		public long newConnections() { return newConnections; }
+
+		/**
+		 * The number of requests served by a connection taken from the pool.
+		 */
+		public long reusedConnections() { return reusedConnections; }
+
+		/**
+		 * The number of idle connections closed because they expired or the pool was full.
+		 */
+		public long evictedConnections() { return evictedConnections; }
+
+		/**
+		 * The number of requests pipelined onto a connection that was already in use.
+		 */
+		public long pipelinedRequests() { return pipelinedRequests; }
+
+		/**
+		 * The number of open connections, leased and idle.
+		 */
+		public int totalConnections() { return totalConnections; }
+
+		public int idleConnections() { return idleConnections; }
+
+		public int leasedConnections() { return totalConnections - idleConnections; }
+
+		@Override
+		public String toString() {
+			return String.format("ConnectionPool.Stats{new=%d, reused=%d, evicted=%d, pipelined=%d, leased=%d, idle=%d}",
+					newConnections, reusedConnections, evictedConnections, pipelinedRequests, leasedConnections(), idleConnections);
+		}
+	}
+}
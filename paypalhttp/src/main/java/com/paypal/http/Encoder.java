@@ -3,6 +3,7 @@ import com.paypal.http.serializer.*;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.List;
@@ -21,9 +22,23 @@ public class Encoder {
 		registerSerializer(new Text());
 		registerSerializer(new Multipart());
 		registerSerializer(new FormEncoded());
+		registerSerializer(new NdJson());
 	}
 
 	public byte[] serializeRequest(HttpRequest request) throws IOException {
+		RequestBody body = serializeRequestBody(request);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(body.contentLength() > 0 ? (int) body.contentLength() : 32);
+		body.writeTo(bos);
+
+		return bos.toByteArray();
+	}
+
+	/**
+	 * Encodes a request body so that it can be written straight to a connection, without first being copied
+	 * into a byte array. Gzipped bodies are compressed as they are written, so their length is not known up
+	 * front.
+	 */
+	public RequestBody serializeRequestBody(HttpRequest request) throws IOException {
 		String contentType = request.headers().header(Headers.CONTENT_TYPE);
 		if (contentType != null) {
 			Serializer serializer = serializer(contentType);
@@ -34,20 +49,10 @@ public class Encoder {
 				throw new UnsupportedEncodingException(message);
 			}
 
-			byte[] encoded = serializer.encode(request);
+			RequestBody encoded = serializer.encodeBody(request);
 
 			if ("gzip".equals(request.headers().header("content-encoding"))) {
-				ByteArrayOutputStream bos = new ByteArrayOutputStream();
-				GZIPOutputStream gzos = new GZIPOutputStream(bos);
-
-				try {
-					gzos.write(encoded);
-				} finally {
-					bos.close();
-					gzos.close();
-				}
-
-				return bos.toByteArray();
+				return new GzipRequestBody(encoded);
 			}
 
 			return encoded;
@@ -58,23 +63,69 @@ public class Encoder {
 		}
 	}
 
-	@SuppressWarnings("unchecked")
+	/**
+	 * Decodes a response body with the serializer for its content type. Serializers read the (inflated, if
+	 * gzipped) body straight from the stream; only String responses are collected into a String. The stream is
+	 * closed once the body has been decoded.
+	 */
 	public <T> T deserializeResponse(InputStream stream, Class<T> responseClass, Headers headers) throws IOException {
-		String contentType = headers.header(Headers.CONTENT_TYPE);
-		String contentEncoding = headers.header("content-encoding");
-
-		String responseBody = StreamUtils.readStream(stream, contentEncoding);
+		return deserializeResponse(stream, responseClass, headers, null);
+	}
 
-		stream.close();
+	/**
+	 * Decodes a response body, reading only the parts of it the projection asks for where the serializer
+	 * supports it. A null projection decodes the whole body.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T deserializeResponse(InputStream stream, Class<T> responseClass, Headers headers, Projection projection) throws IOException {
+		String contentEncoding = headers.header("content-encoding");
 
 		if (responseClass.isAssignableFrom(String.class)) {
+			String responseBody = StreamUtils.readStream(stream, contentEncoding);
+			stream.close();
 			return (T) responseBody;
 		}
 
-		if (responseBody.isEmpty()) {
-			return null;
+		InputStream body = stream;
+		try {
+			body = StreamUtils.bodyStream(stream, contentEncoding);
+			if (body == null) {
+				return null;
+			}
+
+			return responseSerializer(headers).decode(body, responseClass, projection);
+		} finally {
+			(body != null ? body : stream).close();
 		}
+	}
 
+	/**
+	 * Decodes a list response body one element at a time, as the returned iterator is advanced, so that the
+	 * list never has to be held in memory as a whole. The iterator owns the stream: it closes it at the end of
+	 * the list, or when it is closed itself.
+	 */
+	public <T> ElementIterator<T> deserializeElements(InputStream stream, Class<T> elementClass, Headers headers) throws IOException {
+		InputStream body = stream;
+		try {
+			body = StreamUtils.bodyStream(stream, headers.header("content-encoding"));
+			if (body == null) {
+				if (stream != null) {
+					stream.close();
+				}
+				return ElementIterator.empty();
+			}
+
+			return responseSerializer(headers).decodeElements(body, elementClass);
+		} catch (IOException | RuntimeException e) {
+			if (body != null) {
+				body.close();
+			}
+			throw e;
+		}
+	}
+
+	private Serializer responseSerializer(Headers headers) throws UnsupportedEncodingException {
+		String contentType = headers.header(Headers.CONTENT_TYPE);
 		if (contentType == null) {
 			String message = "HttpResponse does not have content-type header set" ;
 			System.out.println(message);
@@ -91,11 +142,7 @@ public class Encoder {
 			throw new UnsupportedEncodingException(message);
 		}
 
-		if (responseBody.length() > 0) {
-			return serializer.decode(responseBody, responseClass);
-		}
-
-		return null;
+		return serializer;
 	}
 
 
@@ -122,4 +169,31 @@ public class Encoder {
 
 		return null;
 	}
+
+	private static class GzipRequestBody implements RequestBody {
+
+		private final RequestBody delegate;
+
+		private GzipRequestBody(RequestBody delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public long contentLength() {
+			return -1;
+		}
+
+		@Override
+		public void writeTo(OutputStream os) throws IOException {
+			GZIPOutputStream gzos = new GZIPOutputStream(os);
+			delegate.writeTo(gzos);
+			// Finish rather than close, so that the transport's stream stays open.
+			gzos.finish();
+		}
+
+		@Override
+		public boolean isRepeatable() {
+			return delegate.isRepeatable();
+		}
+	}
 }
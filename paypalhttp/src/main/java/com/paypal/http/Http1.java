@@ -0,0 +1,174 @@
+package com.paypal.http;
+
+import java.net.ProtocolException;
+import java.net.URL;
+
+/**
+ * HTTP/1.1 message framing shared by the transports that speak the protocol themselves, rather than through
+ * {@link java.net.HttpURLConnection}.
+ */
+final class Http1 {
+
+	static final String CRLF = "\r\n";
+
+	private Http1() {}
+
+	/**
+	 * Builds the request line and headers, ending with the blank line that separates them from the body. A
+	 * negative content length sends the body with chunked transfer encoding.
+	 *
+	 * @throws IllegalArgumentException if a header name is not a valid token, or a header value contains a CR or
+	 *                                  LF that would end the header early, as HttpURLConnection rejects them too
+	 */
+	static String requestHead(String verb, URL url, Headers headers, boolean hasBody, long contentLength) {
+		StringBuilder head = new StringBuilder(256);
+		head.append(verb.toUpperCase()).append(' ').append(requestTarget(url)).append(" HTTP/1.1").append(CRLF);
+
+		if (headers.header("Host") == null) {
+			head.append("Host: ").append(hostHeader(url)).append(CRLF);
+		}
+
+		for (String key : headers) {
+			String value = headers.header(key);
+			if (key == null || value == null || "content-length".equalsIgnoreCase(key) || "transfer-encoding".equalsIgnoreCase(key)) {
+				continue;
+			}
+			checkHeader(key, value);
+			head.append(key).append(": ").append(value).append(CRLF);
+		}
+
+		if (hasBody && contentLength < 0) {
+			head.append("Transfer-Encoding: chunked").append(CRLF);
+		} else if (hasBody) {
+			head.append("Content-Length: ").append(contentLength).append(CRLF);
+		} else if (requiresBody(verb)) {
+			head.append("Content-Length: 0").append(CRLF);
+		}
+		head.append(CRLF);
+
+		return head.toString();
+	}
+
+	static int parseStatusCode(String statusLine) throws ProtocolException {
+		if (!statusLine.startsWith("HTTP/") || statusLine.length() < 12) {
+			throw new ProtocolException("Malformed status line " + statusLine);
+		}
+
+		try {
+			return Integer.parseInt(statusLine.substring(9, 12));
+		} catch (NumberFormatException e) {
+			throw new ProtocolException("Malformed status line " + statusLine);
+		}
+	}
+
+	static boolean isKeepAlive(String statusLine, Headers headers) {
+		String connection = headers.header("Connection");
+		return statusLine.startsWith("HTTP/1.0")
+				? "keep-alive".equalsIgnoreCase(connection)
+				: !"close".equalsIgnoreCase(connection);
+	}
+
+	/**
+	 * Whether a response to the given verb and status can never carry a body, whatever its headers say.
+	 */
+	static boolean hasNoBody(String verb, int statusCode) {
+		return "HEAD".equalsIgnoreCase(verb) || statusCode == 204 || statusCode == 304;
+	}
+
+	static boolean isChunked(Headers headers) {
+		String transferEncoding = headers.header("Transfer-Encoding");
+		return transferEncoding != null && transferEncoding.toLowerCase().contains("chunked");
+	}
+
+	static long contentLength(Headers headers) throws ProtocolException {
+		String contentLength = headers.header("Content-Length");
+		if (contentLength == null) {
+			return -1;
+		}
+
+		try {
+			return Long.parseLong(contentLength.trim());
+		} catch (NumberFormatException e) {
+			throw new ProtocolException("Invalid Content-Length " + contentLength);
+		}
+	}
+
+	static long parseChunkSize(String line) throws ProtocolException {
+		int extension = line.indexOf(';');
+		if (extension != -1) {
+			line = line.substring(0, extension);
+		}
+
+		try {
+			return Long.parseLong(line.trim(), 16);
+		} catch (NumberFormatException e) {
+			throw new ProtocolException("Invalid chunk size " + line);
+		}
+	}
+
+	/**
+	 * Splits a header line into the given headers.
+	 */
+	static void parseHeader(String line, Headers headers) throws ProtocolException {
+		int colon = line.indexOf(':');
+		if (colon <= 0) {
+			throw new ProtocolException("Malformed response header " + line);
+		}
+		headers.header(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+	}
+
+	private static void checkHeader(String name, String value) {
+		if (name.isEmpty()) {
+			throw new IllegalArgumentException("Header name must not be empty");
+		}
+		for (int i = 0; i < name.length(); i++) {
+			if (!isTokenChar(name.charAt(i))) {
+				throw new IllegalArgumentException("Illegal character in header name " + name);
+			}
+		}
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\r' || c == '\n') {
+				throw new IllegalArgumentException("Illegal character in value of header " + name);
+			}
+		}
+	}
+
+	// The tchar production of RFC 7230, section 3.2.6.
+	private static boolean isTokenChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || "!#$%&'*+-.^_`|~".indexOf(c) != -1;
+	}
+
+	/**
+	 * Whether the server may receive a request with the given verb more than once without a different outcome.
+	 */
+	static boolean isIdempotent(String verb) {
+		switch (verb.toUpperCase()) {
+			case "GET":
+			case "HEAD":
+			case "OPTIONS":
+			case "TRACE":
+			case "PUT":
+			case "DELETE":
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	private static boolean requiresBody(String verb) {
+		return "POST".equalsIgnoreCase(verb) || "PUT".equalsIgnoreCase(verb) || "PATCH".equalsIgnoreCase(verb);
+	}
+
+	private static String requestTarget(URL url) {
+		String file = url.getFile();
+		return file == null || file.isEmpty() ? "/" : file;
+	}
+
+	private static String hostHeader(URL url) {
+		if (url.getPort() == -1 || url.getPort() == url.getDefaultPort()) {
+			return url.getHost();
+		}
+		return url.getHost() + ":" + url.getPort();
+	}
+}
@@ -0,0 +1,211 @@
+package com.paypal.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+/**
+ * Parses an HTTP/1.1 response incrementally, as bytes arrive from a non-blocking channel. The whole body is
+ * collected in memory; interim 1xx responses are skipped.
+ */
+class Http1ResponseParser {
+
+	private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+	private enum State { STATUS_LINE, HEADERS, FIXED_BODY, UNTIL_CLOSE_BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILERS, DONE }
+
+	private final String verb;
+	private final StringBuilder line = new StringBuilder(64);
+
+	private State state = State.STATUS_LINE;
+	private boolean started;
+	private boolean lastWasCR;
+
+	private String statusLine;
+	private int statusCode;
+	private Headers headers;
+	private ByteArrayOutputStream body;
+	private long remaining;
+	private boolean untilClose;
+
+	Http1ResponseParser(String verb) {
+		this.verb = verb;
+	}
+
+	/**
+	 * Consumes bytes from the buffer until the response is complete or the buffer runs out.
+	 *
+	 * @return whether the response is complete
+	 */
+	boolean feed(ByteBuffer buffer) throws ProtocolException {
+		if (buffer.hasRemaining()) {
+			started = true;
+		}
+
+		while (buffer.hasRemaining() && state != State.DONE) {
+			switch (state) {
+				case STATUS_LINE:
+				case HEADERS:
+				case CHUNK_SIZE:
+				case CHUNK_END:
+				case TRAILERS:
+					if (readLine(buffer)) {
+						onLine(takeLine());
+					}
+					break;
+				case FIXED_BODY:
+				case CHUNK_DATA:
+					int count = (int) Math.min(remaining, buffer.remaining());
+					copy(buffer, count);
+					remaining -= count;
+					if (remaining == 0) {
+						state = state == State.FIXED_BODY ? State.DONE : State.CHUNK_END;
+					}
+					break;
+				case UNTIL_CLOSE_BODY:
+					copy(buffer, buffer.remaining());
+					break;
+				default:
+					throw new IllegalStateException(state.name());
+			}
+		}
+
+		return state == State.DONE;
+	}
+
+	/**
+	 * Tells the parser the server closed the connection. This completes a body that runs until close.
+	 *
+	 * @return whether the response is complete
+	 */
+	boolean endOfStream() throws EOFException {
+		if (state == State.UNTIL_CLOSE_BODY) {
+			state = State.DONE;
+		}
+		if (state != State.DONE) {
+			throw new EOFException(started ? "Unexpected end of stream" : "Connection closed by server before a response was received");
+		}
+
+		return true;
+	}
+
+	/**
+	 * Whether any bytes of the response have been received.
+	 */
+	boolean started() { return started; }
+
+	boolean isComplete() { return state == State.DONE; }
+
+	int statusCode() { return statusCode; }
+
+	Headers headers() { return headers; }
+
+	byte[] body() { return body != null ? body.toByteArray() : new byte[0]; }
+
+	/**
+	 * Whether the connection can carry another request once this response is complete.
+	 */
+	boolean keepAlive() {
+		return !untilClose && Http1.isKeepAlive(statusLine, headers);
+	}
+
+	private void onLine(String text) throws ProtocolException {
+		switch (state) {
+			case STATUS_LINE:
+				statusLine = text;
+				statusCode = Http1.parseStatusCode(text);
+				headers = new Headers();
+				state = State.HEADERS;
+				break;
+			case HEADERS:
+				if (text.isEmpty()) {
+					onHeadersComplete();
+				} else {
+					Http1.parseHeader(text, headers);
+				}
+				break;
+			case CHUNK_SIZE:
+				remaining = Http1.parseChunkSize(text);
+				state = remaining == 0 ? State.TRAILERS : State.CHUNK_DATA;
+				break;
+			case CHUNK_END:
+				if (!text.isEmpty()) {
+					throw new ProtocolException("Malformed chunk terminator");
+				}
+				state = State.CHUNK_SIZE;
+				break;
+			case TRAILERS:
+				if (text.isEmpty()) {
+					state = State.DONE;
+				}
+				break;
+			default:
+				throw new IllegalStateException(state.name());
+		}
+	}
+
+	private void onHeadersComplete() throws ProtocolException {
+		if (statusCode >= 100 && statusCode < 200) {
+			// Interim response; the real one follows.
+			state = State.STATUS_LINE;
+			return;
+		}
+
+		long contentLength = Http1.contentLength(headers);
+		if (Http1.hasNoBody(verb, statusCode)) {
+			state = State.DONE;
+		} else if (Http1.isChunked(headers)) {
+			body = new ByteArrayOutputStream();
+			state = State.CHUNK_SIZE;
+		} else if (contentLength >= 0) {
+			body = new ByteArrayOutputStream((int) Math.min(contentLength, 64 * 1024));
+			remaining = contentLength;
+			state = contentLength == 0 ? State.DONE : State.FIXED_BODY;
+		} else {
+			// No framing, so the body runs until the server closes the connection.
+			body = new ByteArrayOutputStream();
+			untilClose = true;
+			state = State.UNTIL_CLOSE_BODY;
+		}
+	}
+
+	private boolean readLine(ByteBuffer buffer) throws ProtocolException {
+		while (buffer.hasRemaining()) {
+			char c = (char) (buffer.get() & 0xff);
+			if (c == '\n') {
+				return true;
+			}
+			if (lastWasCR) {
+				line.append('\r');
+			}
+			lastWasCR = c == '\r';
+			if (!lastWasCR) {
+				line.append(c);
+			}
+			if (line.length() > MAX_LINE_LENGTH) {
+				throw new ProtocolException("Response line too long");
+			}
+		}
+
+		return false;
+	}
+
+	private String takeLine() {
+		String text = line.toString();
+		line.setLength(0);
+		lastWasCR = false;
+		return text;
+	}
+
+	private void copy(ByteBuffer buffer, int count) {
+		if (buffer.hasArray()) {
+			body.write(buffer.array(), buffer.arrayOffset() + buffer.position(), count);
+			buffer.position(buffer.position() + count);
+		} else {
+			byte[] bytes = new byte[count];
+			buffer.get(bytes);
+			body.write(bytes, 0, count);
+		}
+	}
+}
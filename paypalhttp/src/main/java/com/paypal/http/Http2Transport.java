@@ -0,0 +1,54 @@
+package com.paypal.http;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link Transport} that speaks HTTP/2 through {@code java.net.http.HttpClient}, multiplexing concurrent
+ * requests to the same host over a small number of connections.
+ *
+ * The implementation lives in the Java 11 layer of the multi-release jar. On older runtimes this class is
+ * loaded instead and cannot be constructed; check {@link #isSupported()} first.
+ */
+public class Http2Transport implements AsyncTransport {
+
+	private static final String UNSUPPORTED = "Http2Transport requires Java 11 or later";
+
+	public Http2Transport() {
+		this(null);
+	}
+
+	/**
+	 * @param sslContext the SSLContext used for https connections, or null for the JVM default. The client's
+	 *                   SSLSocketFactory is not used by this transport.
+	 */
+	public Http2Transport(SSLContext sslContext) {
+		this(sslContext, 0);
+	}
+
+	/**
+	 * @param sslContext     the SSLContext used for https connections, or null for the JVM default.
+	 * @param connectTimeout the connect timeout in milliseconds for every request, or 0 for none.
+	 */
+	public Http2Transport(SSLContext sslContext, int connectTimeout) {
+		throw new UnsupportedOperationException(UNSUPPORTED);
+	}
+
+	/**
+	 * Whether the running JVM provides the HTTP/2 client this transport is built on.
+	 */
+	public static boolean isSupported() {
+		return false;
+	}
+
+	@Override
+	public TransportResponse execute(TransportRequest request) throws IOException {
+		throw new UnsupportedOperationException(UNSUPPORTED);
+	}
+
+	@Override
+	public CompletableFuture<TransportResponse> executeAsync(TransportRequest request) {
+		throw new UnsupportedOperationException(UNSUPPORTED);
+	}
+}
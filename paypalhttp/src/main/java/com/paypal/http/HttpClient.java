@@ -2,32 +2,46 @@ package com.paypal.http;
 
 import com.paypal.http.exceptions.HttpException;
 import com.paypal.http.internal.TLSSocketFactory;
+import com.paypal.http.serializer.Projection;
 
-import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLSocketFactory;
 import java.io.IOException;
-import java.lang.reflect.Field;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
-import java.net.ProtocolException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static com.paypal.http.serializer.StreamUtils.writeOutputStream;
+import static com.paypal.http.serializer.StreamUtils.drain;
 import static java.net.HttpURLConnection.HTTP_OK;
 import static java.net.HttpURLConnection.HTTP_PARTIAL;
 
 public class HttpClient {
 
+	private static final HttpURLConnectionTransport DEFAULT_TRANSPORT = new HttpURLConnectionTransport();
+
 	private SSLSocketFactory sslSocketFactory;
 	private String userAgent;
 	private int connectTimeout;
 	private int readTimeout;
 	private Environment environment;
 	private Encoder encoder;
+	private Transport transport;
+	private Executor executor;
 
 	List<Injector> mInjectors;
 
@@ -35,7 +49,7 @@ public class HttpClient {
 		this.readTimeout =  (int) TimeUnit.SECONDS.toMillis(30);
 		this.connectTimeout = readTimeout;
 		this.userAgent = "Java HTTP/1.1"; // TODO: add version string to build.gradle
-		this.mInjectors = new ArrayList<>();
+		this.mInjectors = new CopyOnWriteArrayList<>();
 		this.environment = environment;
 		this.encoder = new Encoder();
 
@@ -68,6 +82,16 @@ public class HttpClient {
 	 */
 	protected String getUserAgent() { return userAgent; }
 
+	/**
+	 * Override this method in a custom subclass to use a custom Transport.
+	 */
+	protected Transport getTransport() { return transport != null ? transport : DEFAULT_TRANSPORT; }
+
+	/**
+	 * Override this method in a custom subclass to run asynchronous requests on a custom Executor.
+	 */
+	protected Executor getExecutor() { return executor != null ? executor : DefaultExecutor.INSTANCE; }
+
 	public Encoder getEncoder() { return encoder; }
 
 	protected Environment getEnvironment() { return environment; }
@@ -80,7 +104,35 @@ public class HttpClient {
 
 	public void setReadTimeout(int readTimeout) { this.readTimeout = readTimeout; }
 
-	public synchronized void addInjector(Injector injector) {
+	/**
+	 * Sets the Executor that {@link #executeAsync(HttpRequest)} runs requests on. Pass null to use the shared
+	 * default pool of daemon threads.
+	 */
+	public void setExecutor(Executor executor) { this.executor = executor; }
+
+	/**
+	 * Sets the Transport that carries requests over the wire. Pass null to go back to the default
+	 * {@link HttpURLConnectionTransport}.
+	 */
+	public void setTransport(Transport transport) { this.transport = transport; }
+
+	/**
+	 * Sends requests over persistent connections from the given pool, through a {@link PooledTransport}.
+	 * Pass null to go back to the default {@link HttpURLConnectionTransport}.
+	 */
+	public void setConnectionPool(ConnectionPool connectionPool) {
+		this.transport = connectionPool != null ? new PooledTransport(connectionPool) : null;
+	}
+
+	public ConnectionPool getConnectionPool() {
+		return transport instanceof PooledTransport ? ((PooledTransport) transport).pool() : null;
+	}
+
+	/**
+	 * Adds an Injector to run before every request. Injectors may be added while requests are in flight;
+	 * the request path reads them without taking a lock, so it never blocks or pins a virtual thread.
+	 */
+	public void addInjector(Injector injector) {
 		if (injector != null) {
 			mInjectors.add(injector);
 		}
@@ -93,116 +145,244 @@ public class HttpClient {
 			injector.inject(requestCopy);
 		}
 
-		HttpURLConnection connection = getConnection(requestCopy);
+		TransportResponse response = getTransport().execute(transportRequest(requestCopy));
 		try {
-			return parseResponse(connection, requestCopy.responseClass());
-		} finally {
-			if (connection != null) {
-				connection.disconnect();
-			}
+			return parseResponse(response.statusCode(), response.headers(), response.body(), requestCopy.responseClass(), requestCopy.projection());
+		} catch (IOException | RuntimeException e) {
+			try {
+				response.close();
+			} catch (IOException ignored) {}
+			throw e;
 		}
 	}
 
-	private void applyHeadersFromRequest(HttpURLConnection connection, HttpRequest request) {
-		for (String key: request.headers()) {
-			connection.setRequestProperty(key, request.headers().header(key));
+	/**
+	 * Executes a request without reading the response body, so that large responses can be streamed to their
+	 * destination instead of being held in memory. The caller must close the returned response, which hands the
+	 * connection back to the transport. Non-2xx responses are read in full and thrown as an {@link HttpException},
+	 * as with {@link #execute(HttpRequest)}.
+	 */
+	public <T> StreamingHttpResponse<T> executeStreaming(HttpRequest<T> request) throws IOException {
+		HttpRequest<T> requestCopy = request.copy();
+
+		for (Injector injector : mInjectors) {
+			injector.inject(requestCopy);
 		}
+
+		TransportResponse response = getTransport().execute(transportRequest(requestCopy));
+		if (!isSuccess(response.statusCode())) {
+			try {
+				parseResponse(response.statusCode(), response.headers(), response.body(), String.class, null);
+			} finally {
+				response.close();
+			}
+		}
+
+		return new StreamingHttpResponse<>(response, requestCopy.responseClass(), requestCopy.projection(), encoder);
 	}
 
-	HttpURLConnection getConnection(HttpRequest request) throws IOException {
-		HttpURLConnection connection = (HttpURLConnection) new URL(environment.baseUrl() + request.path()).openConnection();
+	/**
+	 * Executes a request on this client's Executor, without blocking the calling thread. Injectors,
+	 * serialization and deserialization all run on the Executor. The returned future completes exceptionally
+	 * with an {@link HttpException} for non-2xx responses, or with the IOException that {@link #execute(HttpRequest)}
+	 * would have thrown. With an {@link AsyncTransport} no Executor thread is held while waiting for the response.
+	 */
+	public <T> CompletableFuture<HttpResponse<T>> executeAsync(HttpRequest<T> request) {
+		HttpRequest<T> requestCopy = request.copy();
+		CompletableFuture<HttpResponse<T>> future = new CompletableFuture<>();
 
-		if (connection instanceof HttpsURLConnection) {
-			if (sslSocketFactory == null) {
-				String message = "SSLSocketFactory was not set or failed to initialize";
-				System.out.println(message);
-				throw new SSLException(message);
+		try {
+			Transport transport = getTransport();
+			if (transport instanceof AsyncTransport) {
+				getExecutor().execute(() -> sendAsync((AsyncTransport) transport, requestCopy, future));
+			} else {
+				getExecutor().execute(() -> {
+					try {
+						future.complete(execute(requestCopy));
+					} catch (Throwable t) {
+						future.completeExceptionally(t);
+					}
+				});
 			}
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+
+		return future;
+	}
 
-			((HttpsURLConnection) connection).setSSLSocketFactory(getSSLSocketFactory());
+	/**
+	 * Sends a request through an AsyncTransport, so that no thread waits on the response. The response is
+	 * parsed back on the client's Executor rather than on the transport's own threads.
+	 */
+	private <T> void sendAsync(AsyncTransport transport, HttpRequest<T> request, CompletableFuture<HttpResponse<T>> future) {
+		CompletableFuture<TransportResponse> sent;
+		try {
+			for (Injector injector : mInjectors) {
+				injector.inject(request);
+			}
+			sent = transport.executeAsync(transportRequest(request));
+		} catch (Throwable t) {
+			future.completeExceptionally(t);
+			return;
 		}
 
-		connection.setReadTimeout(getReadTimeout());
-		connection.setConnectTimeout(getConnectTimeout());
+		sent.whenComplete((response, error) -> {
+			if (error != null) {
+				future.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+				return;
+			}
 
-		setRequestVerb(request.verb(), connection);
-		if (request.requestBody() != null) {
-			connection.setDoOutput(true);
-			byte[] data = encoder.serializeRequest(request);
+			try {
+				getExecutor().execute(() -> {
+					try {
+						future.complete(parseResponse(response.statusCode(), response.headers(), response.body(), request.responseClass(), request.projection()));
+					} catch (Throwable t) {
+						closeQuietly(response);
+						future.completeExceptionally(t);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				closeQuietly(response);
+				future.completeExceptionally(e);
+			}
+		});
+	}
 
-			applyHeadersFromRequest(connection, request);
-			writeOutputStream(connection.getOutputStream(), data);
-		} else {
-			applyHeadersFromRequest(connection, request);
+	/**
+	 * Starts every request on this client's Executor, as {@link #executeAsync(HttpRequest)} does, and returns
+	 * their futures in the order of the given requests. With an Executor from
+	 * {@link VirtualThreads#newVirtualThreadExecutor()} each request gets its own virtual thread.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<CompletableFuture<HttpResponse<?>>> executeAllAsync(Collection<? extends HttpRequest<?>> requests) {
+		List<CompletableFuture<HttpResponse<?>>> futures = new ArrayList<>(requests.size());
+		for (HttpRequest<?> request : requests) {
+			futures.add((CompletableFuture<HttpResponse<?>>) (CompletableFuture<?>) executeAsync(request));
 		}
 
-		return connection;
+		return futures;
 	}
 
 	/**
-	 * Workaround for a bug in {@code HttpURLConnection.setRequestMethod(String)}
-	 * The implementation of Sun/Oracle is throwing a {@code ProtocolException}
-	 * when the method is other than the HTTP/1.1 default methods. So to use {@code PATCH}
-	 * and others, we must apply this workaround.
+	 * Executes a batch of requests, running at most maxConcurrency of them at a time, and waits for all of them
+	 * to finish. A failed request does not stop the batch; its exception is recorded in its
+	 * {@link BatchResult.Outcome}. Outcomes are returned in the order of the given requests.
 	 *
-	 * See issue https://bugs.openjdk.java.net/browse/JDK-7016595
+	 * Requests run on this client's Executor, with the calling thread taking part as one of the workers, so a
+	 * batch still makes progress if the Executor is saturated or rejects work.
 	 */
-	private void setRequestVerb(String verb, HttpURLConnection connection) {
-		try {
-			connection.setRequestMethod(verb.toUpperCase());
-		} catch (ProtocolException ignored) {
+	public BatchResult executeAll(Collection<? extends HttpRequest<?>> requests, int maxConcurrency) throws InterruptedException {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("maxConcurrency must be at least 1");
+		}
+
+		HttpRequest<?>[] batch = requests.toArray(new HttpRequest<?>[0]);
+		BatchResult.Outcome[] outcomes = new BatchResult.Outcome[batch.length];
+		AtomicInteger nextRequest = new AtomicInteger();
+		int workers = Math.min(maxConcurrency, batch.length);
+		CountDownLatch done = new CountDownLatch(workers);
+
+		Runnable worker = () -> {
 			try {
-				Field delegateField = connection.getClass().getDeclaredField("delegate");
-				delegateField.setAccessible(true);
-				HttpURLConnection delegateConnection = (HttpURLConnection) delegateField.get(connection);
-
-				setRequestVerb(verb, delegateConnection);
-			} catch (NoSuchFieldException e) {
-				Field methodField = null;
-				Class connectionClass = connection.getClass();
-				while (methodField == null) {
-					try {
-						methodField = connectionClass.getDeclaredField("method");
-						methodField.setAccessible(true);
-						methodField.set(connection, "PATCH");
-					} catch (IllegalAccessException | NoSuchFieldException _ignored) {
-						connectionClass = connectionClass.getSuperclass();
-					}
+				for (int i; (i = nextRequest.getAndIncrement()) < batch.length; ) {
+					outcomes[i] = executeForOutcome(batch[i]);
 				}
-			} catch (IllegalAccessException ignoredIllegalAccess) {}
+			} finally {
+				done.countDown();
+			}
+		};
+
+		long start = System.nanoTime();
+		for (int i = 1; i < workers; i++) {
+			try {
+				getExecutor().execute(worker);
+			} catch (RejectedExecutionException e) {
+				done.countDown();
+			}
+		}
+		if (workers > 0) {
+			worker.run();
 		}
+		done.await();
+
+		return new BatchResult(Arrays.asList(outcomes), maxConcurrency, System.nanoTime() - start);
 	}
 
-	Headers parseResponseHeaders(URLConnection connection) {
-		Headers headers = new Headers();
-		for (String key : connection.getHeaderFields().keySet()) {
-			headers.header(key, connection.getHeaderField(key));
+	private BatchResult.Outcome executeForOutcome(HttpRequest<?> request) {
+		long start = System.nanoTime();
+		try {
+			HttpResponse<?> response = execute(request);
+			return new BatchResult.Outcome(request, response, null, System.nanoTime() - start);
+		} catch (Throwable t) {
+			// An Error is recorded too, so that every slot of the batch holds an outcome.
+			return new BatchResult.Outcome(request, null, t, System.nanoTime() - start);
+		}
+	}
+
+	private TransportRequest transportRequest(HttpRequest request) throws IOException {
+		URL url = new URL(environment.baseUrl() + request.path());
+		RequestBody body = null;
+		if (request.requestBody() != null) {
+			// Encode before reading the headers, as serializers may rewrite the Content-Type.
+			body = encoder.serializeRequestBody(request);
 		}
 
-		return headers;
+		boolean pipelined = request.pipelined() && ("GET".equalsIgnoreCase(request.verb()) || "HEAD".equalsIgnoreCase(request.verb()));
+		return new TransportRequest(request.verb(), url, request.headers(), body, getConnectTimeout(), getReadTimeout(), getSSLSocketFactory(), pipelined);
+	}
+
+	HttpURLConnection getConnection(HttpRequest request) throws IOException {
+		return DEFAULT_TRANSPORT.openConnection(transportRequest(request));
 	}
 
-	private <T> HttpResponse<T> parseResponse(HttpURLConnection connection, Class<T> responseClass) throws IOException {
-		Headers responseHeaders = parseResponseHeaders(connection);
-		String responseBody;
-		int statusCode;
-		statusCode = connection.getResponseCode();
-		if (statusCode >= HTTP_OK && statusCode <= HTTP_PARTIAL) {
+	Headers parseResponseHeaders(URLConnection connection) {
+		return DEFAULT_TRANSPORT.parseResponseHeaders(connection);
+	}
+
+	/**
+	 * Reads the response body to the end and closes it in every case, so that the connection it came from can
+	 * be reused.
+	 */
+	private <T> HttpResponse<T> parseResponse(int statusCode, Headers responseHeaders, InputStream body, Class<T> responseClass, Projection projection) throws IOException {
+		if (isSuccess(statusCode)) {
 			T deserializedResponse = null;
 
 			if (!Void.class.isAssignableFrom(responseClass)) {
-				deserializedResponse = encoder.deserializeResponse(connection.getInputStream(), responseClass, responseHeaders);
+				deserializedResponse = encoder.deserializeResponse(body, responseClass, responseHeaders, projection);
+			} else {
+				drain(body);
 			}
 
 			return new HttpResponse<>(responseHeaders, statusCode, deserializedResponse);
 		} else {
-			responseBody = encoder.deserializeResponse(connection.getErrorStream(), String.class, responseHeaders);
+			String responseBody = encoder.deserializeResponse(body, String.class, responseHeaders);
 			throw new HttpException(responseBody, statusCode, responseHeaders);
 		}
 	}
 
+	private static void closeQuietly(TransportResponse response) {
+		try {
+			response.close();
+		} catch (IOException ignored) {}
+	}
+
+	private static boolean isSuccess(int statusCode) {
+		return statusCode >= HTTP_OK && statusCode <= HTTP_PARTIAL;
+	}
+
 	private void injectStandardHeaders(HttpRequest request) throws IOException {
 		request.headers()
 				.headerIfNotPresent(Headers.USER_AGENT, getUserAgent());
 	}
+
+	private static class DefaultExecutor {
+		private static final AtomicInteger threadCount = new AtomicInteger();
+
+		static final ExecutorService INSTANCE = Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, "paypalhttp-async-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
 }
@@ -1,5 +1,7 @@
 package com.paypal.http;
 
+import com.paypal.http.serializer.Projection;
+
 public class HttpRequest<T> {
 
 	public HttpRequest(String path, String verb, Class<T> responseClass) {
@@ -13,6 +15,8 @@ public class HttpRequest<T> {
 	private Object body;
 	private Class<T> responseClass;
 	private Headers headers = new Headers();
+	private boolean pipelined;
+	private Projection projection;
 
 	public HttpRequest<T> path(String path) {
 		this.path = path;
@@ -29,6 +33,26 @@ public class HttpRequest<T> {
 		return this;
 	}
 
+	/**
+	 * Allows this request to be pipelined: when a {@link ConnectionPool} has no free connection, the request is
+	 * written to a connection that is still waiting on earlier pipelined requests to the same host, and its
+	 * response is read once theirs have been. Only GET and HEAD requests are pipelined, and only by
+	 * {@link PooledTransport}; other verbs and transports send the request as usual.
+	 */
+	public HttpRequest<T> pipelined(boolean pipelined) {
+		this.pipelined = pipelined;
+		return this;
+	}
+
+	/**
+	 * Decodes only the parts of the response named by the projection, skipping the rest of the body as it is
+	 * read. Serializers that cannot skip values decode the whole body.
+	 */
+	public HttpRequest<T> projection(Projection projection) {
+		this.projection = projection;
+		return this;
+	}
+
 	public String path() {
 		return this.path;
 	}
@@ -45,6 +69,14 @@ public class HttpRequest<T> {
 		return this.headers;
 	}
 
+	public boolean pipelined() {
+		return this.pipelined;
+	}
+
+	public Projection projection() {
+		return this.projection;
+	}
+
 	public Class<T> responseClass() {
 		return this.responseClass;
 	}
@@ -61,6 +93,8 @@ public class HttpRequest<T> {
 		}
 
 		other.body = body;
+		other.pipelined = pipelined;
+		other.projection = projection;
 
 		return other;
 	}
@@ -0,0 +1,120 @@
+package com.paypal.http;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.net.URLConnection;
+
+import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
+
+/**
+ * The default {@link Transport}, built on {@link HttpURLConnection}. Connections are not disconnected once
+ * their response has been read, so that the JDK can keep their sockets alive for later requests.
+ */
+public class HttpURLConnectionTransport implements Transport {
+
+	@Override
+	public TransportResponse execute(TransportRequest request) throws IOException {
+		HttpURLConnection connection = openConnection(request);
+		try {
+			int statusCode = connection.getResponseCode();
+			Headers headers = parseResponseHeaders(connection);
+			InputStream body = statusCode >= HTTP_BAD_REQUEST ? connection.getErrorStream() : connection.getInputStream();
+
+			return new TransportResponse(statusCode, headers, body);
+		} catch (IOException | RuntimeException e) {
+			connection.disconnect();
+			throw e;
+		}
+	}
+
+	HttpURLConnection openConnection(TransportRequest request) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) request.url().openConnection();
+
+		if (connection instanceof HttpsURLConnection) {
+			if (request.sslSocketFactory() == null) {
+				String message = "SSLSocketFactory was not set or failed to initialize";
+				System.out.println(message);
+				throw new SSLException(message);
+			}
+
+			((HttpsURLConnection) connection).setSSLSocketFactory(request.sslSocketFactory());
+		}
+
+		connection.setReadTimeout(request.readTimeout());
+		connection.setConnectTimeout(request.connectTimeout());
+
+		setRequestVerb(request.verb(), connection);
+		applyHeadersFromRequest(connection, request.headers());
+		if (request.body() != null) {
+			connection.setDoOutput(true);
+			// Stream the body instead of letting HttpURLConnection buffer it to compute a Content-Length.
+			long contentLength = request.body().contentLength();
+			if (contentLength >= 0) {
+				connection.setFixedLengthStreamingMode(contentLength);
+			} else {
+				connection.setChunkedStreamingMode(0);
+			}
+
+			OutputStream os = connection.getOutputStream();
+			request.body().writeTo(os);
+			os.close();
+		}
+
+		return connection;
+	}
+
+	private void applyHeadersFromRequest(HttpURLConnection connection, Headers headers) {
+		for (String key: headers) {
+			connection.setRequestProperty(key, headers.header(key));
+		}
+	}
+
+	/**
+	 * Workaround for a bug in {@code HttpURLConnection.setRequestMethod(String)}
+	 * The implementation of Sun/Oracle is throwing a {@code ProtocolException}
+	 * when the method is other than the HTTP/1.1 default methods. So to use {@code PATCH}
+	 * and others, we must apply this workaround.
+	 *
+	 * See issue https://bugs.openjdk.java.net/browse/JDK-7016595
+	 */
+	private void setRequestVerb(String verb, HttpURLConnection connection) {
+		try {
+			connection.setRequestMethod(verb.toUpperCase());
+		} catch (ProtocolException ignored) {
+			try {
+				Field delegateField = connection.getClass().getDeclaredField("delegate");
+				delegateField.setAccessible(true);
+				HttpURLConnection delegateConnection = (HttpURLConnection) delegateField.get(connection);
+
+				setRequestVerb(verb, delegateConnection);
+			} catch (NoSuchFieldException e) {
+				Field methodField = null;
+				Class connectionClass = connection.getClass();
+				while (methodField == null) {
+					try {
+						methodField = connectionClass.getDeclaredField("method");
+						methodField.setAccessible(true);
+						methodField.set(connection, "PATCH");
+					} catch (IllegalAccessException | NoSuchFieldException _ignored) {
+						connectionClass = connectionClass.getSuperclass();
+					}
+				}
+			} catch (IllegalAccessException ignoredIllegalAccess) {}
+		}
+	}
+
+	Headers parseResponseHeaders(URLConnection connection) {
+		Headers headers = new Headers();
+		for (String key : connection.getHeaderFields().keySet()) {
+			headers.header(key, connection.getHeaderField(key));
+		}
+
+		return headers;
+	}
+}
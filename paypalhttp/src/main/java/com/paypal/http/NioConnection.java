@@ -0,0 +1,441 @@
+package com.paypal.http;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A non-blocking HTTP/1.1 connection owned by a {@link NioTransport}, optionally wrapped in TLS through an
+ * {@link SSLEngine}. Apart from leasing and closing, every method runs on the connection's {@link NioEventLoop}.
+ */
+class NioConnection {
+
+	enum State { ACTIVE, IDLE, CLOSED }
+
+	private static final int BUFFER_SIZE = 16 * 1024;
+
+	private final NioTransport transport;
+	private final NioEventLoop loop;
+	private final String route;
+	private final InetSocketAddress address;
+	private final SocketChannel channel;
+	private final SSLEngine engine;
+	private final AtomicReference<State> state = new AtomicReference<>(State.ACTIVE);
+
+	private SelectionKey key;
+	private ByteBuffer netIn;
+	private ByteBuffer netOut;
+	private ByteBuffer appIn;
+
+	private NioExchange exchange;
+	private ByteBuffer[] request;
+	private Http1ResponseParser parser;
+
+	private boolean connected;
+	private boolean reused;
+	private boolean eof;
+	private long connectDeadline;
+	private long lastActivity;
+	private long idleSince;
+
+	private NioConnection(NioTransport transport, NioEventLoop loop, String route, InetSocketAddress address, SocketChannel channel, SSLEngine engine) {
+		this.transport = transport;
+		this.loop = loop;
+		this.route = route;
+		this.address = address;
+		this.channel = channel;
+		this.engine = engine;
+
+		if (engine != null) {
+			this.netIn = ByteBuffer.allocate(Math.max(BUFFER_SIZE, engine.getSession().getPacketBufferSize()));
+			this.netOut = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+			this.appIn = ByteBuffer.allocate(Math.max(BUFFER_SIZE, engine.getSession().getApplicationBufferSize()));
+		} else {
+			this.netIn = ByteBuffer.allocate(BUFFER_SIZE);
+		}
+	}
+
+	/**
+	 * Opens a connection for the given exchange and starts connecting. Must be called on the loop's thread.
+	 */
+	static void open(NioTransport transport, NioEventLoop loop, NioExchange exchange, InetSocketAddress address, SSLContext sslContext) {
+		SocketChannel channel = null;
+		NioConnection connection = null;
+		try {
+			channel = SocketChannel.open();
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+			channel.socket().setKeepAlive(true);
+
+			SSLEngine engine = null;
+			if (sslContext != null) {
+				engine = sslContext.createSSLEngine(address.getHostString(), address.getPort());
+				engine.setUseClientMode(true);
+				SSLParameters parameters = engine.getSSLParameters();
+				parameters.setEndpointIdentificationAlgorithm("HTTPS");
+				engine.setSSLParameters(parameters);
+			}
+
+			connection = new NioConnection(transport, loop, exchange.route(), address, channel, engine);
+			connection.key = channel.register(loop.selector(), 0, connection);
+			loop.register(connection);
+			connection.begin(exchange);
+
+			int connectTimeout = exchange.request().connectTimeout();
+			connection.connectDeadline = connectTimeout > 0 ? System.currentTimeMillis() + connectTimeout : 0;
+			if (channel.connect(address)) {
+				connection.onConnected();
+			} else {
+				connection.key.interestOps(SelectionKey.OP_CONNECT);
+			}
+		} catch (IOException | RuntimeException e) {
+			if (connection != null) {
+				connection.fail(e instanceof IOException ? (IOException) e : new IOException(e));
+				return;
+			}
+
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException ignored) {}
+			}
+			transport.connectionFailed();
+			exchange.future().completeExceptionally(e);
+		}
+	}
+
+	String route() { return route; }
+
+	NioEventLoop loop() { return loop; }
+
+	/**
+	 * Takes this connection out of the idle state for a new request. Called from any thread.
+	 */
+	boolean tryLease() {
+		return state.compareAndSet(State.IDLE, State.ACTIVE);
+	}
+
+	/**
+	 * Starts a request on a connection taken from the idle pool.
+	 */
+	void start(NioExchange exchange) {
+		if (state.get() == State.CLOSED || eof) {
+			// The server closed the connection between the lease and now; try again on a new one.
+			close();
+			transport.retry(exchange, address);
+			return;
+		}
+
+		reused = true;
+		begin(exchange);
+		try {
+			pump();
+		} catch (IOException | RuntimeException e) {
+			fail(e instanceof IOException ? (IOException) e : new IOException(e));
+		}
+	}
+
+	void onConnectable() throws IOException {
+		if (channel.finishConnect()) {
+			onConnected();
+		}
+	}
+
+	void onReady(boolean readable) throws IOException {
+		if (readable) {
+			int count = channel.read(netIn);
+			if (count == -1) {
+				eof = true;
+			} else if (count > 0) {
+				lastActivity = System.currentTimeMillis();
+			}
+		}
+
+		pump();
+	}
+
+	void checkTimeouts(long now) {
+		if (exchange != null) {
+			if (!connected && connectDeadline > 0 && now >= connectDeadline) {
+				fail(new SocketTimeoutException("connect timed out"));
+			} else if (connected && exchange.request().readTimeout() > 0 && now - lastActivity >= exchange.request().readTimeout()) {
+				fail(new SocketTimeoutException("Read timed out"));
+			}
+		} else if (now - idleSince >= transport.keepAliveMillis() && state.compareAndSet(State.IDLE, State.CLOSED)) {
+			transport.connectionEvicted();
+			close();
+		}
+	}
+
+	/**
+	 * Fails the current request, if any, and closes the connection. A reused connection may have been closed by
+	 * the server while it sat idle, so its request is sent once more on a new connection, but only when it cannot
+	 * have been acted on twice: either none of it was written yet, or the request is idempotent, its body can be
+	 * written again, and the connection was closed or reset before any of the response arrived. Timeouts are never
+	 * retried.
+	 */
+	void fail(IOException e) {
+		NioExchange failed = exchange;
+		boolean retry = failed != null && isRetryable(failed.request(), e);
+		exchange = null;
+		close();
+
+		if (failed != null) {
+			if (retry) {
+				transport.retry(failed, address);
+			} else {
+				failed.future().completeExceptionally(e);
+			}
+		}
+	}
+
+	void close() {
+		if (state.getAndSet(State.CLOSED) == State.CLOSED && !channel.isOpen()) {
+			return;
+		}
+
+		if (key != null) {
+			key.cancel();
+		}
+		try {
+			channel.close();
+		} catch (IOException ignored) {}
+
+		loop.deregister(this);
+		transport.connectionClosed(this);
+	}
+
+	private void begin(NioExchange exchange) {
+		this.exchange = exchange;
+		this.request = exchange.requestBuffers();
+		this.parser = new Http1ResponseParser(exchange.request().verb());
+		this.lastActivity = System.currentTimeMillis();
+	}
+
+	private void onConnected() throws IOException {
+		connected = true;
+		lastActivity = System.currentTimeMillis();
+		if (engine != null) {
+			engine.beginHandshake();
+		}
+		pump();
+	}
+
+	private void pump() throws IOException {
+		if (exchange == null) {
+			if (eof || netIn.position() > 0) {
+				// An idle connection was closed by the server, or sent something it should not have.
+				close();
+			}
+			return;
+		}
+		if (!connected) {
+			return;
+		}
+
+		if (engine != null) {
+			pumpTls();
+		} else {
+			pumpPlain();
+		}
+
+		if (parser.isComplete()) {
+			complete();
+		} else if (eof) {
+			try {
+				parser.endOfStream();
+				complete();
+			} catch (EOFException e) {
+				fail(e);
+			}
+		} else {
+			key.interestOps(hasPendingOutput() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+		}
+	}
+
+	private void pumpPlain() throws IOException {
+		if (remaining(request)) {
+			channel.write(request);
+		}
+
+		netIn.flip();
+		parser.feed(netIn);
+		netIn.compact();
+	}
+
+	private void pumpTls() throws IOException {
+		boolean progress = true;
+		while (progress && !parser.isComplete()) {
+			progress = false;
+
+			HandshakeStatus handshake = engine.getHandshakeStatus();
+			if (handshake == HandshakeStatus.NEED_TASK) {
+				Runnable task;
+				while ((task = engine.getDelegatedTask()) != null) {
+					task.run();
+				}
+				progress = true;
+				continue;
+			}
+
+			boolean handshaking = handshake != HandshakeStatus.NOT_HANDSHAKING && handshake != HandshakeStatus.FINISHED;
+			if (handshake == HandshakeStatus.NEED_WRAP || (!handshaking && remaining(request))) {
+				progress |= wrap();
+			}
+
+			if (netIn.position() > 0 || handshake == HandshakeStatus.NEED_UNWRAP) {
+				progress |= unwrap();
+			}
+
+			if (appIn.position() > 0) {
+				appIn.flip();
+				parser.feed(appIn);
+				appIn.compact();
+				progress = true;
+			}
+		}
+
+		flush();
+	}
+
+	private boolean wrap() throws IOException {
+		SSLEngineResult result = engine.wrap(request, netOut);
+		switch (result.getStatus()) {
+			case OK:
+				return result.bytesProduced() > 0 || result.bytesConsumed() > 0;
+			case BUFFER_OVERFLOW:
+				// Make room by writing out what is already encrypted; if the socket is full, wait for OP_WRITE.
+				return flush() > 0;
+			case CLOSED:
+				throw new SSLException("Connection closed during TLS handshake");
+			default:
+				return false;
+		}
+	}
+
+	private boolean unwrap() throws IOException {
+		netIn.flip();
+		SSLEngineResult result;
+		try {
+			result = engine.unwrap(netIn, appIn);
+		} finally {
+			netIn.compact();
+		}
+
+		switch (result.getStatus()) {
+			case OK:
+				return result.bytesProduced() > 0 || result.bytesConsumed() > 0;
+			case BUFFER_UNDERFLOW:
+				if (!netIn.hasRemaining()) {
+					netIn = grow(netIn, engine.getSession().getPacketBufferSize());
+					return true;
+				}
+				return false;
+			case BUFFER_OVERFLOW:
+				if (appIn.position() == 0) {
+					appIn = grow(appIn, engine.getSession().getApplicationBufferSize());
+				}
+				return true;
+			case CLOSED:
+				eof = true;
+				return false;
+			default:
+				return false;
+		}
+	}
+
+	private int flush() throws IOException {
+		if (netOut.position() == 0) {
+			return 0;
+		}
+
+		netOut.flip();
+		try {
+			return channel.write(netOut);
+		} finally {
+			netOut.compact();
+		}
+	}
+
+	private boolean isRetryable(TransportRequest request, IOException e) {
+		if (!reused || (parser != null && parser.started()) || e instanceof InterruptedIOException) {
+			// Read timeouts in particular: the server may still be working on the request.
+			return false;
+		}
+		if (!requestStarted()) {
+			return true;
+		}
+
+		// Older JDKs report a reset or broken pipe on a SocketChannel as a plain IOException.
+		boolean closed = e instanceof EOFException || e instanceof SocketException
+				|| (e.getClass() == IOException.class && e.getCause() == null);
+		return closed
+				&& Http1.isIdempotent(request.verb())
+				&& (request.body() == null || request.body().isRepeatable());
+	}
+
+	/**
+	 * Whether any of the request has been handed to the socket, or to the SSLEngine on its way there.
+	 */
+	private boolean requestStarted() {
+		return request != null && request[0].position() > 0;
+	}
+
+	private boolean hasPendingOutput() {
+		return engine != null ? netOut.position() > 0 : remaining(request);
+	}
+
+	private void complete() {
+		NioExchange completed = exchange;
+		TransportResponse response = new TransportResponse(parser.statusCode(), parser.headers(), new ByteArrayInputStream(parser.body()));
+		boolean leftover = netIn.position() > 0 || (appIn != null && appIn.position() > 0);
+		boolean reusable = parser.keepAlive() && !eof && !leftover && !remaining(request);
+
+		exchange = null;
+		request = null;
+		parser = null;
+
+		if (reusable && key.isValid()) {
+			key.interestOps(SelectionKey.OP_READ);
+			idleSince = System.currentTimeMillis();
+			state.set(State.IDLE);
+			transport.release(this);
+		} else {
+			close();
+		}
+
+		completed.future().complete(response);
+	}
+
+	private static boolean remaining(ByteBuffer[] buffers) {
+		if (buffers != null) {
+			for (ByteBuffer buffer : buffers) {
+				if (buffer.hasRemaining()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static ByteBuffer grow(ByteBuffer buffer, int minimumCapacity) {
+		ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, minimumCapacity));
+		buffer.flip();
+		grown.put(buffer);
+		return grown;
+	}
+}
@@ -0,0 +1,134 @@
+package com.paypal.http;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A single thread driving a {@link Selector} for the {@link NioConnection}s registered with it. Everything a
+ * connection does happens on its loop's thread; other threads hand work over with {@link #execute(Runnable)}.
+ */
+class NioEventLoop implements Runnable {
+
+	private static final long TIMEOUT_CHECK_INTERVAL_MILLIS = 100;
+
+	private final Selector selector;
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+	private final Set<NioConnection> connections = new HashSet<>();
+	private final Thread thread;
+
+	private volatile boolean shutdown;
+	private long nextTimeoutCheck;
+
+	NioEventLoop(String name) throws IOException {
+		this.selector = Selector.open();
+		this.thread = new Thread(this, name);
+		this.thread.setDaemon(true);
+	}
+
+	void start() {
+		thread.start();
+	}
+
+	Selector selector() { return selector; }
+
+	boolean inEventLoop() {
+		return Thread.currentThread() == thread;
+	}
+
+	/**
+	 * Runs a task on this loop's thread.
+	 */
+	void execute(Runnable task) {
+		tasks.add(task);
+		if (!inEventLoop()) {
+			selector.wakeup();
+		}
+	}
+
+	void register(NioConnection connection) {
+		connections.add(connection);
+	}
+
+	void deregister(NioConnection connection) {
+		connections.remove(connection);
+	}
+
+	/**
+	 * Stops the loop, failing any requests still in flight and closing every connection.
+	 */
+	void shutdown() {
+		shutdown = true;
+		selector.wakeup();
+	}
+
+	@Override
+	public void run() {
+		while (!shutdown) {
+			try {
+				selector.select(TIMEOUT_CHECK_INTERVAL_MILLIS);
+			} catch (IOException e) {
+				continue;
+			}
+
+			runTasks();
+			processSelectedKeys();
+
+			long now = System.currentTimeMillis();
+			if (now >= nextTimeoutCheck) {
+				nextTimeoutCheck = now + TIMEOUT_CHECK_INTERVAL_MILLIS;
+				for (NioConnection connection : new ArrayList<>(connections)) {
+					connection.checkTimeouts(now);
+				}
+			}
+		}
+
+		runTasks();
+		for (NioConnection connection : new ArrayList<>(connections)) {
+			connection.fail(new IOException("NioTransport has been closed"));
+		}
+		try {
+			selector.close();
+		} catch (IOException ignored) {}
+	}
+
+	private void runTasks() {
+		Runnable task;
+		while ((task = tasks.poll()) != null) {
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				// A task failing must not take the whole loop down with it.
+			}
+		}
+	}
+
+	private void processSelectedKeys() {
+		Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+		while (keys.hasNext()) {
+			SelectionKey key = keys.next();
+			keys.remove();
+
+			NioConnection connection = (NioConnection) key.attachment();
+			try {
+				if (!key.isValid()) {
+					continue;
+				}
+				if (key.isConnectable()) {
+					connection.onConnectable();
+				}
+				if (key.isValid() && (key.isReadable() || key.isWritable())) {
+					connection.onReady(key.isReadable());
+				}
+			} catch (IOException | RuntimeException e) {
+				connection.fail(e instanceof IOException ? (IOException) e : new IOException(e));
+			}
+		}
+	}
+}
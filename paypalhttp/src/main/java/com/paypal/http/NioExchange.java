@@ -0,0 +1,39 @@
+package com.paypal.http;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A request in flight on a {@link NioTransport}, with its encoded bytes and the future its response completes.
+ */
+class NioExchange {
+
+	private final TransportRequest request;
+	private final String route;
+	private final ByteBuffer head;
+	private final ByteBuffer body;
+	private final CompletableFuture<TransportResponse> future;
+
+	NioExchange(TransportRequest request, String route, ByteBuffer head, ByteBuffer body, CompletableFuture<TransportResponse> future) {
+		this.request = request;
+		this.route = route;
+		this.head = head;
+		this.body = body;
+		this.future = future;
+	}
+
+	TransportRequest request() { return request; }
+
+	String route() { return route; }
+
+	CompletableFuture<TransportResponse> future() { return future; }
+
+	/**
+	 * Fresh views of the encoded request, so that it can be written again if it has to be retried.
+	 */
+	ByteBuffer[] requestBuffers() {
+		return body != null
+				? new ByteBuffer[] { head.duplicate(), body.duplicate() }
+				: new ByteBuffer[] { head.duplicate() };
+	}
+}
@@ -0,0 +1,350 @@
+package com.paypal.http;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+/**
+ * A non-blocking HTTP/1.1 {@link AsyncTransport} built on {@link java.nio.channels.SocketChannel}s and a
+ * {@link java.nio.channels.Selector}, with TLS through {@link javax.net.ssl.SSLEngine}. A few event-loop threads
+ * drive every connection, so the number of requests in flight is not bounded by the number of threads.
+ * Connections are kept alive and reused between requests to the same host.
+ *
+ * Response bodies are read into memory before the response is handed back. Requests connect directly to the
+ * target host and do not go through the system proxy settings. The client's SSLSocketFactory is not used by
+ * this transport; pass an SSLContext instead.
+ *
+ * Close the transport to stop its event loops once it is no longer needed.
+ */
+public class NioTransport implements AsyncTransport, Closeable {
+
+	private final int eventLoopCount;
+	private final SSLContext configuredSSLContext;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final AtomicInteger nextLoop = new AtomicInteger();
+	private final ConcurrentHashMap<String, Deque<NioConnection>> idleConnections = new ConcurrentHashMap<>();
+
+	private volatile NioEventLoop[] loops;
+	private volatile SSLContext sslContext;
+	private volatile boolean closed;
+	private volatile int maxIdleConnectionsPerHost = 5;
+	private volatile long keepAliveMillis = TimeUnit.MINUTES.toMillis(1);
+
+	private final AtomicLong newConnections = new AtomicLong();
+	private final AtomicLong reusedConnections = new AtomicLong();
+	private final AtomicLong evictedConnections = new AtomicLong();
+	private final AtomicInteger totalConnections = new AtomicInteger();
+
+	public NioTransport() {
+		this(Math.min(Runtime.getRuntime().availableProcessors(), 4));
+	}
+
+	public NioTransport(int eventLoops) {
+		this(eventLoops, null);
+	}
+
+	/**
+	 * @param eventLoops the number of event-loop threads to spread connections over
+	 * @param sslContext the SSLContext used for https connections, or null for the JVM default
+	 */
+	public NioTransport(int eventLoops, SSLContext sslContext) {
+		if (eventLoops < 1) {
+			throw new IllegalArgumentException("eventLoops must be at least 1");
+		}
+		this.eventLoopCount = eventLoops;
+		this.configuredSSLContext = sslContext;
+	}
+
+	/**
+	 * Sets the maximum number of idle connections kept alive for each host.
+	 */
+	public NioTransport maxIdleConnectionsPerHost(int maxIdleConnectionsPerHost) {
+		if (maxIdleConnectionsPerHost < 0) {
+			throw new IllegalArgumentException("maxIdleConnectionsPerHost must not be negative");
+		}
+		this.maxIdleConnectionsPerHost = maxIdleConnectionsPerHost;
+		return this;
+	}
+
+	/**
+	 * Sets how long a connection may sit idle before it is closed.
+	 */
+	public NioTransport keepAlive(long duration, TimeUnit unit) {
+		if (duration <= 0) {
+			throw new IllegalArgumentException("keepAlive duration must be positive");
+		}
+		this.keepAliveMillis = unit.toMillis(duration);
+		return this;
+	}
+
+	public int maxIdleConnectionsPerHost() { return maxIdleConnectionsPerHost; }
+
+	public long keepAliveMillis() { return keepAliveMillis; }
+
+	public ConnectionPool.Stats stats() {
+		int idle = 0;
+		for (Deque<NioConnection> connections : idleConnections.values()) {
+			idle += connections.size();
+		}
+
+		return new ConnectionPool.Stats(newConnections.get(), reusedConnections.get(), evictedConnections.get(), totalConnections.get(), idle);
+	}
+
+	@Override
+	public TransportResponse execute(TransportRequest request) throws IOException {
+		try {
+			return executeAsync(request).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a response from " + request.url());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	@Override
+	public CompletableFuture<TransportResponse> executeAsync(TransportRequest request) {
+		CompletableFuture<TransportResponse> future = new CompletableFuture<>();
+
+		try {
+			if (closed) {
+				throw new IOException("NioTransport has been closed");
+			}
+
+			NioExchange exchange = encode(request, future);
+			NioConnection idle = pollIdle(exchange.route());
+			if (idle != null) {
+				reusedConnections.incrementAndGet();
+				idle.loop().execute(() -> idle.start(exchange));
+			} else {
+				URL url = request.url();
+				// Resolved in connect, so that a slow DNS lookup never blocks the calling thread.
+				connect(exchange, InetSocketAddress.createUnresolved(url.getHost(), url.getPort() != -1 ? url.getPort() : url.getDefaultPort()));
+			}
+		} catch (IOException | RuntimeException e) {
+			future.completeExceptionally(e);
+		}
+
+		return future;
+	}
+
+	/**
+	 * Fails requests still in flight, closes every connection and stops the event loops.
+	 */
+	@Override
+	public void close() {
+		lock.lock();
+		try {
+			closed = true;
+			if (loops != null) {
+				for (NioEventLoop loop : loops) {
+					loop.shutdown();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Sends a request again on a new connection, after the connection it was sent on turned out to be closed. The
+	 * address is the one that connection was opened to, which is already resolved.
+	 */
+	void retry(NioExchange exchange, InetSocketAddress address) {
+		try {
+			if (closed) {
+				throw new IOException("NioTransport has been closed");
+			}
+			connect(exchange, address);
+		} catch (IOException | RuntimeException e) {
+			exchange.future().completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Puts a connection whose response has completed back in the idle pool, or closes it if the pool already
+	 * holds enough idle connections for its host. Called on the connection's event loop.
+	 */
+	void release(NioConnection connection) {
+		Deque<NioConnection> connections = idleConnections.computeIfAbsent(connection.route(), k -> new ConcurrentLinkedDeque<>());
+		if (closed || connections.size() >= maxIdleConnectionsPerHost) {
+			evictedConnections.incrementAndGet();
+			connection.close();
+			return;
+		}
+
+		connections.addFirst(connection);
+	}
+
+	void connectionClosed(NioConnection connection) {
+		totalConnections.decrementAndGet();
+		Deque<NioConnection> connections = idleConnections.get(connection.route());
+		if (connections != null) {
+			connections.remove(connection);
+		}
+	}
+
+	void connectionFailed() {
+		totalConnections.decrementAndGet();
+	}
+
+	void connectionEvicted() {
+		evictedConnections.incrementAndGet();
+	}
+
+	private void connect(NioExchange exchange, InetSocketAddress address) throws IOException {
+		SSLContext context = "https".equalsIgnoreCase(exchange.request().url().getProtocol()) ? sslContext() : null;
+		NioEventLoop loop = nextLoop();
+
+		newConnections.incrementAndGet();
+		totalConnections.incrementAndGet();
+		if (!address.isUnresolved()) {
+			loop.execute(() -> NioConnection.open(this, loop, exchange, address, context));
+			return;
+		}
+
+		try {
+			Resolver.INSTANCE.execute(() -> {
+				InetSocketAddress resolved = new InetSocketAddress(address.getHostString(), address.getPort());
+				if (resolved.isUnresolved() || closed) {
+					connectionFailed();
+					exchange.future().completeExceptionally(resolved.isUnresolved()
+							? new UnknownHostException(address.getHostString())
+							: new IOException("NioTransport has been closed"));
+					return;
+				}
+				loop.execute(() -> NioConnection.open(this, loop, exchange, resolved, context));
+			});
+		} catch (RejectedExecutionException e) {
+			connectionFailed();
+			throw e;
+		}
+	}
+
+	private NioConnection pollIdle(String route) {
+		Deque<NioConnection> connections = idleConnections.get(route);
+		if (connections == null) {
+			return null;
+		}
+
+		NioConnection connection;
+		while ((connection = connections.pollFirst()) != null) {
+			if (connection.tryLease()) {
+				return connection;
+			}
+		}
+
+		return null;
+	}
+
+	private NioEventLoop nextLoop() throws IOException {
+		NioEventLoop[] current = loops;
+		if (current == null) {
+			lock.lock();
+			try {
+				if (closed) {
+					throw new IOException("NioTransport has been closed");
+				}
+				if (loops == null) {
+					NioEventLoop[] started = new NioEventLoop[eventLoopCount];
+					for (int i = 0; i < started.length; i++) {
+						started[i] = new NioEventLoop("paypalhttp-nio-" + (i + 1));
+						started[i].start();
+					}
+					loops = started;
+				}
+				current = loops;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		return current[Math.floorMod(nextLoop.getAndIncrement(), current.length)];
+	}
+
+	private SSLContext sslContext() throws SSLException {
+		if (configuredSSLContext != null) {
+			return configuredSSLContext;
+		}
+
+		SSLContext current = sslContext;
+		if (current == null) {
+			try {
+				current = SSLContext.getDefault();
+			} catch (NoSuchAlgorithmException e) {
+				throw new SSLException(e.getMessage());
+			}
+			sslContext = current;
+		}
+
+		return current;
+	}
+
+	private static NioExchange encode(TransportRequest request, CompletableFuture<TransportResponse> future) throws IOException {
+		ByteBuffer body = null;
+		if (request.body() != null) {
+			long contentLength = request.body().contentLength();
+			BufferOutputStream os = new BufferOutputStream(contentLength > 0 ? (int) contentLength : 1024);
+			request.body().writeTo(os);
+			body = os.toByteBuffer();
+		}
+
+		String head = Http1.requestHead(request.verb(), request.url(), request.headers(), body != null, body != null ? body.remaining() : 0);
+		return new NioExchange(request, ConnectionPool.routeFor(request.url()), ByteBuffer.wrap(head.getBytes(ISO_8859_1)), body, future);
+	}
+
+	/**
+	 * Looks up host names for new connections, off both the calling thread and the event loops.
+	 */
+	private static class Resolver {
+		private static final AtomicInteger threadCount = new AtomicInteger();
+
+		static final ExecutorService INSTANCE = Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, "paypalhttp-nio-resolver-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Collects an encoded body and hands it over as a ByteBuffer without copying it again.
+	 */
+	private static class BufferOutputStream extends ByteArrayOutputStream {
+
+		BufferOutputStream(int size) {
+			super(size);
+		}
+
+		ByteBuffer toByteBuffer() {
+			return ByteBuffer.wrap(buf, 0, count);
+		}
+	}
+}
@@ -0,0 +1,533 @@
+package com.paypal.http;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+/**
+ * A single HTTP/1.1 connection owned by a {@link ConnectionPool}. The connection is leased to one request at
+ * a time and goes back to the pool when the response body stream is closed.
+ *
+ * Pipelined requests may share a leased connection. Each request takes a ticket when it is written, and
+ * responses are read in ticket order, each once the previous response body has been closed. If the connection
+ * breaks, every request still waiting on it fails without having read any of its response.
+ */
+class PooledConnection {
+
+	private static final String CRLF = Http1.CRLF;
+
+	private final ConnectionPool pool;
+	private final String route;
+	private final Socket socket;
+	private final InputStream in;
+	private final OutputStream out;
+
+	private final ReentrantLock writeLock = new ReentrantLock();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition turnChanged = lock.newCondition();
+
+	private long idleSince;
+	private int readTimeout;
+	private volatile boolean reused;
+	private volatile boolean responseStarted;
+	private volatile boolean broken;
+	private volatile boolean timedOut;
+
+	// Guarded by lock
+	private int outstanding;
+	private long nextTicket;
+	private long servingTicket;
+	private volatile long readingTicket = -1;
+
+	private PooledConnection(ConnectionPool pool, String route, Socket socket) throws IOException {
+		this.pool = pool;
+		this.route = route;
+		this.socket = socket;
+		this.in = new BufferedInputStream(socket.getInputStream(), 8192);
+		this.out = new BufferedOutputStream(socket.getOutputStream(), 8192);
+	}
+
+	static PooledConnection open(ConnectionPool pool, String route, URL url, int connectTimeout, int readTimeout, SSLSocketFactory sslSocketFactory) throws IOException {
+		boolean https = "https".equalsIgnoreCase(url.getProtocol());
+		if (https && sslSocketFactory == null) {
+			String message = "SSLSocketFactory was not set or failed to initialize";
+			System.out.println(message);
+			throw new SSLException(message);
+		}
+
+		String host = url.getHost();
+		int port = url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+
+		Socket socket = new Socket();
+		try {
+			socket.setTcpNoDelay(true);
+			socket.setKeepAlive(true);
+			socket.connect(new InetSocketAddress(host, port), connectTimeout);
+			socket.setSoTimeout(readTimeout);
+
+			if (https) {
+				SSLSocket sslSocket = (SSLSocket) sslSocketFactory.createSocket(socket, host, port, true);
+				SSLParameters parameters = sslSocket.getSSLParameters();
+				parameters.setEndpointIdentificationAlgorithm("HTTPS");
+				sslSocket.setSSLParameters(parameters);
+				sslSocket.startHandshake();
+				socket = sslSocket;
+			}
+
+			PooledConnection connection = new PooledConnection(pool, route, socket);
+			connection.readTimeout = readTimeout;
+			return connection;
+		} catch (IOException | RuntimeException e) {
+			try {
+				socket.close();
+			} catch (IOException ignored) {}
+			throw e;
+		}
+	}
+
+	String route() { return route; }
+
+	long idleSince() { return idleSince; }
+
+	/**
+	 * Whether this connection served an earlier request before the current one.
+	 */
+	boolean isReused() { return reused; }
+
+	/**
+	 * Whether any bytes of the response to the request with the given ticket have been received. A reused
+	 * connection that fails before this point was most likely closed by the server while idle, so the request
+	 * can safely be retried.
+	 */
+	boolean responseStarted(long ticket) { return ticket >= 0 && readingTicket == ticket && responseStarted; }
+
+	/**
+	 * The number of requests that have been handed this connection and not yet finished with it.
+	 */
+	int outstanding() {
+		lock.lock();
+		try {
+			return outstanding;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	boolean isBroken() { return broken; }
+
+	boolean isClosed() {
+		return socket.isClosed() || socket.isInputShutdown() || socket.isOutputShutdown();
+	}
+
+	void markIdle() {
+		idleSince = System.currentTimeMillis();
+	}
+
+	void lease(int readTimeout) throws SocketException {
+		reused = true;
+		this.readTimeout = readTimeout;
+		socket.setSoTimeout(readTimeout);
+	}
+
+	/**
+	 * Counts one more request against this connection. Called by the pool whenever it hands the connection out,
+	 * including to requests pipelined behind others.
+	 */
+	void reserve() {
+		lock.lock();
+		try {
+			if (outstanding > 0) {
+				reused = true;
+			}
+			outstanding++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Counts a request as finished with this connection, successfully or not.
+	 *
+	 * @return whether no other request is still using the connection
+	 */
+	boolean finish(boolean success) {
+		lock.lock();
+		try {
+			outstanding--;
+			if (success) {
+				servingTicket++;
+			} else {
+				broken = true;
+			}
+			turnChanged.signalAll();
+
+			return outstanding == 0;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Writes a request and returns its ticket, which orders it among other requests pipelined on this connection.
+	 */
+	long writeRequest(String verb, URL url, Headers headers, RequestBody body) throws IOException {
+		boolean chunked = body != null && body.contentLength() < 0;
+		String head = Http1.requestHead(verb, url, headers, body != null, body != null ? body.contentLength() : 0);
+
+		writeLock.lock();
+		try {
+			if (broken) {
+				throw new NotSentException("Connection closed before the request was sent", null);
+			}
+
+			long ticket;
+			lock.lock();
+			try {
+				ticket = nextTicket++;
+			} finally {
+				lock.unlock();
+			}
+
+			try {
+				out.write(head.getBytes(ISO_8859_1));
+			} catch (IOException e) {
+				throw new NotSentException("Connection closed before the request body was sent", e);
+			}
+			if (chunked) {
+				ChunkedOutputStream chunks = new ChunkedOutputStream(out);
+				body.writeTo(chunks);
+				chunks.finish();
+			} else if (body != null) {
+				body.writeTo(out);
+			}
+			out.flush();
+
+			return ticket;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Waits until every response ahead of the given ticket has been read and closed, then reads the status and
+	 * headers of this one.
+	 */
+	TransportResponse readResponse(String verb, long ticket) throws IOException {
+		awaitTurn(ticket);
+		readingTicket = ticket;
+		responseStarted = false;
+
+		String statusLine;
+		int statusCode;
+		Headers headers;
+
+		do {
+			statusLine = readLine();
+			statusCode = Http1.parseStatusCode(statusLine);
+			headers = readHeaders();
+		} while (statusCode >= 100 && statusCode < 200);
+
+		boolean keepAlive = Http1.isKeepAlive(statusLine, headers);
+
+		Body body;
+		long contentLength = Http1.contentLength(headers);
+		if (Http1.hasNoBody(verb, statusCode)) {
+			body = new Body(0, false, keepAlive);
+		} else if (Http1.isChunked(headers)) {
+			body = new Body(0, true, keepAlive);
+		} else if (contentLength >= 0) {
+			body = new Body(contentLength, false, keepAlive);
+		} else {
+			// No framing, so the body runs until the server closes the connection.
+			body = new Body(-1, false, false);
+		}
+
+		return new TransportResponse(statusCode, headers, body);
+	}
+
+	/**
+	 * Gives up on this connection after a failed request. The socket is closed straight away, so that other
+	 * requests pipelined on it stop waiting, and the connection is discarded once they have all let go of it.
+	 * When the request timed out, the server may still be working through the pipeline, so the waiting requests
+	 * fail with a timeout as well rather than as if the connection had been closed.
+	 */
+	void abandon(Exception cause) {
+		timedOut = cause instanceof InterruptedIOException;
+		broken = true;
+		closeSocket();
+		pool.finish(this, false);
+	}
+
+	void closeSocket() {
+		try {
+			socket.close();
+		} catch (IOException ignored) {}
+	}
+
+	private void awaitTurn(long ticket) throws IOException {
+		lock.lock();
+		try {
+			long waitNanos = TimeUnit.MILLISECONDS.toNanos(readTimeout);
+			while (servingTicket != ticket && !broken) {
+				if (readTimeout == 0) {
+					turnChanged.await();
+				} else if (waitNanos <= 0) {
+					throw new SocketTimeoutException("Timed out waiting for earlier pipelined responses");
+				} else {
+					waitNanos = turnChanged.awaitNanos(waitNanos);
+				}
+			}
+
+			if (broken) {
+				throw timedOut
+						? new SocketTimeoutException("Timed out waiting for an earlier pipelined response")
+						: new EOFException("Pipelined connection closed before the response was received");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for earlier pipelined responses");
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private Headers readHeaders() throws IOException {
+		Headers headers = new Headers();
+		String line;
+		while (!(line = readLine()).isEmpty()) {
+			Http1.parseHeader(line, headers);
+		}
+
+		return headers;
+	}
+
+	private String readLine() throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+		int c;
+		while ((c = in.read()) != '\n') {
+			if (c == -1) {
+				if (line.size() == 0 && !responseStarted) {
+					throw new EOFException("Connection closed by server before a response was received");
+				}
+				throw new EOFException("Unexpected end of stream");
+			}
+			responseStarted = true;
+			line.write(c);
+		}
+
+		byte[] bytes = line.toByteArray();
+		int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+		return new String(bytes, 0, length, ISO_8859_1);
+	}
+
+	/**
+	 * Thrown when a request fails before any of its body was written, so that the server cannot have received
+	 * the whole request.
+	 */
+	static final class NotSentException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		NotSentException(String message, IOException cause) {
+			super(message, cause);
+		}
+	}
+
+	/**
+	 * Writes a request body of unknown length using chunked transfer encoding. Writes are buffered so that
+	 * small writes from a serializer do not each become a chunk of their own.
+	 */
+	private static class ChunkedOutputStream extends OutputStream {
+
+		private static final byte[] LAST_CHUNK = ("0" + CRLF + CRLF).getBytes(ISO_8859_1);
+
+		private final OutputStream out;
+		private final byte[] buffer = new byte[8192];
+		private int count;
+
+		private ChunkedOutputStream(OutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (count == buffer.length) {
+				flushChunk();
+			}
+			buffer[count++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (len >= buffer.length) {
+				flushChunk();
+				writeChunk(b, off, len);
+				return;
+			}
+			if (len > buffer.length - count) {
+				flushChunk();
+			}
+			System.arraycopy(b, off, buffer, count, len);
+			count += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			flushChunk();
+			out.flush();
+		}
+
+		@Override
+		public void close() {
+			// The socket stream outlives the body, see finish().
+		}
+
+		void finish() throws IOException {
+			flushChunk();
+			out.write(LAST_CHUNK);
+		}
+
+		private void flushChunk() throws IOException {
+			if (count > 0) {
+				writeChunk(buffer, 0, count);
+				count = 0;
+			}
+		}
+
+		private void writeChunk(byte[] b, int off, int len) throws IOException {
+			out.write((Integer.toHexString(len) + CRLF).getBytes(ISO_8859_1));
+			out.write(b, off, len);
+			out.write(CRLF.getBytes(ISO_8859_1));
+		}
+	}
+
+	/**
+	 * Reads a response body framed by Content-Length, chunked transfer encoding, or connection close. Closing
+	 * the stream drains any unread bytes so that the connection can be reused.
+	 */
+	private class Body extends InputStream {
+
+		private final boolean chunked;
+		private final boolean untilClose;
+		private final boolean keepAlive;
+		private long remaining;
+		private boolean eof;
+		private boolean closed;
+
+		private Body(long length, boolean chunked, boolean keepAlive) {
+			this.chunked = chunked;
+			this.untilClose = length < 0;
+			this.keepAlive = keepAlive;
+			this.remaining = Math.max(length, 0);
+			this.eof = !chunked && length == 0;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] single = new byte[1];
+			return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (closed) {
+				throw new IOException("Response body stream closed");
+			}
+			if (eof) {
+				return -1;
+			}
+			if (len == 0) {
+				return 0;
+			}
+
+			if (chunked && remaining == 0) {
+				remaining = readChunkSize();
+				if (remaining == 0) {
+					while (!readLine().isEmpty()) {
+						// Discard trailers
+					}
+					eof = true;
+					return -1;
+				}
+			}
+
+			int toRead = untilClose ? len : (int) Math.min(len, remaining);
+			int count = in.read(b, off, toRead);
+			if (count == -1) {
+				if (untilClose) {
+					eof = true;
+					return -1;
+				}
+				throw new EOFException("Unexpected end of response body");
+			}
+
+			if (!untilClose) {
+				remaining -= count;
+				if (remaining == 0) {
+					if (chunked) {
+						readLine();
+					} else {
+						eof = true;
+					}
+				}
+			}
+
+			return count;
+		}
+
+		@Override
+		public int available() throws IOException {
+			if (eof || closed) {
+				return 0;
+			}
+			int available = in.available();
+			return untilClose ? available : (int) Math.min(available, remaining);
+		}
+
+		@Override
+		public void close() {
+			if (closed) {
+				return;
+			}
+
+			boolean reusable = keepAlive && !untilClose && drain();
+			closed = true;
+			pool.finish(PooledConnection.this, reusable);
+		}
+
+		private boolean drain() {
+			try {
+				byte[] buffer = new byte[8192];
+				while (read(buffer, 0, buffer.length) != -1) {
+					// Read to the end of the body so the next response starts on a clean stream.
+				}
+				return true;
+			} catch (IOException e) {
+				return false;
+			}
+		}
+
+		private long readChunkSize() throws IOException {
+			return Http1.parseChunkSize(readLine());
+		}
+	}
+}
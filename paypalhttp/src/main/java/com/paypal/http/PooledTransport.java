@@ -0,0 +1,74 @@
+package com.paypal.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+
+/**
+ * A {@link Transport} that sends requests over persistent HTTP/1.1 connections taken from a
+ * {@link ConnectionPool}. The connection goes back to the pool when the response body is closed.
+ *
+ * A request that fails on a reused connection is sent once more, on a new connection, only when it cannot have
+ * been acted on twice: either none of its body was written before the connection turned out to be closed, or the
+ * request is idempotent, its body can be written again, and the connection was closed or reset before any of the
+ * response arrived. Timeouts are never retried. Only GET and HEAD requests without a body are pipelined; when
+ * their shared connection closes before their response starts they are retried under the same rule, and when a
+ * response ahead of them times out they fail with a timeout too.
+ */
+public class PooledTransport implements Transport {
+
+	private final ConnectionPool pool;
+
+	public PooledTransport(ConnectionPool pool) {
+		this.pool = pool;
+	}
+
+	public ConnectionPool pool() {
+		return pool;
+	}
+
+	@Override
+	public TransportResponse execute(TransportRequest request) throws IOException {
+		// Only requests without a body that the server may safely receive twice share a connection.
+		boolean pipelined = request.pipelined() && request.body() == null
+				&& ("GET".equalsIgnoreCase(request.verb()) || "HEAD".equalsIgnoreCase(request.verb()));
+		boolean retried = false;
+		while (true) {
+			PooledConnection connection = pool.acquire(request.url(), request.connectTimeout(), request.readTimeout(), request.sslSocketFactory(), pipelined);
+			long ticket = -1;
+			try {
+				ticket = connection.writeRequest(request.verb(), request.url(), request.headers(), request.body());
+				return connection.readResponse(request.verb(), ticket);
+			} catch (IOException | RuntimeException e) {
+				connection.abandon(e);
+				if (retried || !isRetryable(request, connection, ticket, e)) {
+					throw e;
+				}
+				retried = true;
+				pipelined = false;
+			}
+		}
+	}
+
+	/**
+	 * Whether a request that failed on a connection can safely be sent again: the connection was reused, so it
+	 * may have been closed by the server while it sat idle or partway through a pipeline, and the server cannot
+	 * have acted on the request.
+	 */
+	private static boolean isRetryable(TransportRequest request, PooledConnection connection, long ticket, Exception e) {
+		if (!connection.isReused() || !(e instanceof IOException) || e instanceof InterruptedIOException) {
+			// Read timeouts in particular: the server may still be working on the request.
+			return false;
+		}
+		if (e instanceof PooledConnection.NotSentException) {
+			return true;
+		}
+
+		boolean closed = e instanceof EOFException || e instanceof SocketException;
+		return closed
+				&& !connection.responseStarted(ticket)
+				&& Http1.isIdempotent(request.verb())
+				&& (request.body() == null || request.body().isRepeatable());
+	}
+}
@@ -0,0 +1,43 @@
+package com.paypal.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The encoded body of a request, as handed to a {@link Transport}. Transports send bodies of known length
+ * with a Content-Length header and stream the rest with chunked transfer encoding.
+ *
+ * {@link #writeTo(OutputStream)} may be called more than once if a transport retries a request whose body
+ * {@link #isRepeatable() is repeatable}, and must not close the stream it is given.
+ */
+public interface RequestBody {
+
+	/**
+	 * The number of bytes {@link #writeTo(OutputStream)} will write, or -1 if it is not known in advance.
+	 */
+	long contentLength();
+
+	void writeTo(OutputStream os) throws IOException;
+
+	/**
+	 * Whether {@link #writeTo(OutputStream)} writes the same bytes every time it is called. Bodies drawn from a
+	 * one-shot source, such as a Stream, return false, and transports do not send them again.
+	 */
+	default boolean isRepeatable() {
+		return true;
+	}
+
+	static RequestBody of(byte[] data) {
+		return new RequestBody() {
+			@Override
+			public long contentLength() {
+				return data.length;
+			}
+
+			@Override
+			public void writeTo(OutputStream os) throws IOException {
+				os.write(data);
+			}
+		};
+	}
+}
@@ -0,0 +1,182 @@
+package com.paypal.http;
+
+import com.paypal.http.serializer.ElementIterator;
+import com.paypal.http.serializer.Projection;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * A successful response whose body has not been read yet, returned by
+ * {@link HttpClient#executeStreaming(HttpRequest)}.
+ *
+ * The body can be consumed exactly once: as the raw stream from {@link #body()}, decoded with {@link #result()},
+ * or decoded one list element at a time with {@link #elements(Class)}. The underlying connection stays leased
+ * until the response is closed, so always close it, preferably with try-with-resources. A streaming response is
+ * meant to be used from one thread at a time.
+ */
+public class StreamingHttpResponse<T> extends HttpResponse<T> implements Closeable {
+
+	private final TransportResponse response;
+	private final Class<T> responseClass;
+	private final Projection projection;
+	private final Encoder encoder;
+
+	private InputStream body;
+	private boolean decoded;
+	private boolean closed;
+	private T result;
+
+	StreamingHttpResponse(TransportResponse response, Class<T> responseClass, Projection projection, Encoder encoder) {
+		super(response.headers(), response.statusCode(), null);
+		this.response = response;
+		this.responseClass = responseClass;
+		this.projection = projection;
+		this.encoder = encoder;
+	}
+
+	/**
+	 * The response body as it came off the wire, still compressed if the server sent a Content-Encoding.
+	 * Reading it to the end, or closing this response, hands the connection back to the transport. Every call
+	 * returns the same stream.
+	 *
+	 * @throws IllegalStateException if the body was already decoded with {@link #result()}
+	 */
+	public InputStream body() {
+		if (body == null) {
+			if (decoded || closed) {
+				throw new IllegalStateException("Response body has already been consumed");
+			}
+			body = response.body() != null ? response.body() : new EmptyInputStream();
+		}
+
+		return body;
+	}
+
+	/**
+	 * Reads and decodes the body on first call, then closes the response. Later calls return the same result.
+	 *
+	 * @throws IllegalStateException if the raw body was already taken with {@link #body()}
+	 * @throws UncheckedIOException if the body cannot be read or decoded
+	 */
+	@Override
+	public T result() {
+		boolean hasResult = !Void.class.isAssignableFrom(responseClass);
+		if (!decoded) {
+			if (body != null || closed) {
+				if (!hasResult) {
+					return null;
+				}
+				throw new IllegalStateException("Response body has already been consumed");
+			}
+			decoded = true;
+
+			try {
+				result = hasResult && response.body() != null ? encoder.deserializeResponse(response.body(), responseClass, headers(), projection) : null;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				closeQuietly();
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Decodes a list body one element at a time as the returned iterator is advanced, so that a list too large
+	 * to hold in memory can be processed item by item. For a {@link com.paypal.http.annotations.ListOf} response
+	 * class, pass its listClass. The iterator closes this response once the end of the list is read; closing the
+	 * iterator, or its {@link ElementIterator#stream() Stream}, closes it earlier.
+	 *
+	 * @throws IllegalStateException if the body was already consumed
+	 * @throws UncheckedIOException if the body cannot be decoded as a list
+	 */
+	public <E> ElementIterator<E> elements(Class<E> elementClass) {
+		if (body != null || decoded || closed) {
+			throw new IllegalStateException("Response body has already been consumed");
+		}
+		decoded = true;
+
+		try {
+			ElementIterator<E> elements = response.body() != null
+					? encoder.deserializeElements(response.body(), elementClass, headers())
+					: ElementIterator.<E>empty();
+			return new ResponseElements<>(elements);
+		} catch (IOException e) {
+			closeQuietly();
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Closes the body. Unread bytes are drained where the transport can keep the connection alive.
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		response.close();
+	}
+
+	private void closeQuietly() {
+		try {
+			response.close();
+		} catch (IOException ignored) {}
+	}
+
+	/**
+	 * Closes the response along with the elements, so that the connection is handed back.
+	 */
+	private final class ResponseElements<E> implements ElementIterator<E> {
+
+		private final ElementIterator<E> elements;
+
+		private ResponseElements(ElementIterator<E> elements) {
+			this.elements = elements;
+		}
+
+		@Override
+		public boolean hasNext() {
+			boolean hasNext;
+			try {
+				hasNext = elements.hasNext();
+			} catch (RuntimeException e) {
+				closeQuietly();
+				throw e;
+			}
+
+			if (!hasNext) {
+				closeQuietly();
+			}
+			return hasNext;
+		}
+
+		@Override
+		public E next() {
+			try {
+				return elements.next();
+			} catch (RuntimeException e) {
+				closeQuietly();
+				throw e;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				elements.close();
+			} finally {
+				StreamingHttpResponse.this.close();
+			}
+		}
+	}
+
+	private static class EmptyInputStream extends InputStream {
+		@Override
+		public int read() {
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package com.paypal.http;
+
+import java.io.IOException;
+
+/**
+ * A Transport moves a request over the wire and hands back the raw response. By the time a request reaches
+ * a Transport it has already been through the {@link HttpClient}'s {@link Injector}s and its body has been
+ * encoded by the {@link Encoder}, so implementations only deal in verbs, URLs, headers and bytes.
+ *
+ * {@link HttpURLConnectionTransport} is the default. Set a different one with
+ * {@link HttpClient#setTransport(Transport)}.
+ */
+public interface Transport {
+
+	/**
+	 * Sends a request and returns once the response status and headers have been received. Implementations
+	 * should not throw for non-2xx responses; the {@link HttpClient} turns those into an
+	 * {@link com.paypal.http.exceptions.HttpException}.
+	 */
+	TransportResponse execute(TransportRequest request) throws IOException;
+}
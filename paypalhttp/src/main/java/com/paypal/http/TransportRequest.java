@@ -0,0 +1,74 @@
+package com.paypal.http;
+
+import javax.net.ssl.SSLSocketFactory;
+import java.net.URL;
+
+/**
+ * A fully injected and encoded request, along with the connection settings of the {@link HttpClient}
+ * that is sending it.
+ */
+public class TransportRequest {
+
+	private final String verb;
+	private final URL url;
+	private final Headers headers;
+	private final RequestBody body;
+	private final int connectTimeout;
+	private final int readTimeout;
+	private final SSLSocketFactory sslSocketFactory;
+	private final boolean pipelined;
+
+	public TransportRequest(String verb, URL url, Headers headers, RequestBody body, int connectTimeout, int readTimeout, SSLSocketFactory sslSocketFactory) {
+		this(verb, url, headers, body, connectTimeout, readTimeout, sslSocketFactory, false);
+	}
+
+	public TransportRequest(String verb, URL url, Headers headers, RequestBody body, int connectTimeout, int readTimeout, SSLSocketFactory sslSocketFactory, boolean pipelined) {
+		this.verb = verb;
+		this.url = url;
+		this.headers = headers;
+		this.body = body;
+		this.connectTimeout = connectTimeout;
+		this.readTimeout = readTimeout;
+		this.sslSocketFactory = sslSocketFactory;
+		this.pipelined = pipelined;
+	}
+
+	public String verb() {
+		return verb;
+	}
+
+	public URL url() {
+		return url;
+	}
+
+	public Headers headers() {
+		return headers;
+	}
+
+	/**
+	 * The encoded request body, or null if the request has none.
+	 */
+	public RequestBody body() {
+		return body;
+	}
+
+	public int connectTimeout() {
+		return connectTimeout;
+	}
+
+	public int readTimeout() {
+		return readTimeout;
+	}
+
+	public SSLSocketFactory sslSocketFactory() {
+		return sslSocketFactory;
+	}
+
+	/**
+	 * Whether the request may be pipelined behind other requests on a shared connection. See
+	 * {@link HttpRequest#pipelined(boolean)}.
+	 */
+	public boolean pipelined() {
+		return pipelined;
+	}
+}
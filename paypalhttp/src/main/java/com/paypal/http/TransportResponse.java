@@ -0,0 +1,44 @@
+package com.paypal.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The raw response returned by a {@link Transport}. Closing the response closes its body, which lets the
+ * transport reuse the underlying connection.
+ */
+public class TransportResponse implements Closeable {
+
+	private final int statusCode;
+	private final Headers headers;
+	private final InputStream body;
+
+	public TransportResponse(int statusCode, Headers headers, InputStream body) {
+		this.statusCode = statusCode;
+		this.headers = headers;
+		this.body = body;
+	}
+
+	public int statusCode() {
+		return statusCode;
+	}
+
+	public Headers headers() {
+		return headers;
+	}
+
+	/**
+	 * The response body, or null if the response has none.
+	 */
+	public InputStream body() {
+		return body;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (body != null) {
+			body.close();
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package com.paypal.http;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Access to JDK 21 virtual threads from a library that still targets Java 8.
+ *
+ * Blocking {@link HttpClient#execute(HttpRequest)} calls are cheap to run on virtual threads: the request
+ * path takes no monitors, so a virtual thread waiting on a socket read is unmounted from its carrier thread
+ * instead of pinning it. Pair {@link #newVirtualThreadExecutor()} with {@link HttpClient#setExecutor} to run
+ * {@link HttpClient#executeAsync(HttpRequest)} and {@link HttpClient#executeAllAsync} on virtual threads.
+ */
+public final class VirtualThreads {
+
+	private static final MethodHandle NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadPerTaskExecutor();
+
+	private VirtualThreads() {}
+
+	/**
+	 * Whether the running JVM supports virtual threads.
+	 */
+	public static boolean isSupported() {
+		return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+	}
+
+	/**
+	 * Returns an ExecutorService that starts a new virtual thread for each task, as
+	 * {@code Executors.newVirtualThreadPerTaskExecutor()} does.
+	 *
+	 * @throws UnsupportedOperationException if the running JVM does not support virtual threads
+	 */
+	public static ExecutorService newVirtualThreadExecutor() {
+		if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+			throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+		}
+
+		try {
+			return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke();
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IllegalStateException("Unable to create a virtual thread executor", t);
+		}
+	}
+
+	private static MethodHandle findVirtualThreadPerTaskExecutor() {
+		try {
+			return MethodHandles.publicLookup().findStatic(java.util.concurrent.Executors.class,
+					"newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			return null;
+		}
+	}
+}
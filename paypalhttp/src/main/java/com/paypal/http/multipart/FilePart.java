@@ -30,4 +30,9 @@ public class FilePart extends FormData {
 			fis.getChannel().transferTo(0, this.file.length(), Channels.newChannel(os));
 		}
 	}
+
+	@Override
+	public long contentLength() {
+		return file.length();
+	}
 }
@@ -20,4 +20,13 @@ public abstract class FormData {
 	}
 
 	public abstract void writeData(OutputStream os) throws IOException;
+
+	/**
+	 * The number of bytes {@link #writeData(OutputStream)} will write, or -1 if it is not known up front. When
+	 * every part of a multipart body knows its length the body is sent with a Content-Length header instead
+	 * of chunked transfer encoding.
+	 */
+	public long contentLength() {
+		return -1;
+	}
 }
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 import static com.paypal.http.serializer.StreamUtils.writeOutputStream;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class FormPart extends FormData {
 
@@ -18,4 +19,9 @@ public class FormPart extends FormData {
 	public void writeData(OutputStream os) throws IOException {
 		writeOutputStream(os, value);
 	}
+
+	@Override
+	public long contentLength() {
+		return value.getBytes(UTF_8).length;
+	}
 }
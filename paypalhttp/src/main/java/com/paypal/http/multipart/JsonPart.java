@@ -27,10 +27,18 @@ public class JsonPart extends FormData {
 
 	@Override
 	public void writeData(OutputStream os) throws IOException {
+		StreamUtils.writeOutputStream(os, encode());
+	}
+
+	/**
+	 * Serializes the value, afresh on every call so that changes to it are picked up. The multipart serializer
+	 * calls this once per request body, to learn the part's length before sending it.
+	 */
+	public byte[] encode() throws IOException {
 		HttpRequest fakeReq = new HttpRequest("/", "GET", Void.class)
 				.requestBody(value)
 				.header(Headers.CONTENT_TYPE, contentType);
 
-		StreamUtils.writeOutputStream(os, new Encoder().serializeRequest(fakeReq));
+		return new Encoder().serializeRequest(fakeReq);
 	}
 }
@@ -0,0 +1,24 @@
+package com.paypal.http.serializer;
+
+import java.math.BigDecimal;
+
+/**
+ * How {@link Json} decodes numbers with a fraction or an exponent when the target does not say, as with Map and
+ * List results. Model fields of type BigDecimal or String always get the exact value.
+ */
+public enum DecimalMode {
+	/**
+	 * As a Double, or as a BigDecimal if the value is too large for a double.
+	 */
+	DOUBLE,
+
+	/**
+	 * As a {@link BigDecimal}, exactly as written, for monetary values that must not be rounded.
+	 */
+	BIG_DECIMAL,
+
+	/**
+	 * As the String the number is written as.
+	 */
+	TEXT
+}
@@ -0,0 +1,74 @@
+package com.paypal.http.serializer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The elements of a list response, decoded one at a time as they are read instead of all at once, so that a list
+ * too large to hold in memory can be processed item by item. Only the element being decoded is held.
+ *
+ * <pre>
+ * try (StreamingHttpResponse&lt;PayoutItems&gt; response = client.executeStreaming(request);
+ *      Stream&lt;PayoutItem&gt; items = response.elements(PayoutItem.class).stream()) {
+ *     items.filter(item -&gt; "FAILED".equals(item.transactionStatus)).forEach(failed::add);
+ * }
+ * </pre>
+ *
+ * An iterator closes the body it reads from once the end of the list has been read. Closing it, or the Stream
+ * from {@link #stream()}, before then closes the body early. Iterators are meant to be used from one thread.
+ */
+public interface ElementIterator<T> extends Iterator<T>, Closeable {
+
+	/**
+	 * @throws UncheckedIOException if the body cannot be read, or is not a well-formed list
+	 */
+	@Override
+	boolean hasNext();
+
+	/**
+	 * @throws UncheckedIOException if the element cannot be read or decoded
+	 */
+	@Override
+	T next();
+
+	/**
+	 * The remaining elements as a sequential Stream. Closing the Stream closes this iterator.
+	 */
+	default Stream<T> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+				.onClose(() -> {
+					try {
+						close();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
+	/**
+	 * An iterator over no elements, for an empty body.
+	 */
+	static <T> ElementIterator<T> empty() {
+		return new ElementIterator<T>() {
+			@Override
+			public boolean hasNext() {
+				return false;
+			}
+
+			@Override
+			public T next() {
+				throw new NoSuchElementException();
+			}
+
+			@Override
+			public void close() {}
+		};
+	}
+}
@@ -6,23 +6,76 @@ import com.paypal.http.exceptions.JsonParseException;
 import com.paypal.http.exceptions.SerializeException;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
-import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class Json implements Serializer {
 
-	private static final char OBJECT_TOKEN_OPEN = '{';
-	private static final char OBJECT_TOKEN_CLOSE = '}';
-	private static final char LIST_TOKEN_OPEN = '[';
-	private static final char LIST_TOKEN_CLOSE = ']';
-	private static final char KEY_DELIMITER = ':';
-	private static final char PAIR_DELIMITER = ',';
-	private static final char KEY_BARRIER = '"';
-	private static final char KEY_ESCAPER = 92; // '\' the backslash value
+	private DecimalMode decimals = DecimalMode.DOUBLE;
+	private StringCache valueCache;
+	private ForkJoinPool parallel;
+	private int parallelThreshold = 10_000;
+
+	/**
+	 * Sets how numbers with a fraction or an exponent are decoded into Maps, Lists and Object fields. Defaults
+	 * to {@link DecimalMode#DOUBLE}.
+	 */
+	public Json decimals(DecimalMode decimals) {
+		this.decimals = decimals;
+		return this;
+	}
+
+	public DecimalMode decimals() {
+		return decimals;
+	}
+
+	/**
+	 * Sets a cache that string values are decoded through, so that values repeated across a response, or across
+	 * responses, share one String. Off (null) by default.
+	 */
+	public Json valueCache(StringCache valueCache) {
+		this.valueCache = valueCache;
+		return this;
+	}
+
+	public StringCache valueCache() {
+		return valueCache;
+	}
+
+	/**
+	 * Sets a pool to decode large {@link ListOf} responses on. The body is read in full and scanned once for the
+	 * bounds of its elements, which are then decoded on the pool and collected in their original order. Off
+	 * (null) by default.
+	 */
+	public Json parallel(ForkJoinPool parallel) {
+		this.parallel = parallel;
+		return this;
+	}
+
+	public ForkJoinPool parallel() {
+		return parallel;
+	}
 
+	/**
+	 * Sets the number of elements a {@link ListOf} response needs before it is decoded in parallel; smaller ones
+	 * are decoded on the calling thread. Defaults to 10,000.
+	 */
+	public Json parallelThreshold(int parallelThreshold) {
+		this.parallelThreshold = parallelThreshold;
+		return this;
+	}
+
+	public int parallelThreshold() {
+		return parallelThreshold;
+	}
 
 	@Override
 	public String contentType() {
@@ -49,448 +102,497 @@ public class Json implements Serializer {
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T> T decode(String source, Class<T> cls) throws IOException {
-		if (hasAncestor(cls, List.class) && cls.getAnnotation(ListOf.class) != null) {
-			ListOf listOf = cls.getAnnotation(ListOf.class);
+		if (cls == JsonDocument.class) {
+			return (T) new JsonDocument(this, source.getBytes(UTF_8));
+		} else if (decodesInParallel(cls)) {
+			return decodeParallel(source.getBytes(UTF_8), cls);
+		}
 
-			List<Map<String, Object>> deserialized = (List<Map<String, Object>>) deserializeInternal(source);
-			try {
-				T outlist = cls.newInstance();
-				for (Map<String, Object> map : deserialized) {
-					((List) outlist).add(unmap(map, listOf.listClass()));
-				}
+		return decode(new JsonReader(source.getBytes(UTF_8)), cls);
+	}
 
-				return outlist;
-			} catch (InstantiationException | IllegalAccessException e) {
-				throw new UnsupportedEncodingException("Could not instantiate type " + cls.getSimpleName());
-			}
-		} else if (hasAncestor(cls, List.class) || hasAncestor(cls, Map.class)) {
-			return (T) deserializeInternal(source);
-		} else {
-			Map<String, Object> deserialized = (Map<String, Object>) deserializeInternal(source);
-			return unmap(deserialized, cls);
+	/**
+	 * Decodes UTF-8 encoded json as it is read from the stream, without first collecting it into a String. A
+	 * {@link JsonDocument} and lists decoded in {@link #parallel(ForkJoinPool) parallel} are the exceptions: their
+	 * bytes are read in full first.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T decode(InputStream stream, Class<T> cls) throws IOException {
+		if (cls == JsonDocument.class) {
+			return (T) new JsonDocument(this, StreamUtils.readBytes(stream));
+		} else if (decodesInParallel(cls)) {
+			return decodeParallel(StreamUtils.readBytes(stream), cls);
 		}
-	}
 
-	private <T> T unmap(Map<String, Object> map, Class<T> destinationClass) throws IOException {
+		JsonReader reader = new JsonReader(stream);
 		try {
-			return ObjectMapper.unmap(map, destinationClass);
-		} catch (IllegalAccessException | InstantiationException | NoSuchMethodException | InvocationTargetException e) {
-			throw new UnsupportedEncodingException("Could not instantiate type " + destinationClass.getSimpleName());
-		} catch (RuntimeException re) {
-			throw new JsonParseException("Unable to parse Json " + re.getMessage());
+			return decode(reader, cls);
+		} finally {
+			reader.release();
 		}
 	}
 
+	/**
+	 * Decodes only the parts of the body the projection asks for; the tokenizer skips everything else without
+	 * building anything for it.
+	 */
 	@Override
-	public byte[] encode(HttpRequest request) throws SerializeException {
-		return serialize(request.requestBody()).getBytes(UTF_8);
-	}
+	public <T> T decode(InputStream stream, Class<T> cls, Projection projection) throws IOException {
+		if (projection == null || cls == JsonDocument.class) {
+			return decode(stream, cls);
+		}
 
-	public String serialize(Object o) throws SerializeException {
-		if (ObjectMapper.isModel(o)) {
-			try {
-				return jsonValueStringFor(ObjectMapper.map(o));
-			} catch (IllegalAccessException e) {
-				throw new SerializeException(e.getMessage());
-			}
-		} else {
-			return jsonValueStringFor(o);
+		JsonReader reader = new JsonReader(stream);
+		try {
+			return decode(reader, cls, narrow(projection.root()));
+		} finally {
+			reader.release();
 		}
 	}
 
-	private String serializeObjectInternal(Map<String, Object> map) throws SerializeException {
-		StringBuilder builder = new StringBuilder();
-
-		builder.append(OBJECT_TOKEN_OPEN);
+	/**
+	 * Decodes the elements of a top-level array one at a time, each as {@link #decode(InputStream, Class)} would
+	 * decode it. For a {@link ListOf} class, pass its listClass.
+	 *
+	 * @throws JsonParseException if the body is not an array
+	 */
+	@Override
+	public <T> ElementIterator<T> decodeElements(InputStream stream, Class<T> elementClass) throws IOException {
+		JsonReader reader = new JsonReader(stream);
+		try {
+			reader.beginArray();
+		} catch (IOException | RuntimeException e) {
+			reader.release();
+			throw e;
+		}
 
-		boolean hasContents = false;
-		for (Map.Entry<?, ?> entry : map.entrySet()) {
-			if (!(entry.getKey() instanceof String)) {
-				throw new SerializeException("Map key must be of class String");
-			}
+		return new JsonElementIterator<>(this, reader, elementClass);
+	}
 
-			builder.append(String.format("\"%s\":", (String) entry.getKey()));
-			builder.append(jsonValueStringFor(entry.getValue()));
+	private <T> T decode(JsonReader reader, Class<T> cls) throws IOException {
+		return decode(reader, cls, null);
+	}
 
-			builder.append(',');
-			hasContents = true;
+	private <T> T decode(JsonReader reader, Class<T> cls, Projection.Node projection) throws IOException {
+		JsonToken start = reader.peek();
+		if (start != JsonToken.BEGIN_OBJECT && start != JsonToken.BEGIN_ARRAY) {
+			throw new JsonParseException("Invalid starting token " + start);
 		}
 
-		if (hasContents) {
-			builder.setLength(builder.length() - 1);
-		}
-		builder.append(OBJECT_TOKEN_CLOSE);
+		T decoded = read(reader, cls, projection);
 
-		return builder.toString();
-	}
+		// Throws if anything but whitespace follows the document.
+		reader.peek();
 
-	@SuppressWarnings("unchecked")
-	private String jsonValueStringFor(Object obj) throws SerializeException {
-		StringBuilder builder = new StringBuilder();
-		if (obj == null) {
-			builder.append("null");
-		} else if (obj instanceof String) {
-			builder.append(String.format("\"%s\"", obj.toString()));
-		} else if (obj instanceof Number || obj instanceof Boolean) {
-			builder.append(obj.toString());
-		} else if (obj instanceof Object[] || obj instanceof Collection) {
-			builder.append(LIST_TOKEN_OPEN);
-			boolean hasContents = false;
-
-			if (obj instanceof Object[]) {
-				Object[] contents = (Object[]) obj;
-				for (Object o : contents) {
-					builder.append(jsonValueStringFor(o));
-					builder.append(',');
-					hasContents = true;
-				}
-			} else {
-				Collection contents = (Collection) obj;
-				for (Object o : contents) {
-					builder.append(jsonValueStringFor(o));
-					builder.append(PAIR_DELIMITER);
-					hasContents = true;
-				}
-			}
+		return decoded;
+	}
 
-			if (hasContents) {
-				builder.setLength(builder.length() - 1);
-			}
+	/**
+	 * Reads the next value as the given class, leaving whatever follows it unread.
+	 */
+	<T> T read(JsonReader reader, Class<T> cls) throws IOException {
+		return read(reader, cls, null);
+	}
 
-			builder.append(LIST_TOKEN_CLOSE);
-		} else if (obj instanceof Map) {
-			builder.append(serializeObjectInternal((Map<String, Object>) obj));
-		} else if (ObjectMapper.isModel(obj)) {
-			builder.append(serialize(obj));
-		} else {
-			throw new SerializeException(String.format("Object of class %s could not be serialized as json", obj.getClass()));
+	/**
+	 * Reads the next value as the given class, decoding only what the projection asks for, or everything if it
+	 * is null.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T read(JsonReader reader, Class<T> cls, Projection.Node projection) throws IOException {
+		JsonToken start = reader.peek();
+		if (hasAncestor(cls, List.class) && cls.getAnnotation(ListOf.class) != null) {
+			T decoded = newList(cls);
+			readElements(reader, cls.getAnnotation(ListOf.class).listClass(), projection, (List<Object>) decoded);
+			return decoded;
+		} else if (hasAncestor(cls, List.class) || hasAncestor(cls, Map.class)) {
+			return (T) readValue(reader, projection);
+		} else if (start == JsonToken.BEGIN_OBJECT) {
+			return (T) readModel(reader, cls, projection);
 		}
 
-		return builder.toString();
+		return (T) readAs(reader, cls, projection);
 	}
 
-	private List<Object> deserializeListInternal(String json) throws JsonParseException {
-		List<Object> values = new ArrayList<>();
-		if (json.length() == 2) {
-			return values;
-		}
-
-		List<String> innerValues = splitJsonArray(json.trim());
-		for (String innerValue : innerValues) {
-			char innerDelim = innerValue.charAt(0);
-			if (innerDelim == OBJECT_TOKEN_OPEN || innerDelim == LIST_TOKEN_OPEN) {
-				values.add(deserializeInternal(innerValue));
-			} else {
-				values.add(deserializeSimple(innerValue));
-			}
+	private static <T> T newList(Class<T> cls) throws UnsupportedEncodingException {
+		try {
+			return cls.newInstance();
+		} catch (InstantiationException | IllegalAccessException e) {
+			throw new UnsupportedEncodingException("Could not instantiate type " + cls.getSimpleName());
 		}
+	}
 
-		return values;
+	private boolean decodesInParallel(Class<?> cls) {
+		return parallel != null && cls.getAnnotation(ListOf.class) != null && hasAncestor(cls, List.class);
 	}
 
-	private Object deserializeInternal(String json) throws JsonParseException {
-		json = json.trim();
+	/**
+	 * Decodes a {@link ListOf} document on the parallel pool. A first pass skips over the array to find where
+	 * each element starts; arrays shorter than the threshold are then decoded on this thread as usual.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T decodeParallel(byte[] json, Class<T> cls) throws IOException {
+		JsonReader reader = new JsonReader(json);
+		if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+			return decode(new JsonReader(json), cls);
+		}
 
-		if (json.length() == 0) {
-			throw new JsonParseException("Cannot parse empty string as json");
+		int[] starts = new int[64];
+		int count = 0;
+		reader.beginArray();
+		while (reader.hasNext()) {
+			if (count == starts.length) {
+				starts = Arrays.copyOf(starts, count * 2);
+			}
+			starts[count++] = (int) reader.valueStart();
+			reader.skipValue();
 		}
+		reader.endArray();
 
-		char startingToken = json.charAt(0);
+		// Throws if anything but whitespace follows the document.
+		reader.peek();
 
-		if (opposingToken(startingToken) != json.charAt(json.length() - 1)) {
-			throw new JsonParseException("Invalid end token " + json.charAt(0));
+		if (count < parallelThreshold) {
+			return decode(new JsonReader(json), cls);
 		}
 
-		if (startingToken == OBJECT_TOKEN_OPEN) {
-			return deserializeObjectInternal(json);
-		} else if (startingToken == LIST_TOKEN_OPEN) {
-			return deserializeListInternal(json);
+		Object[] elements = new Object[count];
+		Class<?> elementClass = cls.getAnnotation(ListOf.class).listClass();
+		// A few slices per worker lets a fast worker take over from a slow one.
+		int slice = Math.max(64, count / (parallel.getParallelism() * 4));
+		try {
+			parallel.invoke(new DecodeElements(json, starts, elementClass, elements, 0, count, slice));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
 		}
 
-		throw new JsonParseException("Invalid starting token " + startingToken);
+		T decoded = newList(cls);
+		((List<Object>) decoded).addAll(Arrays.asList(elements));
+		return decoded;
 	}
 
-    private Map<String, Object> deserializeObjectInternal(String json) throws JsonParseException {
-		Map<String, Object> deserialized = new HashMap<>();
+	/**
+	 * Decodes a range of a list's elements, splitting it in half until it is no longer than a slice.
+	 */
+	private final class DecodeElements extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final byte[] json;
+		private final int[] starts;
+		private final Class<?> elementClass;
+		private final Object[] elements;
+		private final int from;
+		private final int to;
+		private final int slice;
+
+		private DecodeElements(byte[] json, int[] starts, Class<?> elementClass, Object[] elements, int from, int to, int slice) {
+			this.json = json;
+			this.starts = starts;
+			this.elementClass = elementClass;
+			this.elements = elements;
+			this.from = from;
+			this.to = to;
+			this.slice = slice;
+		}
 
-		char[] raw = json.toCharArray();
-		for(int i = 0; i < raw.length;) {
-			while(raw[i] != OBJECT_TOKEN_OPEN && raw[i] != KEY_BARRIER) {
-				i++;
+		@Override
+		protected void compute() {
+			if (to - from > slice) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new DecodeElements(json, starts, elementClass, elements, from, middle, slice),
+						new DecodeElements(json, starts, elementClass, elements, middle, to, slice));
+				return;
 			}
 
-			if (raw[i] == OBJECT_TOKEN_OPEN) {
-				if (raw[i + 1] == OBJECT_TOKEN_CLOSE) {
-					return deserialized;
-				} else {
-					i = advanceTo(raw, i, KEY_BARRIER);
+			try {
+				for (int i = from; i < to; i++) {
+					elements[i] = readAs(new JsonReader(json, starts[i]), elementClass, null);
 				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
 			}
+		}
+	}
 
-			SearchResult keyResult = extractKey(raw, i);
-			String key = keyResult.token;
-			i = keyResult.endIndex;
-
-			switch(raw[i]) {
-				case OBJECT_TOKEN_OPEN: {
-					SearchResult result = extractNextToken(raw, i);
-					i = result.endIndex;
-					deserialized.put(key, deserializeInternal(result.token));
-					break;
-				}
-				case LIST_TOKEN_OPEN: {
-					SearchResult result = extractNextToken(raw, i);
-					deserialized.put(key, deserializeListInternal(result.token));
-					i = result.endIndex;
-
-					break;
-				}
-				default: {
-					// Search to end of value
-					SearchResult result = extractNextToken(raw, i);
-					deserialized.put(key, deserializeSimple(result.token));
-					i = result.endIndex;
-					break;
+	/**
+	 * Reads an object straight into a new instance of a model class. Keys without a matching field, or outside
+	 * the projection, and null values, are skipped.
+	 */
+	private Object readModel(JsonReader reader, Class<?> cls, Projection.Node projection) throws IOException {
+		ModelDescriptor model = ModelDescriptor.of(cls);
+		Object instance = model.newInstance();
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			ModelDescriptor.Property property = model.property(name);
+			Projection.Node member = projection == null ? null : projection.member(name);
+			if (property == null || (projection != null && member == null) || reader.peek() == JsonToken.NULL) {
+				reader.skipValue();
+			} else if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+				if (property.listClass() == Void.class) {
+					throw new UnsupportedEncodingException("Could not instantiate type " + model.typeName() + ": generated array properties must set the listClass property on SerializedName");
 				}
-			}
 
-			// Advance to comma
-			while(i < raw.length && raw[i] != PAIR_DELIMITER) {
-				i++;
+				List<Object> list = new ArrayList<>();
+				readElements(reader, property.listClass(), narrow(member), list);
+				property.set(instance, list);
+			} else {
+				property.set(instance, readAs(reader, property.type(), narrow(member)));
 			}
 		}
+		reader.endObject();
 
-
-		return deserialized;
-    }
-
-	private Object deserializeSimple(String s) throws JsonParseException {
-		s = s.trim();
-
-		if (s.equals("null")) {
-			return null;
-		} else if (s.startsWith("\"")) {
-			return s.substring(1, s.length() -1);
-		} else if (s.contains(".")) {
-			return Double.parseDouble(s);
-		} else if (s.equals("true") || s.equals("false")) {
-			return Boolean.parseBoolean(s);
-		} else if (Character.isDigit(s.charAt(0))) {
-			return Long.parseLong(s);
-		} else {
-			throw new JsonParseException("Invalid value " + s);
-		}
+		return instance;
 	}
 
-	private int advanceTo(char[] raw, int i, char search) {
-		while(raw[i] != search) {
-			i++;
-		}
-
-		return i;
-	}
-
-	private int consumeWhitespace(char[] raw, int i) {
-		while(Character.isWhitespace(raw[i])) {
-			i++;
+	private void readElements(JsonReader reader, Class<?> elementClass, Projection.Node projection, List<Object> list) throws IOException {
+		reader.beginArray();
+		for (int i = 0; reader.hasNext(); i++) {
+			Projection.Node element = projection == null ? null : projection.element(i);
+			if (projection != null && element == null) {
+				reader.skipValue();
+			} else {
+				list.add(readAs(reader, elementClass, narrow(element)));
+			}
 		}
-
-		return i;
+		reader.endArray();
 	}
 
-	private List<String> splitJsonArray(String s) throws JsonParseException {
-		List<String> split = new ArrayList<>();
-		char[] chars = s.toCharArray();
-		for (int i = 1; i < chars.length; i++) {
-			i = consumeWhitespace(chars, i);
-			SearchResult result = extractNextToken(chars, i);
-			i = result.endIndex;
-			split.add(result.token);
-
-			i = consumeWhitespace(chars, i);
-			if (chars[i] != LIST_TOKEN_CLOSE && chars[i] != PAIR_DELIMITER) {
-				throw new JsonParseException("Invalid json array delimiter " + chars[i]);
-			}
+	/**
+	 * Reads the next value as the given type: objects into models, or into maps for Map and Object, and numbers
+	 * converted to the type's width. BigDecimal and String targets get the number exactly as written.
+	 */
+	private Object readAs(JsonReader reader, Class<?> type, Projection.Node projection) throws IOException {
+		JsonToken token = reader.peek();
+		switch (token) {
+			case NULL:
+				reader.nextNull();
+				return null;
+			case BEGIN_OBJECT:
+				return type.isAssignableFrom(HashMap.class) ? readValue(reader, projection) : readModel(reader, type, projection);
+			case BEGIN_ARRAY:
+				if (type.isAssignableFrom(ArrayList.class)) {
+					return readValue(reader, projection);
+				}
+				break;
+			case STRING:
+				if (type.isAssignableFrom(String.class)) {
+					return reader.nextString(valueCache);
+				}
+				break;
+			case NUMBER:
+				if (type == BigDecimal.class) {
+					return reader.nextBigDecimal();
+				} else if (type == String.class) {
+					return reader.nextString();
+				}
 
-			if (chars[i] == LIST_TOKEN_CLOSE) {
+				Object number = type == Object.class ? reader.nextNumber(decimals) : convertNumber(reader.nextNumber(), type);
+				if (number != null) {
+					return number;
+				}
+				break;
+			case BOOLEAN:
+				if (type == boolean.class || type.isAssignableFrom(Boolean.class)) {
+					return reader.nextBoolean();
+				}
 				break;
-			}
 		}
 
-		return split;
+		throw new JsonParseException("Unable to parse Json: cannot assign " + token + " to " + type.getSimpleName());
 	}
 
-	private SearchResult extractKey(char[] raw, int i) throws JsonParseException {
-		i = consumeWhitespace(raw, i);
-
-		if (raw[i] == KEY_BARRIER) {
-			i++;
-		} else {
-			throw new JsonParseException("Malformed json - missing key barrier");
-		}
-
-		StringBuilder keyName = new StringBuilder();
-		while (raw[i] != KEY_BARRIER) {
-			keyName.append(raw[i]);
-			i++;
-		}
-
-		if (raw[i] == KEY_BARRIER) {
-			i++;
-		} else {
-			throw new JsonParseException("Malformed json - missing key barrier");
-		}
-
-		i = consumeWhitespace(raw, i);
+	/**
+	 * A projection that takes in the whole value is the same as none.
+	 */
+	private static Projection.Node narrow(Projection.Node projection) {
+		return projection == null || projection.all() ? null : projection;
+	}
 
-		if (raw[i] != KEY_DELIMITER) {
-			throw new JsonParseException("Malformed json - missing pair delimiter");
+	private static Object convertNumber(Number number, Class<?> type) {
+		if (type == Integer.class || type == int.class) {
+			return number.intValue();
+		} else if (type == Long.class || type == long.class) {
+			return number.longValue();
+		} else if (type == Double.class || type == double.class) {
+			return number.doubleValue();
+		} else if (type == Float.class || type == float.class) {
+			return number.floatValue();
+		} else if (type == Short.class || type == short.class) {
+			return number.shortValue();
+		} else if (type == Byte.class || type == byte.class) {
+			return number.byteValue();
+		} else if (type.isInstance(number)) {
+			return number;
 		}
-		i++;
-
-		i = consumeWhitespace(raw, i);
 
-		return new SearchResult(i, keyName.toString());
+		return null;
 	}
 
-	private SearchResult extractNextToken(char[] s, int i) {
-		switch (s[i]) {
-			case OBJECT_TOKEN_OPEN:
-			case LIST_TOKEN_OPEN:
-				return extractNextObjectToken(s, i);
-			case KEY_BARRIER:
-				return extractNextStringToken(s, i);
-			default:
-				return extractNextValueToken(s, i);
-		}
+	Object readValue(JsonReader reader) throws IOException {
+		return readValue(reader, null);
 	}
 
-	private SearchResult extractNextObjectToken(char[] s, int i) {
-		int startIndex = i;
-
-		char startToken = s[i];
-		char searchToken = opposingToken(s[i]);
-		int innerCount = 0;
-
-		innerCount++;
-		i++;
-
-		boolean isInsideCommas = s[i] == '"' && !isEscaped(s, i);
-
-		if (!matchesOpposing(s[i], searchToken)) {
-			do {
-				i++;
-				if (s[i] == '"'  && !isEscaped(s, i)) {
-					isInsideCommas = ! isInsideCommas;
+	private Object readValue(JsonReader reader, Projection.Node projection) throws IOException {
+		switch (reader.peek()) {
+			case BEGIN_OBJECT:
+				Map<String, Object> map = new HashMap<>();
+				reader.beginObject();
+				while (reader.hasNext()) {
+					String name = reader.nextName();
+					Projection.Node member = projection == null ? null : projection.member(name);
+					if (projection != null && member == null) {
+						reader.skipValue();
+					} else {
+						map.put(name, readValue(reader, narrow(member)));
+					}
 				}
-				if (i >= s.length) {
-					break;
-				} else if (isInsideCommas) {
-					//do nothing
-				} else if (isBoundaryChar(startToken) && s[i] == startToken) {
-					innerCount++;
-				} else if (matchesOpposing(s[i], searchToken)) {
-					innerCount--;
-					if (innerCount == 0) {
-						i++;
-						break;
+				reader.endObject();
+				return map;
+			case BEGIN_ARRAY:
+				List<Object> list = new ArrayList<>();
+				reader.beginArray();
+				for (int i = 0; reader.hasNext(); i++) {
+					Projection.Node element = projection == null ? null : projection.element(i);
+					if (projection != null && element == null) {
+						reader.skipValue();
+					} else {
+						list.add(readValue(reader, narrow(element)));
 					}
 				}
-			} while (i < s.length);
-		} else if (matchesOpposing(s[i], searchToken)) {
-			i++;
+				reader.endArray();
+				return list;
+			case STRING:
+				return reader.nextString(valueCache);
+			case NUMBER:
+				return reader.nextNumber(decimals);
+			case BOOLEAN:
+				return reader.nextBoolean();
+			default:
+				reader.nextNull();
+				return null;
 		}
-
-		String val = new String(s, startIndex, i - startIndex);
-		return new SearchResult(i, val);
 	}
 
-	private SearchResult extractNextStringToken(char[] s, int i) {
-		int startIndex = i;
-		//also need to check whether this key barrier is escaped or not
-		if (s[i+1] == KEY_BARRIER && !isEscaped(s, i+1)) {
-			i += 2;
-		} else {
-			do {
-				i++;
-			} while(s[i] != KEY_BARRIER || isEscaped(s,i));
-			i++;
+	@Override
+	public byte[] encode(HttpRequest request) throws SerializeException {
+		JsonWriter writer = new JsonWriter();
+		try {
+			write(writer, request.requestBody());
+			return writer.toByteArray();
+		} finally {
+			writer.release();
 		}
-
-		String val = new String(s, startIndex, i - startIndex);
-		return new SearchResult(i, val);
 	}
 
-	//return true if the character is escaped.
-	private boolean isEscaped(char[] s, int i){
-		//  from the API \" will be send as \\\"
-		if(i - 1 >= 0){
-			return (s[i -1] == KEY_ESCAPER);
-		} else{
-			return false;
+	public String serialize(Object o) throws SerializeException {
+		JsonWriter writer = new JsonWriter();
+		try {
+			write(writer, o);
+			return new String(writer.toByteArray(), UTF_8);
+		} finally {
+			writer.release();
 		}
-
 	}
 
-	private SearchResult extractNextValueToken(char[] s, int i) {
-		int startIndex = i;
-
-		while (s[i] != PAIR_DELIMITER && s[i] != OBJECT_TOKEN_CLOSE && s[i] != LIST_TOKEN_CLOSE) {
-			i++;
+	/**
+	 * Writes an object as UTF-8 encoded Json straight to a stream, without building it in memory first. The
+	 * stream is not closed.
+	 */
+	public void serialize(Object o, OutputStream os) throws IOException {
+		JsonWriter writer = new JsonWriter(os);
+		try {
+			write(writer, o);
+			writer.flush();
+		} finally {
+			writer.release();
 		}
-
-		String val = new String(s, startIndex, i - startIndex);
-		return new SearchResult(i, val);
 	}
 
-	private char opposingToken(char token) {
-		switch (token) {
-			case OBJECT_TOKEN_OPEN:
-				return OBJECT_TOKEN_CLOSE;
-			case OBJECT_TOKEN_CLOSE:
-				return OBJECT_TOKEN_OPEN;
-			case LIST_TOKEN_OPEN:
-				return LIST_TOKEN_CLOSE;
-			case LIST_TOKEN_CLOSE:
-				return LIST_TOKEN_OPEN;
-			case KEY_BARRIER:
-				return KEY_BARRIER;
+	void write(JsonWriter writer, Object o) throws SerializeException {
+		try {
+			writeValue(writer, o);
+		} catch (SerializeException e) {
+			throw e;
+		} catch (IOException | IllegalArgumentException e) {
+			throw new SerializeException(e.getMessage());
 		}
-
-		return PAIR_DELIMITER;
 	}
 
-	private boolean isBoundaryChar(char token) {
-		switch (token) {
-			case OBJECT_TOKEN_CLOSE:
-			case OBJECT_TOKEN_OPEN:
-			case LIST_TOKEN_CLOSE:
-			case LIST_TOKEN_OPEN:
-			case PAIR_DELIMITER:
-			case KEY_BARRIER:
-			case KEY_DELIMITER:
-				return true;
+	@SuppressWarnings("unchecked")
+	private void writeValue(JsonWriter writer, Object obj) throws IOException {
+		if (obj == null) {
+			writer.nullValue();
+		} else if (obj instanceof String) {
+			writer.value((String) obj);
+		} else if (obj instanceof Number) {
+			writer.value((Number) obj);
+		} else if (obj instanceof Boolean) {
+			writer.value((boolean) (Boolean) obj);
+		} else if (obj instanceof Object[]) {
+			writer.beginArray();
+			for (Object o : (Object[]) obj) {
+				writeValue(writer, o);
+			}
+			writer.endArray();
+		} else if (obj instanceof Collection) {
+			writer.beginArray();
+			for (Object o : (Collection) obj) {
+				writeValue(writer, o);
+			}
+			writer.endArray();
+		} else if (obj instanceof Map) {
+			writer.beginObject();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
+				if (!(entry.getKey() instanceof String)) {
+					throw new SerializeException("Map key must be of class String");
+				}
+
+				writer.name((String) entry.getKey());
+				writeValue(writer, entry.getValue());
+			}
+			writer.endObject();
+		} else if (ObjectMapper.isModel(obj)) {
+			writeModel(writer, obj);
+		} else {
+			throw new SerializeException(String.format("Object of class %s could not be serialized as json", obj.getClass()));
 		}
-		return false;
 	}
 
-	private boolean matchesOpposing(char search, char token) {
-		if (search == token) {
-			return true;
-		} else if (token == PAIR_DELIMITER) {
-			return search == OBJECT_TOKEN_CLOSE || search == LIST_TOKEN_CLOSE || search == PAIR_DELIMITER;
+	/**
+	 * Writes a model's non-null fields straight from the instance, in the order they are declared.
+	 */
+	private void writeModel(JsonWriter writer, Object model) throws IOException {
+		writer.beginObject();
+		for (ModelDescriptor.Property property : ModelDescriptor.of(model.getClass()).serializedProperties()) {
+			Object value = property.get(model);
+			if (value != null) {
+				writer.name(property.encodedName());
+				writeField(writer, value);
+			}
 		}
-
-		return false;
+		writer.endObject();
 	}
 
-	private static class SearchResult {
-		private int endIndex;
-		private String token;
-
-		private SearchResult(int endIndex, String token) {
-			this.endIndex = endIndex;
-			this.token = token;
+	/**
+	 * Writes a model field. Other objects nested in a model are written as models whether or not they are
+	 * annotated, as ObjectMapper.map does.
+	 */
+	private void writeField(JsonWriter writer, Object value) throws IOException {
+		if (value instanceof List) {
+			writer.beginArray();
+			for (Object element : (List<?>) value) {
+				writeField(writer, element);
+			}
+			writer.endArray();
+		} else if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+				|| value instanceof Object[] || value instanceof Collection || value instanceof Map) {
+			writeValue(writer, value);
+		} else {
+			writeModel(writer, value);
 		}
 	}
 }
@@ -0,0 +1,31 @@
+package com.paypal.http.serializer;
+
+/**
+ * Hands out the byte buffers {@link JsonReader} and {@link JsonWriter} work through, keeping one spare per thread
+ * so that decoding or encoding one body after another does not allocate a new buffer each time.
+ */
+final class JsonBuffers {
+
+	static final int SIZE = 8 * 1024;
+
+	private static final ThreadLocal<byte[]> SPARE = new ThreadLocal<>();
+
+	private JsonBuffers() {}
+
+	static byte[] take() {
+		byte[] spare = SPARE.get();
+		if (spare == null) {
+			return new byte[SIZE];
+		}
+
+		SPARE.set(null);
+		return spare;
+	}
+
+	static void giveBack(byte[] buffer) {
+		// Buffers grown for an oversized value are left to the garbage collector.
+		if (buffer.length == SIZE) {
+			SPARE.set(buffer);
+		}
+	}
+}
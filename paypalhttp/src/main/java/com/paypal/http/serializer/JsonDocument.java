@@ -0,0 +1,416 @@
+package com.paypal.http.serializer;
+
+import com.paypal.http.exceptions.JsonParseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A Json document that is checked and indexed up front but decoded only as it is read, for calls that need a few
+ * fields out of a large response. Indexing is a single pass that records where each value starts and ends; no
+ * names, strings or numbers are decoded until they are asked for, so the cost of reading a document grows with
+ * the fields that are read rather than with its size.
+ *
+ * <pre>
+ * JsonDocument order = client.execute(new OrdersGetRequest(orderId).responseClass(JsonDocument.class)).result();
+ *
+ * String status = order.path("status").asString();
+ * String captureId = order.path("purchase_units[0].payments.captures[0].id").asString();
+ * Money amount = order.path("purchase_units[0].amount").as(Money.class);
+ * </pre>
+ *
+ * A document is obtained by decoding into JsonDocument.class with {@link Json}, or with {@link #parse(byte[])}.
+ * Documents are immutable and can be read from several threads.
+ */
+public final class JsonDocument {
+
+	// Each value in the document takes one entry of three ints on the tape: its kind, the offset of its first
+	// byte, and the index of the entry after it, past everything nested in it. Object members take an entry for
+	// the name followed by the value's.
+	private static final int KIND = 0;
+	private static final int POSITION = 1;
+	private static final int END = 2;
+	private static final int ENTRY_SIZE = 3;
+
+	private static final int OBJECT = 0;
+	private static final int ARRAY = 1;
+	private static final int STRING = 2;
+	private static final int NUMBER = 3;
+	private static final int TRUE = 4;
+	private static final int FALSE = 5;
+	private static final int NULL = 6;
+	private static final int NAME = 7;
+
+	private final Json json;
+	private final byte[] bytes;
+	private final int[] tape;
+
+	JsonDocument(Json json, byte[] bytes) throws IOException {
+		this.json = json;
+		this.bytes = bytes;
+
+		Indexer indexer = new Indexer(bytes.length);
+		JsonReader reader = new JsonReader(bytes);
+		indexer.index(reader);
+		if (reader.peek() != JsonToken.END_DOCUMENT) {
+			throw new JsonParseException("Unexpected content after end of json");
+		}
+		this.tape = indexer.tape;
+	}
+
+	public static JsonDocument parse(byte[] json) throws IOException {
+		return new JsonDocument(new Json(), json);
+	}
+
+	public static JsonDocument parse(String json) throws IOException {
+		return parse(json.getBytes(UTF_8));
+	}
+
+	/**
+	 * Reads a stream to its end and indexes it. The stream is not closed.
+	 */
+	public static JsonDocument parse(InputStream json) throws IOException {
+		return parse(StreamUtils.readBytes(json));
+	}
+
+	public Node root() {
+		return new Node(0);
+	}
+
+	/**
+	 * Shorthand for {@code root().path(path)}.
+	 *
+	 * @see Node#path(String)
+	 */
+	public Node path(String path) {
+		return root().path(path);
+	}
+
+	@Override
+	public String toString() {
+		return new String(bytes, UTF_8);
+	}
+
+	/**
+	 * Builds the tape in one pass of a reader over the document.
+	 */
+	private static final class Indexer {
+
+		private int[] tape;
+		private int entries;
+
+		private Indexer(int length) {
+			// Most documents need about one entry for every eight bytes; the tape grows if they need more.
+			tape = new int[ENTRY_SIZE * Math.max(16, length / 8)];
+		}
+
+		/**
+		 * Adds the next value, and everything nested in it, to the tape.
+		 */
+		private void index(JsonReader reader) throws IOException {
+			JsonToken token = reader.peek();
+			long start = reader.valueStart();
+			int entry;
+			switch (token) {
+				case BEGIN_OBJECT:
+					entry = add(OBJECT, start);
+					reader.beginObject();
+					while (reader.hasNext()) {
+						add(NAME, reader.position());
+						reader.skipName();
+						index(reader);
+					}
+					reader.endObject();
+					break;
+				case BEGIN_ARRAY:
+					entry = add(ARRAY, start);
+					reader.beginArray();
+					while (reader.hasNext()) {
+						index(reader);
+					}
+					reader.endArray();
+					break;
+				case STRING:
+					entry = add(STRING, start);
+					reader.skipValue();
+					break;
+				case NUMBER:
+					entry = add(NUMBER, start);
+					reader.skipValue();
+					break;
+				case BOOLEAN:
+					entry = add(reader.nextBoolean() ? TRUE : FALSE, start);
+					break;
+				case NULL:
+					reader.nextNull();
+					entry = add(NULL, start);
+					break;
+				default:
+					throw new JsonParseException("Expected a value but was " + token + " at position " + reader.position());
+			}
+
+			tape[entry + END] = entries;
+		}
+
+		private int add(int kind, long position) {
+			if (entries * ENTRY_SIZE == tape.length) {
+				tape = Arrays.copyOf(tape, tape.length * 2);
+			}
+
+			int entry = entries * ENTRY_SIZE;
+			tape[entry + KIND] = kind;
+			tape[entry + POSITION] = (int) position;
+			tape[entry + END] = entries + 1;
+			entries++;
+			return entry;
+		}
+	}
+
+	/**
+	 * A value in the document. Navigating to a member or element walks the index without decoding anything; the
+	 * {@code as} methods decode the value itself.
+	 */
+	public final class Node {
+
+		private final int index;
+
+		private Node(int index) {
+			this.index = index;
+		}
+
+		/**
+		 * The kind of value: BEGIN_OBJECT, BEGIN_ARRAY, STRING, NUMBER, BOOLEAN or NULL.
+		 */
+		public JsonToken type() {
+			switch (kind()) {
+				case OBJECT:
+					return JsonToken.BEGIN_OBJECT;
+				case ARRAY:
+					return JsonToken.BEGIN_ARRAY;
+				case STRING:
+					return JsonToken.STRING;
+				case NUMBER:
+					return JsonToken.NUMBER;
+				case TRUE:
+				case FALSE:
+					return JsonToken.BOOLEAN;
+				default:
+					return JsonToken.NULL;
+			}
+		}
+
+		public boolean isNull() {
+			return kind() == NULL;
+		}
+
+		/**
+		 * The value of an object's member, or null if this is not an object or has no member of that name.
+		 */
+		public Node get(String name) {
+			if (kind() != OBJECT) {
+				return null;
+			}
+
+			byte[] utf8 = name.getBytes(UTF_8);
+			boolean plain = name.indexOf('\\') < 0;
+			for (int i = index + 1; i < end(); i = tape[(i + 1) * ENTRY_SIZE + END]) {
+				if (nameEquals(i, utf8, plain, name)) {
+					return new Node(i + 1);
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * An array's element, or null if this is not an array or the index is out of its bounds.
+		 */
+		public Node get(int position) {
+			if (kind() != ARRAY || position < 0) {
+				return null;
+			}
+
+			int i = index + 1;
+			for (int skipped = 0; skipped < position && i < end(); skipped++) {
+				i = tape[i * ENTRY_SIZE + END];
+			}
+			return i < end() ? new Node(i) : null;
+		}
+
+		/**
+		 * Follows a path of member names and array indexes from this value, such as
+		 * {@code purchase_units[0].payments.captures[0].id}, returning null if any step is missing. Names that
+		 * contain a dot or a square bracket cannot be written in a path; use {@link #get(String)} for those.
+		 */
+		public Node path(String path) {
+			Node node = this;
+			int i = 0;
+			while (node != null && i < path.length()) {
+				char c = path.charAt(i);
+				if (c == '.') {
+					i++;
+				} else if (c == '[') {
+					int close = path.indexOf(']', i);
+					if (close < 0) {
+						throw new IllegalArgumentException("Unclosed [ in path " + path);
+					}
+					node = node.get(Integer.parseInt(path.substring(i + 1, close)));
+					i = close + 1;
+				} else {
+					int nameEnd = i;
+					while (nameEnd < path.length() && path.charAt(nameEnd) != '.' && path.charAt(nameEnd) != '[') {
+						nameEnd++;
+					}
+					node = node.get(path.substring(i, nameEnd));
+					i = nameEnd;
+				}
+			}
+			return node;
+		}
+
+		/**
+		 * The number of members of an object or elements of an array, and 0 for any other value.
+		 */
+		public int size() {
+			int kind = kind();
+			if (kind != OBJECT && kind != ARRAY) {
+				return 0;
+			}
+
+			int size = 0;
+			for (int i = index + 1; i < end(); i = tape[i * ENTRY_SIZE + END]) {
+				if (kind == OBJECT) {
+					i++;
+				}
+				size++;
+			}
+			return size;
+		}
+
+		/**
+		 * The member names of an object, in document order, or an empty list for any other value.
+		 */
+		public List<String> names() throws IOException {
+			List<String> names = new ArrayList<>();
+			if (kind() == OBJECT) {
+				for (int i = index + 1; i < end(); i = tape[(i + 1) * ENTRY_SIZE + END]) {
+					names.add(reader(i).nextString());
+				}
+			}
+			return names;
+		}
+
+		/**
+		 * A string, or the text of a number.
+		 */
+		public String asString() throws IOException {
+			return reader(index).nextString();
+		}
+
+		public long asLong() throws IOException {
+			return reader(index).nextLong();
+		}
+
+		public int asInt() throws IOException {
+			return reader(index).nextInt();
+		}
+
+		public double asDouble() throws IOException {
+			return reader(index).nextDouble();
+		}
+
+		public BigDecimal asBigDecimal() throws IOException {
+			return reader(index).nextBigDecimal();
+		}
+
+		public boolean asBoolean() throws IOException {
+			return reader(index).nextBoolean();
+		}
+
+		/**
+		 * Decodes this value as {@link Json#decode(String, Class)} would decode it on its own: into a model, a
+		 * List or Map, or a String, number or Boolean.
+		 */
+		public <T> T as(Class<T> cls) throws IOException {
+			return json.read(reader(index), cls);
+		}
+
+		/**
+		 * Decodes this value into Maps, Lists, Strings, numbers and Booleans.
+		 */
+		public Object value() throws IOException {
+			return json.readValue(reader(index));
+		}
+
+		/**
+		 * The Json text of this value, as it appears in the document.
+		 */
+		@Override
+		public String toString() {
+			int start = tape[index * ENTRY_SIZE + POSITION];
+			try {
+				JsonReader reader = reader(index);
+				reader.skipValue();
+				return new String(bytes, start, (int) reader.position() - start, UTF_8);
+			} catch (IOException e) {
+				// The value was checked when the document was indexed.
+				throw new IllegalStateException(e);
+			}
+		}
+
+		private int kind() {
+			return tape[index * ENTRY_SIZE + KIND];
+		}
+
+		private int end() {
+			return tape[index * ENTRY_SIZE + END];
+		}
+
+		/**
+		 * Compares the name at a tape index with a name, on the raw bytes unless either of them has escapes.
+		 */
+		private boolean nameEquals(int nameIndex, byte[] utf8, boolean plain, String name) {
+			int start = tape[nameIndex * ENTRY_SIZE + POSITION] + 1;
+			if (plain) {
+				int i = 0;
+				while (i < utf8.length && start + i < bytes.length && bytes[start + i] == utf8[i]) {
+					i++;
+				}
+				if (i == utf8.length) {
+					// The bytes matched hold no backslash, so a quote after them is the closing one.
+					return start + i < bytes.length && bytes[start + i] == '"';
+				}
+
+				boolean escaped = false;
+				for (int p = start + i; p < bytes.length && bytes[p] != '"'; p++) {
+					if (bytes[p] == '\\') {
+						escaped = true;
+						break;
+					}
+				}
+				if (!escaped) {
+					return false;
+				}
+			}
+
+			try {
+				return name.equals(reader(nameIndex).nextString());
+			} catch (IOException e) {
+				// The name was checked when the document was indexed.
+				return false;
+			}
+		}
+
+		/**
+		 * A reader positioned at the value, or name, at a tape index.
+		 */
+		private JsonReader reader(int at) {
+			return new JsonReader(bytes, tape[at * ENTRY_SIZE + POSITION]);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.paypal.http.serializer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Decodes the elements of a Json array one at a time from a reader positioned inside it, or the values of an
+ * NDJSON body one line at a time.
+ */
+final class JsonElementIterator<T> implements ElementIterator<T> {
+
+	private final Json json;
+	private final JsonReader reader;
+	private final Class<T> elementClass;
+	private final boolean lines;
+
+	private boolean closed;
+
+	JsonElementIterator(Json json, JsonReader reader, Class<T> elementClass) {
+		this(json, reader, elementClass, false);
+	}
+
+	/**
+	 * @param lines whether the elements are top-level values, one after another, rather than in an array
+	 */
+	JsonElementIterator(Json json, JsonReader reader, Class<T> elementClass, boolean lines) {
+		this.json = json;
+		this.reader = reader;
+		this.elementClass = elementClass;
+		this.lines = lines;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (closed) {
+			return false;
+		}
+
+		try {
+			if (lines ? reader.hasNextValue() : reader.hasNext()) {
+				return true;
+			}
+
+			if (!lines) {
+				reader.endArray();
+				// Throws if anything but whitespace follows the array.
+				reader.peek();
+			}
+			close();
+			return false;
+		} catch (IOException e) {
+			closeQuietly();
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		try {
+			return json.read(reader, elementClass);
+		} catch (IOException e) {
+			closeQuietly();
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Closes the stream being read and gives back the reader's buffer.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			reader.close();
+		}
+	}
+
+	private void closeQuietly() {
+		try {
+			close();
+		} catch (IOException ignored) {}
+	}
+}
@@ -0,0 +1,1079 @@
+package com.paypal.http.serializer;
+
+import com.paypal.http.exceptions.JsonParseException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads a Json document one token at a time, so that large responses can be processed without holding the
+ * whole document in memory. Input is UTF-8 read through a buffer that is refilled as the reader moves along;
+ * only the names and values that are asked for become Strings, and {@link #skipValue()} passes over nested
+ * objects and arrays without building anything.
+ *
+ * <pre>
+ * try (JsonReader reader = new JsonReader(response.body())) {
+ *     reader.beginArray();
+ *     while (reader.hasNext()) {
+ *         reader.beginObject();
+ *         while (reader.hasNext()) {
+ *             if (reader.nextName().equals("id")) {
+ *                 ids.add(reader.nextString());
+ *             } else {
+ *                 reader.skipValue();
+ *             }
+ *         }
+ *         reader.endObject();
+ *     }
+ *     reader.endArray();
+ * }
+ * </pre>
+ *
+ * Escape sequences in strings and names are decoded as RFC 8259 describes. Malformed input, and calls that do not match the next token, throw {@link JsonParseException}.
+ */
+public class JsonReader implements Closeable {
+
+	private static final int MAX_DEPTH = 1000;
+
+	// Object names are shared by all readers: responses repeat the same few names over and over.
+	private static final StringCache NAMES = new StringCache(2048, 64);
+
+	// Significands are accumulated while they are below this, so they never need more than 18 digits.
+	private static final long MAX_SIGNIFICAND = 100_000_000_000_000_000L;
+	private static final long MAX_EXACT_DOUBLE = 1L << 53;
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	private static final BigDecimal LONG_MIN = BigDecimal.valueOf(Long.MIN_VALUE);
+	private static final BigDecimal LONG_MAX = BigDecimal.valueOf(Long.MAX_VALUE);
+
+	// What the reader is in the middle of, one entry per open object or array.
+	private static final int EMPTY_DOCUMENT = 0;
+	private static final int NONEMPTY_DOCUMENT = 1;
+	private static final int EMPTY_OBJECT = 2;
+	private static final int DANGLING_NAME = 3;
+	private static final int NONEMPTY_OBJECT = 4;
+	private static final int EMPTY_ARRAY = 5;
+	private static final int NONEMPTY_ARRAY = 6;
+
+	private final InputStream in;
+	private byte[] buffer;
+	// Where strings with escapes are unescaped; allocated the first time one is read.
+	private byte[] scratch;
+	private int pos;
+	private int limit;
+	private int mark = -1;
+	private long discarded;
+
+	private int[] stack = new int[32];
+	private int stackSize = 1;
+
+	private JsonToken peeked;
+	private boolean peekedBoolean;
+
+	/**
+	 * Reads UTF-8 encoded Json from a stream. Closing the reader closes the stream.
+	 */
+	public JsonReader(InputStream in) {
+		this.in = in;
+		this.buffer = JsonBuffers.take();
+	}
+
+	/**
+	 * Reads Json from a character stream. Closing the reader closes the character stream.
+	 */
+	public JsonReader(Reader reader) {
+		this(new Utf8InputStream(reader));
+	}
+
+	JsonReader(byte[] json) {
+		this(json, 0);
+	}
+
+	/**
+	 * Reads the value starting at an offset into a document held in memory, leaving the rest of the document
+	 * unread.
+	 */
+	JsonReader(byte[] json, int offset) {
+		this.in = null;
+		this.buffer = json;
+		this.pos = offset;
+		this.limit = json.length;
+	}
+
+	/**
+	 * Returns the kind of the next token without consuming it.
+	 */
+	public JsonToken peek() throws IOException {
+		if (peeked == null) {
+			peeked = doPeek();
+		}
+
+		return peeked;
+	}
+
+	/**
+	 * Whether the current object or array has another element.
+	 */
+	public boolean hasNext() throws IOException {
+		JsonToken token = peek();
+		return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+	}
+
+	public void beginObject() throws IOException {
+		expect(JsonToken.BEGIN_OBJECT);
+		push(EMPTY_OBJECT);
+		peeked = null;
+	}
+
+	public void endObject() throws IOException {
+		expect(JsonToken.END_OBJECT);
+		stackSize--;
+		peeked = null;
+	}
+
+	public void beginArray() throws IOException {
+		expect(JsonToken.BEGIN_ARRAY);
+		push(EMPTY_ARRAY);
+		peeked = null;
+	}
+
+	public void endArray() throws IOException {
+		expect(JsonToken.END_ARRAY);
+		stackSize--;
+		peeked = null;
+	}
+
+	/**
+	 * Reads a name. Names are shared through a symbol table, so repeated names come back as the same String.
+	 */
+	public String nextName() throws IOException {
+		expect(JsonToken.NAME);
+		peeked = null;
+		return readString(NAMES);
+	}
+
+	/**
+	 * Reads a string value, or the text of a number.
+	 */
+	public String nextString() throws IOException {
+		return nextString(null);
+	}
+
+	/**
+	 * Reads a string value through a cache of repeated values, or the text of a number.
+	 */
+	String nextString(StringCache cache) throws IOException {
+		JsonToken token = peek();
+		if (token == JsonToken.NUMBER) {
+			peeked = null;
+			mark = pos;
+			try {
+				skipNumber();
+				return new String(buffer, mark, pos - mark, ISO_8859_1);
+			} finally {
+				mark = -1;
+			}
+		}
+
+		expect(JsonToken.STRING);
+		peeked = null;
+		return readString(cache);
+	}
+
+	public boolean nextBoolean() throws IOException {
+		expect(JsonToken.BOOLEAN);
+		peeked = null;
+		return peekedBoolean;
+	}
+
+	public void nextNull() throws IOException {
+		expect(JsonToken.NULL);
+		peeked = null;
+	}
+
+	/**
+	 * Reads a number as a Double if it has a fraction or an exponent, and as a Long otherwise. Numbers too large
+	 * for either are read as a BigDecimal.
+	 */
+	public Number nextNumber() throws IOException {
+		return (Number) nextNumber(DecimalMode.DOUBLE);
+	}
+
+	/**
+	 * Reads a number exactly as it is written.
+	 */
+	public BigDecimal nextBigDecimal() throws IOException {
+		expect(JsonToken.NUMBER);
+		peeked = null;
+		mark = pos;
+		try {
+			skipNumber();
+			return numberAsBigDecimal();
+		} finally {
+			mark = -1;
+		}
+	}
+
+	/**
+	 * Reads a number, with a fraction or exponent, as the given mode says; integers are read as by
+	 * {@link #nextNumber()}.
+	 */
+	Object nextNumber(DecimalMode decimals) throws IOException {
+		expect(JsonToken.NUMBER);
+		peeked = null;
+		return readNumber(decimals);
+	}
+
+	public long nextLong() throws IOException {
+		long start = discarded + pos;
+		Number number = nextNumber();
+		if (number instanceof Long) {
+			return (Long) number;
+		}
+
+		double value = number.doubleValue();
+		if (value != (long) value) {
+			throw new JsonParseException("Expected a long but was " + number + " at position " + start);
+		}
+		return (long) value;
+	}
+
+	public int nextInt() throws IOException {
+		long start = discarded + pos;
+		long value = nextLong();
+		if (value != (int) value) {
+			throw new JsonParseException("Expected an int but was " + value + " at position " + start);
+		}
+		return (int) value;
+	}
+
+	public double nextDouble() throws IOException {
+		return nextNumber().doubleValue();
+	}
+
+	/**
+	 * Skips the next name without decoding it.
+	 */
+	void skipName() throws IOException {
+		expect(JsonToken.NAME);
+		peeked = null;
+		skipString();
+	}
+
+	/**
+	 * The offset of the next byte to read from the start of the input. After a peek, that is the first byte of a
+	 * name, string or number, and the byte after the bracket of an object or array.
+	 */
+	long position() {
+		return discarded + pos;
+	}
+
+	/**
+	 * Whether another top-level value follows the one just read, for input that holds a sequence of them
+	 * separated by whitespace, such as NDJSON. When it does, it can be read like the first.
+	 */
+	boolean hasNextValue() throws IOException {
+		if (stackSize > 1) {
+			throw new IllegalStateException("Expected to be between top-level values");
+		}
+		if (peeked != null) {
+			return peeked != JsonToken.END_DOCUMENT;
+		}
+
+		stack[0] = EMPTY_DOCUMENT;
+		return nextNonWhitespace() != -1;
+	}
+
+	/**
+	 * The offset of the first byte of the next value from the start of the input: its bracket, opening quote,
+	 * first digit or first letter.
+	 */
+	long valueStart() throws IOException {
+		switch (peek()) {
+			case BEGIN_OBJECT:
+			case BEGIN_ARRAY:
+				return position() - 1;
+			case BOOLEAN:
+				// Literals have already been read by the peek.
+				return position() - (peekedBoolean ? 4 : 5);
+			case NULL:
+				return position() - 4;
+			default:
+				return position();
+		}
+	}
+
+	/**
+	 * Skips the next value, along with everything nested in it. Called before a name, skips the name and its
+	 * value.
+	 */
+	public void skipValue() throws IOException {
+		int depth = 0;
+		boolean valuePending;
+		do {
+			JsonToken token = peek();
+			valuePending = false;
+			switch (token) {
+				case BEGIN_OBJECT:
+					beginObject();
+					depth++;
+					break;
+				case BEGIN_ARRAY:
+					beginArray();
+					depth++;
+					break;
+				case END_OBJECT:
+				case END_ARRAY:
+				case END_DOCUMENT:
+					if (depth == 0) {
+						throw error("Expected a value but was " + token);
+					}
+					if (token == JsonToken.END_OBJECT) {
+						endObject();
+					} else {
+						endArray();
+					}
+					depth--;
+					break;
+				case NAME:
+					peeked = null;
+					skipString();
+					valuePending = true;
+					break;
+				case STRING:
+					peeked = null;
+					skipString();
+					break;
+				case NUMBER:
+					peeked = null;
+					mark = pos;
+					try {
+						skipNumber();
+					} finally {
+						mark = -1;
+					}
+					break;
+				default:
+					peeked = null;
+					break;
+			}
+		} while (depth > 0 || valuePending);
+	}
+
+	/**
+	 * Closes the underlying stream and gives back the read buffer.
+	 */
+	@Override
+	public void close() throws IOException {
+		release();
+		if (in != null) {
+			in.close();
+		}
+	}
+
+	/**
+	 * Gives back the read buffer without closing the stream. The reader cannot be used afterwards.
+	 */
+	void release() {
+		if (in != null && buffer != null) {
+			JsonBuffers.giveBack(buffer);
+		}
+		buffer = null;
+		pos = limit = 0;
+	}
+
+	private JsonToken doPeek() throws IOException {
+		if (buffer == null) {
+			throw new IllegalStateException("JsonReader is closed");
+		}
+
+		int scope = stack[stackSize - 1];
+		switch (scope) {
+			case EMPTY_DOCUMENT: {
+				stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+				if (nextNonWhitespace() == -1) {
+					throw new JsonParseException("Cannot parse empty string as json");
+				}
+				break;
+			}
+			case NONEMPTY_DOCUMENT: {
+				int c = nextNonWhitespace();
+				if (c == -1) {
+					return JsonToken.END_DOCUMENT;
+				}
+				throw error("Unexpected character '" + (char) c + "' after end of json");
+			}
+			case EMPTY_OBJECT:
+			case NONEMPTY_OBJECT: {
+				stack[stackSize - 1] = DANGLING_NAME;
+				int c = nextNonWhitespace();
+				if (c == '}') {
+					pos++;
+					return JsonToken.END_OBJECT;
+				}
+				if (scope == NONEMPTY_OBJECT) {
+					if (c != ',') {
+						throw error(c == -1 ? "Malformed json - missing end of object" : "Invalid json object delimiter " + (char) c);
+					}
+					pos++;
+					c = nextNonWhitespace();
+				}
+				if (c != '"') {
+					throw error("Malformed json - missing key barrier");
+				}
+				return JsonToken.NAME;
+			}
+			case DANGLING_NAME: {
+				stack[stackSize - 1] = NONEMPTY_OBJECT;
+				if (nextNonWhitespace() != ':') {
+					throw error("Malformed json - missing pair delimiter");
+				}
+				pos++;
+				break;
+			}
+			case EMPTY_ARRAY: {
+				stack[stackSize - 1] = NONEMPTY_ARRAY;
+				if (nextNonWhitespace() == ']') {
+					pos++;
+					return JsonToken.END_ARRAY;
+				}
+				break;
+			}
+			case NONEMPTY_ARRAY: {
+				int c = nextNonWhitespace();
+				if (c == ']') {
+					pos++;
+					return JsonToken.END_ARRAY;
+				}
+				if (c != ',') {
+					throw error(c == -1 ? "Malformed json - missing end of array" : "Invalid json array delimiter " + (char) c);
+				}
+				pos++;
+				break;
+			}
+			default:
+				throw new IllegalStateException("Unknown scope " + scope);
+		}
+
+		return peekValue();
+	}
+
+	private JsonToken peekValue() throws IOException {
+		int c = nextNonWhitespace();
+		switch (c) {
+			case '{':
+				pos++;
+				return JsonToken.BEGIN_OBJECT;
+			case '[':
+				pos++;
+				return JsonToken.BEGIN_ARRAY;
+			case '"':
+				return JsonToken.STRING;
+			case 't':
+				readLiteral("true");
+				peekedBoolean = true;
+				return JsonToken.BOOLEAN;
+			case 'f':
+				readLiteral("false");
+				peekedBoolean = false;
+				return JsonToken.BOOLEAN;
+			case 'n':
+				readLiteral("null");
+				return JsonToken.NULL;
+			case -1:
+				throw error("Unexpected end of json");
+			default:
+				if (c == '-' || isDigit(c)) {
+					return JsonToken.NUMBER;
+				}
+				throw invalidValue();
+		}
+	}
+
+	private void expect(JsonToken expected) throws IOException {
+		JsonToken token = peek();
+		if (token != expected) {
+			throw error("Expected " + expected + " but was " + token);
+		}
+	}
+
+	private void push(int scope) throws JsonParseException {
+		if (stackSize > MAX_DEPTH) {
+			throw error("Json nested deeper than " + MAX_DEPTH + " levels");
+		}
+		if (stackSize == stack.length) {
+			stack = Arrays.copyOf(stack, stack.length * 2);
+		}
+		stack[stackSize++] = scope;
+	}
+
+	/**
+	 * Reads the string starting at pos. A string without escapes, the common case, is decoded straight from the
+	 * buffer with a single new String, or looked up in the cache if there is one, its hash computed while scanning
+	 * for the closing quote. Otherwise its bytes are unescaped into a scratch buffer first; strings with escapes
+	 * are rare enough not to be worth caching.
+	 */
+	private String readString(StringCache cache) throws IOException {
+		pos++;
+		mark = pos;
+		try {
+			int hash = 0;
+			while (true) {
+				int p = pos;
+				byte b;
+				if (cache == null) {
+					while (p < limit && (b = buffer[p]) != '"' && b != '\\') {
+						p++;
+					}
+				} else {
+					while (p < limit && (b = buffer[p]) != '"' && b != '\\') {
+						hash = StringCache.hash(hash, b);
+						p++;
+					}
+				}
+				pos = p;
+
+				if (p == limit) {
+					if (!fill()) {
+						throw error("Unterminated string");
+					}
+				} else if (buffer[p] == '"') {
+					pos++;
+					return cache == null ? new String(buffer, mark, p - mark, UTF_8) : cache.intern(buffer, mark, p - mark, hash);
+				} else {
+					return readEscapedString();
+				}
+			}
+		} finally {
+			mark = -1;
+		}
+	}
+
+	/**
+	 * Finishes reading a string whose first escape is at pos, and whose bytes before it start at mark.
+	 */
+	private String readEscapedString() throws IOException {
+		int length = pos - mark;
+		ensureScratch(length + 16);
+		System.arraycopy(buffer, mark, scratch, 0, length);
+		mark = -1;
+
+		while (true) {
+			byte b = nextStringByte();
+			if (b == '"') {
+				return new String(scratch, 0, length, UTF_8);
+			} else if (b != '\\') {
+				ensureScratch(length + 1);
+				scratch[length++] = b;
+				continue;
+			}
+
+			int escaped = nextStringByte();
+			switch (escaped) {
+				case '"':
+				case '\\':
+				case '/':
+					break;
+				case 'b':
+					escaped = '\b';
+					break;
+				case 'f':
+					escaped = '\f';
+					break;
+				case 'n':
+					escaped = '\n';
+					break;
+				case 'r':
+					escaped = '\r';
+					break;
+				case 't':
+					escaped = '\t';
+					break;
+				case 'u':
+					length = readUnicodeEscape(length);
+					continue;
+				default:
+					pos--;
+					throw error("Invalid escape sequence \\" + (char) escaped);
+			}
+
+			ensureScratch(length + 1);
+			scratch[length++] = (byte) escaped;
+		}
+	}
+
+	/**
+	 * Reads the hex digits of a \\u escape into the scratch buffer, along with a second escape after it if the
+	 * two form a surrogate pair. A surrogate that is not part of a pair becomes U+FFFD, the replacement character.
+	 *
+	 * @return the new length of the scratch buffer
+	 */
+	private int readUnicodeEscape(int length) throws IOException {
+		char c = readHexChar();
+		while (Character.isHighSurrogate(c) && nextIsUnicodeEscape()) {
+			pos += 2;
+			char next = readHexChar();
+			if (Character.isLowSurrogate(next)) {
+				return writeUtf8(Character.toCodePoint(c, next), length);
+			}
+
+			length = writeUtf8(0xfffd, length);
+			c = next;
+		}
+
+		return writeUtf8(Character.isSurrogate(c) ? 0xfffd : c, length);
+	}
+
+	private boolean nextIsUnicodeEscape() throws IOException {
+		while (limit - pos < 2) {
+			if (!fillKeeping(0)) {
+				return false;
+			}
+		}
+
+		return buffer[pos] == '\\' && buffer[pos + 1] == 'u';
+	}
+
+	private char readHexChar() throws IOException {
+		int value = 0;
+		for (int i = 0; i < 4; i++) {
+			int b = nextStringByte();
+			int digit = Character.digit(b, 16);
+			if (digit < 0) {
+				pos--;
+				throw error("Invalid unicode escape");
+			}
+			value = (value << 4) | digit;
+		}
+
+		return (char) value;
+	}
+
+	/**
+	 * Appends a code point to the scratch buffer as UTF-8.
+	 *
+	 * @return the new length of the scratch buffer
+	 */
+	private int writeUtf8(int codePoint, int length) {
+		ensureScratch(length + 4);
+		if (codePoint < 0x80) {
+			scratch[length++] = (byte) codePoint;
+		} else if (codePoint < 0x800) {
+			scratch[length++] = (byte) (0xc0 | (codePoint >> 6));
+			scratch[length++] = (byte) (0x80 | (codePoint & 0x3f));
+		} else if (codePoint < 0x10000) {
+			scratch[length++] = (byte) (0xe0 | (codePoint >> 12));
+			scratch[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+			scratch[length++] = (byte) (0x80 | (codePoint & 0x3f));
+		} else {
+			scratch[length++] = (byte) (0xf0 | (codePoint >> 18));
+			scratch[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+			scratch[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+			scratch[length++] = (byte) (0x80 | (codePoint & 0x3f));
+		}
+
+		return length;
+	}
+
+	private byte nextStringByte() throws IOException {
+		if (pos == limit && !fill()) {
+			throw error("Unterminated string");
+		}
+
+		return buffer[pos++];
+	}
+
+	private void ensureScratch(int length) {
+		if (scratch == null || scratch.length < length) {
+			scratch = new byte[Math.max(length, scratch == null ? 64 : scratch.length * 2)];
+		}
+	}
+
+	/**
+	 * Moves past the string starting at pos, leaving pos just after its closing quote.
+	 */
+	private void skipString() throws IOException {
+		pos++;
+		while (true) {
+			if (pos == limit && !fill()) {
+				throw error("Unterminated string");
+			}
+
+			byte b = buffer[pos++];
+			if (b == '"') {
+				return;
+			}
+			if (b == '\\') {
+				// Skip the escaped byte too, so that \" does not end the string.
+				if (pos == limit && !fill()) {
+					continue;
+				}
+				pos++;
+			}
+		}
+	}
+
+	private void readLiteral(String literal) throws IOException {
+		for (int i = 0; i < literal.length(); i++) {
+			if ((pos + i == limit && !fillKeeping(i)) || buffer[pos + i] != literal.charAt(i)) {
+				throw invalidValue();
+			}
+		}
+
+		pos += literal.length();
+	}
+
+	/**
+	 * Reads a number in a single pass over its bytes. Integers of up to 18 digits, and decimals whose significand
+	 * and power of ten are small enough to be exact doubles, are computed without allocating; anything else is
+	 * parsed from its text. Integers that do not fit in a long, and decimals too large for a double, are returned
+	 * as BigDecimal.
+	 */
+	private Object readNumber(DecimalMode decimals) throws IOException {
+		mark = pos;
+		try {
+			boolean negative = peekByte() == '-';
+			if (negative) {
+				pos++;
+			}
+
+			long significand = 0;
+			int exponent = 0;
+			boolean exact = true;
+
+			int digits = 0;
+			for (int c; isDigit(c = peekByte()); pos++) {
+				if (significand < MAX_SIGNIFICAND) {
+					significand = significand * 10 + (c - '0');
+				} else {
+					exponent++;
+					exact = false;
+				}
+				digits++;
+			}
+			if (digits == 0) {
+				throw invalidNumber();
+			}
+
+			boolean decimal = false;
+			if (peekByte() == '.') {
+				decimal = true;
+				pos++;
+				digits = 0;
+				for (int c; isDigit(c = peekByte()); pos++) {
+					if (significand < MAX_SIGNIFICAND) {
+						significand = significand * 10 + (c - '0');
+						exponent--;
+					} else if (c != '0') {
+						exact = false;
+					}
+					digits++;
+				}
+				if (digits == 0) {
+					throw invalidNumber();
+				}
+			}
+
+			int c = peekByte();
+			if (c == 'e' || c == 'E') {
+				decimal = true;
+				pos++;
+				c = peekByte();
+				boolean negativeExponent = c == '-';
+				if (c == '+' || c == '-') {
+					pos++;
+				}
+
+				int written = 0;
+				digits = 0;
+				for (; isDigit(c = peekByte()); pos++) {
+					// Anything this large is out of the range of a double anyway; stop before the int overflows.
+					if (written < 100_000) {
+						written = written * 10 + (c - '0');
+					}
+					digits++;
+				}
+				if (digits == 0) {
+					throw invalidNumber();
+				}
+				exponent += negativeExponent ? -written : written;
+			}
+
+			if (!decimal) {
+				if (exact) {
+					return negative ? -significand : significand;
+				}
+
+				BigDecimal value = numberAsBigDecimal();
+				return value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0 ? (Object) value.longValue() : value;
+			} else if (decimals == DecimalMode.BIG_DECIMAL) {
+				return numberAsBigDecimal();
+			} else if (decimals == DecimalMode.TEXT) {
+				return new String(buffer, mark, pos - mark, ISO_8859_1);
+			}
+
+			if (exact && significand <= MAX_EXACT_DOUBLE && exponent >= -22 && exponent <= 22) {
+				// Both operands are exact doubles, so a single multiplication or division rounds correctly.
+				double value = exponent < 0 ? significand / POWERS_OF_TEN[-exponent] : significand * POWERS_OF_TEN[exponent];
+				return negative ? -value : value;
+			}
+
+			double value = Double.parseDouble(new String(buffer, mark, pos - mark, ISO_8859_1));
+			return Double.isInfinite(value) ? numberAsBigDecimal() : value;
+		} finally {
+			mark = -1;
+		}
+	}
+
+	/**
+	 * The number from mark to pos as a BigDecimal.
+	 */
+	private BigDecimal numberAsBigDecimal() {
+		char[] chars = new char[pos - mark];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (char) buffer[mark + i];
+		}
+
+		return new BigDecimal(chars);
+	}
+
+	/**
+	 * Moves past the number starting at pos. The caller sets the mark at pos first.
+	 */
+	private void skipNumber() throws IOException {
+		if (peekByte() == '-') {
+			pos++;
+		}
+
+		int digits = 0;
+		while (isDigit(peekByte())) {
+			pos++;
+			digits++;
+		}
+
+		skipFractionAndExponent(digits);
+	}
+
+	/**
+	 * Validates the integer digits of a number read from mark and moves past its fraction and exponent.
+	 *
+	 * @return whether the number has a fraction or an exponent
+	 */
+	private boolean skipFractionAndExponent(int digits) throws IOException {
+		if (digits == 0) {
+			throw invalidNumber();
+		}
+
+		boolean decimal = false;
+		if (peekByte() == '.') {
+			decimal = true;
+			pos++;
+			if (!skipDigits()) {
+				throw invalidNumber();
+			}
+		}
+
+		int c = peekByte();
+		if (c == 'e' || c == 'E') {
+			decimal = true;
+			pos++;
+			c = peekByte();
+			if (c == '+' || c == '-') {
+				pos++;
+			}
+			if (!skipDigits()) {
+				throw invalidNumber();
+			}
+		}
+
+		return decimal;
+	}
+
+	private JsonParseException invalidNumber() {
+		pos = mark;
+		return invalidValue();
+	}
+
+	private boolean skipDigits() throws IOException {
+		boolean any = false;
+		while (isDigit(peekByte())) {
+			pos++;
+			any = true;
+		}
+
+		return any;
+	}
+
+	private int nextNonWhitespace() throws IOException {
+		while (true) {
+			if (pos == limit && !fill()) {
+				return -1;
+			}
+
+			byte b = buffer[pos];
+			if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+				return b;
+			}
+			pos++;
+		}
+	}
+
+	/**
+	 * Returns the byte at pos without consuming it, or -1 at the end of the input.
+	 */
+	private int peekByte() throws IOException {
+		if (pos == limit && !fill()) {
+			return -1;
+		}
+
+		return buffer[pos];
+	}
+
+	/**
+	 * Reads more input into the buffer, keeping everything from the mark on if one is set. Bytes before the mark,
+	 * or before pos if there is none, have been consumed and are dropped.
+	 *
+	 * @return false at the end of the input
+	 */
+	private boolean fill() throws IOException {
+		if (in == null) {
+			return false;
+		}
+
+		int keep = mark >= 0 ? mark : pos;
+		if (keep > 0) {
+			System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+			discarded += keep;
+			pos -= keep;
+			limit -= keep;
+			if (mark >= 0) {
+				mark = 0;
+			}
+		} else if (limit == buffer.length) {
+			// The value being read fills the whole buffer.
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+
+		int count;
+		do {
+			count = in.read(buffer, limit, buffer.length - limit);
+		} while (count == 0);
+
+		if (count < 0) {
+			return false;
+		}
+		limit += count;
+		return true;
+	}
+
+	/**
+	 * Like {@link #fill()}, for lookahead of a few bytes past pos without setting a mark.
+	 */
+	private boolean fillKeeping(int lookahead) throws IOException {
+		int previous = mark;
+		mark = pos;
+		try {
+			return fill() && pos + lookahead < limit;
+		} finally {
+			mark = previous;
+		}
+	}
+
+	private JsonParseException invalidValue() {
+		int valueEnd = pos;
+		while (valueEnd < limit && valueEnd - pos < 32 && ",:}] \n\r\t".indexOf(buffer[valueEnd]) == -1) {
+			valueEnd++;
+		}
+
+		return error("Invalid value " + new String(buffer, pos, valueEnd - pos, UTF_8));
+	}
+
+	private JsonParseException error(String message) {
+		return new JsonParseException(message + " at position " + (discarded + pos));
+	}
+
+	private static boolean isDigit(int c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Encodes the characters of a Reader as UTF-8, so that character input goes through the same byte-level
+	 * tokenizer as streams.
+	 */
+	private static class Utf8InputStream extends InputStream {
+
+		private final Reader reader;
+		private final CharsetEncoder encoder = UTF_8.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		private final CharBuffer chars = CharBuffer.allocate(1024);
+		// At most three bytes per char, so encoding a full char buffer never overflows this.
+		private final ByteBuffer bytes = ByteBuffer.allocate(4 * 1024);
+
+		private boolean endOfInput;
+		private boolean flushed;
+
+		Utf8InputStream(Reader reader) {
+			this.reader = reader;
+			this.bytes.flip();
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] single = new byte[1];
+			return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+
+			while (!bytes.hasRemaining()) {
+				if (flushed) {
+					return -1;
+				}
+				encodeMore();
+			}
+
+			int count = Math.min(len, bytes.remaining());
+			bytes.get(b, off, count);
+			return count;
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+
+		private void encodeMore() throws IOException {
+			if (!endOfInput && reader.read(chars) == -1) {
+				endOfInput = true;
+			}
+
+			bytes.clear();
+			chars.flip();
+			encoder.encode(chars, bytes, endOfInput);
+			chars.compact();
+			if (endOfInput) {
+				encoder.flush(bytes);
+				flushed = true;
+			}
+			bytes.flip();
+		}
+	}
+}
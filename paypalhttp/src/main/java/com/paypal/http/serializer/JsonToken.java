@@ -0,0 +1,17 @@
+package com.paypal.http.serializer;
+
+/**
+ * The kinds of token a {@link JsonReader} reads.
+ */
+public enum JsonToken {
+	BEGIN_OBJECT,
+	END_OBJECT,
+	BEGIN_ARRAY,
+	END_ARRAY,
+	NAME,
+	STRING,
+	NUMBER,
+	BOOLEAN,
+	NULL,
+	END_DOCUMENT
+}
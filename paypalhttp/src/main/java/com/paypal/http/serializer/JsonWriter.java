@@ -0,0 +1,481 @@
+package com.paypal.http.serializer;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Writes a Json document one token at a time as UTF-8 bytes, through a buffer that is flushed to the stream
+ * whenever it fills up. Separators are written automatically:
+ *
+ * <pre>
+ * try (JsonWriter writer = new JsonWriter(os)) {
+ *     writer.beginObject()
+ *             .name("sender_batch_id").value(batchId)
+ *             .name("items").beginArray();
+ *     for (Payout payout : payouts) {
+ *         writer.beginObject()
+ *                 .name("receiver").value(payout.receiver)
+ *                 .name("amount").value(payout.amount)
+ *                 .endObject();
+ *     }
+ *     writer.endArray().endObject();
+ * }
+ * </pre>
+ *
+ * Strings are escaped as RFC 8259 requires. Calls that would produce malformed Json, such as a value
+ * in an object without a name first, throw IllegalStateException.
+ */
+public class JsonWriter implements Closeable, Flushable {
+
+	// What the writer is in the middle of, one entry per open object or array.
+	private static final int EMPTY_DOCUMENT = 0;
+	private static final int NONEMPTY_DOCUMENT = 1;
+	private static final int EMPTY_OBJECT = 2;
+	private static final int DANGLING_NAME = 3;
+	private static final int NONEMPTY_OBJECT = 4;
+	private static final int EMPTY_ARRAY = 5;
+	private static final int NONEMPTY_ARRAY = 6;
+
+	private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+	private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+	private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+	// How each ASCII character that RFC 8259 requires to be escaped is written: quote, backslash and the control
+	// characters. Null for everything else.
+	private static final byte[][] ESCAPES = new byte[128][];
+
+	static {
+		for (int c = 0; c < 0x20; c++) {
+			ESCAPES[c] = String.format("\\u%04x", c).getBytes(US_ASCII);
+		}
+		ESCAPES['"'] = new byte[]{'\\', '"'};
+		ESCAPES['\\'] = new byte[]{'\\', '\\'};
+		ESCAPES['\b'] = new byte[]{'\\', 'b'};
+		ESCAPES['\f'] = new byte[]{'\\', 'f'};
+		ESCAPES['\n'] = new byte[]{'\\', 'n'};
+		ESCAPES['\r'] = new byte[]{'\\', 'r'};
+		ESCAPES['\t'] = new byte[]{'\\', 't'};
+	}
+
+	private final OutputStream out;
+	private byte[] buffer;
+	private int count;
+
+	private int[] stack = new int[32];
+	private int stackSize = 1;
+
+	/**
+	 * Writes Json to a stream. Closing the writer flushes it and closes the stream.
+	 */
+	public JsonWriter(OutputStream out) {
+		this.out = out;
+		this.buffer = JsonBuffers.take();
+	}
+
+	/**
+	 * Writes Json into a buffer of its own, to be taken with {@link #toByteArray()}.
+	 */
+	JsonWriter() {
+		this(null);
+	}
+
+	public JsonWriter beginObject() throws IOException {
+		beforeValue();
+		push(EMPTY_OBJECT);
+		writeByte('{');
+		return this;
+	}
+
+	public JsonWriter endObject() throws IOException {
+		int scope = peekScope();
+		if (scope == DANGLING_NAME) {
+			throw new IllegalStateException("Name without a value");
+		}
+		if (scope != EMPTY_OBJECT && scope != NONEMPTY_OBJECT) {
+			throw new IllegalStateException("Not in an object");
+		}
+
+		stackSize--;
+		writeByte('}');
+		return this;
+	}
+
+	public JsonWriter beginArray() throws IOException {
+		beforeValue();
+		push(EMPTY_ARRAY);
+		writeByte('[');
+		return this;
+	}
+
+	public JsonWriter endArray() throws IOException {
+		int scope = peekScope();
+		if (scope != EMPTY_ARRAY && scope != NONEMPTY_ARRAY) {
+			throw new IllegalStateException("Not in an array");
+		}
+
+		stackSize--;
+		writeByte(']');
+		return this;
+	}
+
+	public JsonWriter name(String name) throws IOException {
+		if (name == null) {
+			throw new NullPointerException("name == null");
+		}
+
+		int scope = peekScope();
+		if (scope == NONEMPTY_OBJECT) {
+			writeByte(',');
+		} else if (scope != EMPTY_OBJECT) {
+			throw new IllegalStateException("Names are only written inside an object, before each value");
+		}
+
+		stack[stackSize - 1] = DANGLING_NAME;
+		writeString(name);
+		writeByte(':');
+		return this;
+	}
+
+	/**
+	 * Writes a name already encoded by {@link #encodeName(String)}, skipping the encoding of names that are
+	 * written over and over.
+	 */
+	JsonWriter name(byte[] encodedName) throws IOException {
+		int scope = peekScope();
+		if (scope == NONEMPTY_OBJECT) {
+			writeByte(',');
+		} else if (scope != EMPTY_OBJECT) {
+			throw new IllegalStateException("Names are only written inside an object, before each value");
+		}
+
+		stack[stackSize - 1] = DANGLING_NAME;
+		writeBytes(encodedName);
+		return this;
+	}
+
+	/**
+	 * Writes a string value, or null if the value is null.
+	 */
+	public JsonWriter value(String value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+
+		beforeValue();
+		writeString(value);
+		return this;
+	}
+
+	public JsonWriter value(long value) throws IOException {
+		beforeValue();
+		writeLong(value);
+		return this;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the value is NaN or infinite, which Json cannot represent
+	 */
+	public JsonWriter value(double value) throws IOException {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+		}
+
+		beforeValue();
+		writeAscii(Double.toString(value));
+		return this;
+	}
+
+	/**
+	 * Writes a number the way its toString() prints it, or null if the value is null.
+	 *
+	 * @throws IllegalArgumentException if the value is NaN or infinite, which Json cannot represent
+	 */
+	public JsonWriter value(Number value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return value(value.longValue());
+		}
+
+		String text = value.toString();
+		if (text.equals("NaN") || text.equals("Infinity") || text.equals("-Infinity")) {
+			throw new IllegalArgumentException("Numeric values must be finite, but was " + text);
+		}
+
+		beforeValue();
+		writeAscii(text);
+		return this;
+	}
+
+	public JsonWriter value(boolean value) throws IOException {
+		beforeValue();
+		writeBytes(value ? TRUE : FALSE);
+		return this;
+	}
+
+	public JsonWriter nullValue() throws IOException {
+		beforeValue();
+		writeBytes(NULL);
+		return this;
+	}
+
+	/**
+	 * Writes everything buffered so far to the stream and flushes it.
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (out != null) {
+			flushBuffer();
+			out.flush();
+		}
+	}
+
+	/**
+	 * Flushes the writer and closes the stream.
+	 *
+	 * @throws IOException if the document is incomplete
+	 */
+	@Override
+	public void close() throws IOException {
+		if (buffer == null) {
+			return;
+		}
+
+		try {
+			if (out != null) {
+				flushBuffer();
+				out.close();
+			}
+		} finally {
+			release();
+		}
+
+		if (stackSize > 1 || stack[0] != NONEMPTY_DOCUMENT) {
+			throw new IOException("Incomplete document");
+		}
+	}
+
+	/**
+	 * Ends a complete top-level value with a newline, after which another top-level value can be written, as in
+	 * NDJSON.
+	 */
+	void endLine() throws IOException {
+		if (stackSize > 1 || peekScope() != NONEMPTY_DOCUMENT) {
+			throw new IllegalStateException("A line must hold one complete value");
+		}
+
+		writeByte('\n');
+		stack[0] = EMPTY_DOCUMENT;
+	}
+
+	/**
+	 * Returns what has been written, for a writer without a stream.
+	 */
+	byte[] toByteArray() {
+		return Arrays.copyOf(buffer, count);
+	}
+
+	/**
+	 * Encodes a name the way {@link #name(String)} writes it, colon included, for {@link #name(byte[])}.
+	 */
+	static byte[] encodeName(String name) {
+		JsonWriter writer = new JsonWriter();
+		try {
+			writer.writeString(name);
+			writer.writeByte(':');
+			return writer.toByteArray();
+		} catch (IOException e) {
+			// A writer without a stream only ever writes to memory.
+			throw new IllegalStateException(e);
+		} finally {
+			writer.release();
+		}
+	}
+
+	/**
+	 * Gives back the write buffer without flushing it or closing the stream. The writer cannot be used
+	 * afterwards.
+	 */
+	void release() {
+		if (buffer != null) {
+			JsonBuffers.giveBack(buffer);
+			buffer = null;
+		}
+	}
+
+	private void beforeValue() throws IOException {
+		switch (peekScope()) {
+			case EMPTY_DOCUMENT:
+				stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+				break;
+			case EMPTY_ARRAY:
+				stack[stackSize - 1] = NONEMPTY_ARRAY;
+				break;
+			case NONEMPTY_ARRAY:
+				writeByte(',');
+				break;
+			case DANGLING_NAME:
+				stack[stackSize - 1] = NONEMPTY_OBJECT;
+				break;
+			case NONEMPTY_DOCUMENT:
+				throw new IllegalStateException("Json must have only one top-level value");
+			default:
+				throw new IllegalStateException("Values in an object must follow a name");
+		}
+	}
+
+	private int peekScope() {
+		if (buffer == null) {
+			throw new IllegalStateException("JsonWriter is closed");
+		}
+
+		return stack[stackSize - 1];
+	}
+
+	private void push(int scope) {
+		if (stackSize == stack.length) {
+			stack = Arrays.copyOf(stack, stack.length * 2);
+		}
+		stack[stackSize++] = scope;
+	}
+
+	/**
+	 * Writes a quoted string. Runs of characters that need neither escaping nor multi-byte encoding are copied
+	 * straight into the buffer, as far as it has room, without checking the room for each one.
+	 */
+	private void writeString(String value) throws IOException {
+		writeByte('"');
+
+		int length = value.length();
+		int i = 0;
+		while (i < length) {
+			if (count == buffer.length) {
+				require(1);
+			}
+
+			int end = Math.min(length, i + buffer.length - count);
+			while (i < end) {
+				char c = value.charAt(i);
+				if (c >= 0x80 || ESCAPES[c] != null) {
+					break;
+				}
+				buffer[count++] = (byte) c;
+				i++;
+			}
+
+			if (i < end) {
+				char c = value.charAt(i);
+				if (c < 0x80) {
+					writeBytes(ESCAPES[c]);
+				} else {
+					i = writeMultiByte(value, i, c);
+				}
+				i++;
+			}
+		}
+
+		writeByte('"');
+	}
+
+	/**
+	 * Writes the UTF-8 encoding of a non-ASCII char, pairing it with the next one if they form a surrogate pair.
+	 *
+	 * @return the index of the last char written
+	 */
+	private int writeMultiByte(String value, int i, char c) throws IOException {
+		require(4);
+
+		if (c < 0x800) {
+			buffer[count++] = (byte) (0xc0 | (c >> 6));
+			buffer[count++] = (byte) (0x80 | (c & 0x3f));
+		} else if (!Character.isSurrogate(c)) {
+			buffer[count++] = (byte) (0xe0 | (c >> 12));
+			buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+			buffer[count++] = (byte) (0x80 | (c & 0x3f));
+		} else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+			int codePoint = Character.toCodePoint(c, value.charAt(++i));
+			buffer[count++] = (byte) (0xf0 | (codePoint >> 18));
+			buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+			buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+			buffer[count++] = (byte) (0x80 | (codePoint & 0x3f));
+		} else {
+			// An unpaired surrogate cannot be encoded; write a replacement, as String.getBytes does.
+			buffer[count++] = '?';
+		}
+
+		return i;
+	}
+
+	private void writeLong(long value) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			writeAscii(Long.toString(value));
+			return;
+		}
+
+		// A long has at most 19 digits and a sign.
+		require(20);
+		if (value < 0) {
+			buffer[count++] = '-';
+			value = -value;
+		}
+
+		int digits = 1;
+		for (long remaining = value / 10; remaining > 0; remaining /= 10) {
+			digits++;
+		}
+		for (int i = count + digits - 1; i >= count; i--) {
+			buffer[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		count += digits;
+	}
+
+	private void writeAscii(String text) throws IOException {
+		int length = text.length();
+		require(length);
+
+		for (int i = 0; i < length; i++) {
+			buffer[count++] = (byte) text.charAt(i);
+		}
+	}
+
+	private void writeBytes(byte[] bytes) throws IOException {
+		require(bytes.length);
+
+		System.arraycopy(bytes, 0, buffer, count, bytes.length);
+		count += bytes.length;
+	}
+
+	private void writeByte(char c) throws IOException {
+		require(1);
+		buffer[count++] = (byte) c;
+	}
+
+	/**
+	 * Makes room for the given number of bytes, writing the buffer out to the stream or, if there is no stream
+	 * or the bytes would not fit anyway, growing it.
+	 */
+	private void require(int length) throws IOException {
+		if (buffer.length - count >= length) {
+			return;
+		}
+
+		flushBuffer();
+		if (buffer.length - count < length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + length));
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		if (out != null) {
+			out.write(buffer, 0, count);
+			count = 0;
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package com.paypal.http.serializer;
+
+import com.paypal.http.annotations.SerializedName;
+import com.paypal.http.exceptions.JsonParseException;
+import com.paypal.http.exceptions.SerializeException;
+
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What {@link Json} needs to know to bind or write a model class, worked out once per class: its no-argument
+ * constructor and its {@link SerializedName} fields, by name and in declaration order.
+ */
+final class ModelDescriptor {
+
+	private static final ClassValue<ModelDescriptor> DESCRIPTORS = new ClassValue<ModelDescriptor>() {
+		@Override
+		protected ModelDescriptor computeValue(Class<?> type) {
+			return new ModelDescriptor(type);
+		}
+	};
+
+	private final Class<?> type;
+	private final Constructor<?> constructor;
+	private final Map<String, Property> properties = new HashMap<>();
+	private final List<Property> serialized = new ArrayList<>();
+
+	private ModelDescriptor(Class<?> type) {
+		this.type = type;
+		this.constructor = noArgConstructor(type);
+
+		for (Field field : type.getDeclaredFields()) {
+			SerializedName sn = field.getAnnotation(SerializedName.class);
+			if (sn == null || properties.containsKey(sn.value())) {
+				continue;
+			}
+
+			try {
+				field.setAccessible(true);
+			} catch (RuntimeException e) {
+				// A field the module system keeps closed cannot be bound; leave it out.
+				continue;
+			}
+
+			Property property = new Property(field, sn.value(), sn.listClass());
+			properties.put(sn.value(), property);
+			if (!Modifier.isTransient(field.getModifiers())) {
+				serialized.add(property);
+			}
+		}
+	}
+
+	static ModelDescriptor of(Class<?> type) {
+		return DESCRIPTORS.get(type);
+	}
+
+	/**
+	 * The field for a serialized name, or null if the class has none.
+	 */
+	Property property(String name) {
+		return properties.get(name);
+	}
+
+	/**
+	 * The fields to write when serializing, in the order they are declared. Transient fields are left out.
+	 */
+	List<Property> serializedProperties() {
+		return Collections.unmodifiableList(serialized);
+	}
+
+	Object newInstance() throws UnsupportedEncodingException {
+		if (constructor == null) {
+			throw new UnsupportedEncodingException("Could not instantiate type " + type.getSimpleName());
+		}
+
+		try {
+			return constructor.newInstance();
+		} catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+			throw new UnsupportedEncodingException("Could not instantiate type " + type.getSimpleName());
+		}
+	}
+
+	String typeName() {
+		return type.getSimpleName();
+	}
+
+	private static Constructor<?> noArgConstructor(Class<?> type) {
+		try {
+			Constructor<?> constructor = type.getConstructor();
+			constructor.setAccessible(true);
+			return constructor;
+		} catch (NoSuchMethodException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	static final class Property {
+
+		private final Field field;
+		private final Class<?> type;
+		private final Class<?> listClass;
+		private final byte[] encodedName;
+
+		private Property(Field field, String serializedName, Class<?> listClass) {
+			this.field = field;
+			this.type = field.getType();
+			this.listClass = listClass;
+			this.encodedName = JsonWriter.encodeName(serializedName);
+		}
+
+		String name() {
+			return field.getName();
+		}
+
+		Field field() {
+			return field;
+		}
+
+		Class<?> type() {
+			return type;
+		}
+
+		/**
+		 * The element class of a list field, or Void if the field's annotation does not name one.
+		 */
+		Class<?> listClass() {
+			return listClass;
+		}
+
+		/**
+		 * The serialized name as it is written before the value: quoted, UTF-8 encoded and followed by a colon.
+		 */
+		byte[] encodedName() {
+			return encodedName;
+		}
+
+		Object get(Object instance) throws SerializeException {
+			try {
+				return field.get(instance);
+			} catch (IllegalAccessException e) {
+				throw new SerializeException(e.getMessage());
+			}
+		}
+
+		void set(Object instance, Object value) throws JsonParseException {
+			try {
+				field.set(instance, value);
+			} catch (IllegalAccessException | IllegalArgumentException e) {
+				throw new JsonParseException("Unable to parse Json " + e.getMessage());
+			}
+		}
+	}
+}
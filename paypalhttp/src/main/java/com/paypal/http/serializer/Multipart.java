@@ -3,16 +3,21 @@ package com.paypal.http.serializer;
 
 import com.paypal.http.Headers;
 import com.paypal.http.HttpRequest;
+import com.paypal.http.RequestBody;
 import com.paypal.http.exceptions.SerializeException;
 import com.paypal.http.multipart.FormData;
+import com.paypal.http.multipart.JsonPart;
 import com.paypal.http.multipart.MultipartBody;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 import static com.paypal.http.serializer.StreamUtils.writeOutputStream;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class Multipart implements Serializer {
 
@@ -24,8 +29,19 @@ public class Multipart implements Serializer {
 	}
 
 	@Override
-	@SuppressWarnings("unchecked")
 	public byte[] encode(HttpRequest request) throws IOException {
+		RequestBody body = encodeBody(request);
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		body.writeTo(os);
+
+		return os.toByteArray();
+	}
+
+	/**
+	 * Streams each part to the connection as it is sent, so file uploads are never read into memory.
+	 */
+	@Override
+	public RequestBody encodeBody(HttpRequest request) throws IOException {
 		if (!(request.requestBody() instanceof MultipartBody)) {
 			throw new SerializeException("Request requestBody must be MultipartBody when Content-Type is multipart/*");
 		} else {
@@ -34,18 +50,7 @@ public class Multipart implements Serializer {
 			contentType = contentType + "; boundary=" + boundary;
 			request.header(Headers.CONTENT_TYPE, contentType); // Rewrite header with boundary
 
-			MultipartBody body = (MultipartBody) request.requestBody();
-			ByteArrayOutputStream os = new ByteArrayOutputStream();
-
-			for (FormData formData : body) {
-				writePart(os, formData, boundary);
-			}
-
-			writeOutputStream(os, "--" + boundary + "--");
-			writeOutputStream(os, CRLF);
-			writeOutputStream(os, CRLF);
-
-			return os.toByteArray();
+			return new MultipartRequestBody((MultipartBody) request.requestBody(), boundary);
 		}
 	}
 
@@ -54,14 +59,70 @@ public class Multipart implements Serializer {
 		throw new UnsupportedEncodingException("Unable to decode Content-Type: multipart/form-data.");
 	}
 
-	private void writePart(OutputStream writer, FormData part, String boundary) throws IOException {
-		writeOutputStream(writer,"--" + boundary);
-		writeOutputStream(writer, CRLF);
-		writeOutputStream(writer, part.header());
-		writeOutputStream(writer, CRLF);
-		writeOutputStream(writer, CRLF);
+	private static void writePart(OutputStream writer, FormData part, byte[] encoded, String boundary) throws IOException {
+		writeOutputStream(writer, partHead(part, boundary));
 
-		part.writeData(writer);
+		if (encoded != null) {
+			writeOutputStream(writer, encoded);
+		} else {
+			part.writeData(writer);
+		}
 		writeOutputStream(writer, CRLF);
 	}
+
+	private static String partHead(FormData part, String boundary) {
+		return "--" + boundary + CRLF + part.header() + CRLF + CRLF;
+	}
+
+	private static String closingBoundary(String boundary) {
+		return "--" + boundary + "--" + CRLF + CRLF;
+	}
+
+	private static class MultipartRequestBody implements RequestBody {
+
+		private final MultipartBody body;
+		private final String boundary;
+		// JSON parts are serialized once per body, so their length is known and they are not encoded twice.
+		private final Map<FormData, byte[]> encodedParts = new IdentityHashMap<>();
+		private final long contentLength;
+
+		private MultipartRequestBody(MultipartBody body, String boundary) throws IOException {
+			this.body = body;
+			this.boundary = boundary;
+			for (FormData formData : body) {
+				if (formData instanceof JsonPart) {
+					encodedParts.put(formData, ((JsonPart) formData).encode());
+				}
+			}
+			this.contentLength = computeContentLength();
+		}
+
+		@Override
+		public long contentLength() {
+			return contentLength;
+		}
+
+		@Override
+		public void writeTo(OutputStream os) throws IOException {
+			for (FormData formData : body) {
+				writePart(os, formData, encodedParts.get(formData), boundary);
+			}
+
+			writeOutputStream(os, closingBoundary(boundary));
+		}
+
+		private long computeContentLength() {
+			long length = 0;
+			for (FormData formData : body) {
+				byte[] encoded = encodedParts.get(formData);
+				long partLength = encoded != null ? encoded.length : formData.contentLength();
+				if (partLength < 0) {
+					return -1;
+				}
+				length += partHead(formData, boundary).getBytes(UTF_8).length + partLength + CRLF.length();
+			}
+
+			return length + closingBoundary(boundary).getBytes(UTF_8).length;
+		}
+	}
 }
@@ -0,0 +1,161 @@
+package com.paypal.http.serializer;
+
+import com.paypal.http.HttpRequest;
+import com.paypal.http.RequestBody;
+import com.paypal.http.annotations.ListOf;
+import com.paypal.http.exceptions.SerializeException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Newline-delimited Json (NDJSON, also known as JSON Lines): one Json value per line, as bulk endpoints send and
+ * accept them. Records are written and read one at a time, each with {@link Json}, so a body never has to be held
+ * in memory as a whole.
+ *
+ * A request body is an Iterable, Stream, Iterator or array of records, written to the connection as they are
+ * produced. Bodies from an Iterable or array can be written again when a request is retried; a Stream or Iterator
+ * can be sent once. A response decodes into a List or {@link ListOf} class of records, or lazily with
+ * {@link com.paypal.http.StreamingHttpResponse#elements(Class)}, which decodes each record as it arrives.
+ */
+public class NdJson implements Serializer {
+
+	private final Json json;
+
+	public NdJson() {
+		this(new Json());
+	}
+
+	/**
+	 * Reads and writes records with the given Json, and with its settings.
+	 */
+	public NdJson(Json json) {
+		this.json = json;
+	}
+
+	@Override
+	public String contentType() {
+		return "^application\\/x-ndjson";
+	}
+
+	@Override
+	public byte[] encode(HttpRequest request) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		encodeBody(request).writeTo(os);
+
+		return os.toByteArray();
+	}
+
+	/**
+	 * Writes each record to the connection as it is taken from the body, one per line.
+	 */
+	@Override
+	public RequestBody encodeBody(HttpRequest request) throws IOException {
+		Object body = request.requestBody();
+		if (!(body instanceof Iterable || body instanceof Stream || body instanceof Iterator || body instanceof Object[])) {
+			throw new SerializeException("Request requestBody must be an Iterable, Stream, Iterator or array when Content-Type is application/x-ndjson");
+		}
+
+		return new RequestBody() {
+			@Override
+			public long contentLength() {
+				return -1;
+			}
+
+			@Override
+			public void writeTo(OutputStream os) throws IOException {
+				writeRecords(records(body), os);
+			}
+
+			@Override
+			public boolean isRepeatable() {
+				return body instanceof Iterable || body instanceof Object[];
+			}
+		};
+	}
+
+	@Override
+	public <T> T decode(String source, Class<T> cls) throws IOException {
+		return decode(new ByteArrayInputStream(source.getBytes(UTF_8)), cls);
+	}
+
+	/**
+	 * Reads every record into a List, of Maps and other plain values, or into a {@link ListOf} class, of its
+	 * listClass.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T decode(InputStream stream, Class<T> cls) throws IOException {
+		if (!List.class.isAssignableFrom(cls)) {
+			throw new UnsupportedEncodingException("Unable to decode application/x-ndjson into " + cls.getSimpleName() + ": use a List, a @ListOf class or decodeElements");
+		}
+
+		Class<?> recordClass = null;
+		List<Object> records;
+		if (cls.getAnnotation(ListOf.class) != null) {
+			recordClass = cls.getAnnotation(ListOf.class).listClass();
+			try {
+				records = (List<Object>) cls.newInstance();
+			} catch (InstantiationException | IllegalAccessException e) {
+				throw new UnsupportedEncodingException("Could not instantiate type " + cls.getSimpleName());
+			}
+		} else {
+			records = new ArrayList<>();
+		}
+
+		JsonReader reader = new JsonReader(stream);
+		try {
+			while (reader.hasNextValue()) {
+				records.add(recordClass != null ? json.read(reader, recordClass) : json.readValue(reader));
+			}
+		} finally {
+			reader.release();
+		}
+
+		return (T) records;
+	}
+
+	/**
+	 * Decodes each record as the iterator reaches it, reading no further into the stream than that record.
+	 */
+	@Override
+	public <T> ElementIterator<T> decodeElements(InputStream stream, Class<T> elementClass) {
+		return new JsonElementIterator<>(json, new JsonReader(stream), elementClass, true);
+	}
+
+	private void writeRecords(Iterator<?> records, OutputStream os) throws IOException {
+		JsonWriter writer = new JsonWriter(os);
+		try {
+			while (records.hasNext()) {
+				json.write(writer, records.next());
+				writer.endLine();
+			}
+			writer.flush();
+		} finally {
+			writer.release();
+		}
+	}
+
+	private static Iterator<?> records(Object body) {
+		if (body instanceof Iterable) {
+			return ((Iterable<?>) body).iterator();
+		} else if (body instanceof Stream) {
+			return ((Stream<?>) body).iterator();
+		} else if (body instanceof Iterator) {
+			return (Iterator<?>) body;
+		}
+
+		return Arrays.asList((Object[]) body).iterator();
+	}
+}
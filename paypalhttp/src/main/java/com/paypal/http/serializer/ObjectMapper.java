@@ -97,16 +97,8 @@ public class ObjectMapper {
 	}
 
 	private static Field fieldForSerializedName(String name, Class cls) {
-		Field target = null;
-		for (Field f : cls.getDeclaredFields()) {
-			SerializedName sn = f.getAnnotation(SerializedName.class);
-			if (sn != null && name.equals(sn.value())) {
-				target = f;
-				break;
-			}
-		}
-
-		return target;
+		ModelDescriptor.Property property = ModelDescriptor.of(cls).property(name);
+		return property == null ? null : property.field();
 	}
 
 	public static boolean isModel(Object o) {
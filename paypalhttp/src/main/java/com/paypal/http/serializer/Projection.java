@@ -0,0 +1,145 @@
+package com.paypal.http.serializer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of a response to decode, as a set of JSON Pointer (RFC 6901) paths. Everything under a listed path is
+ * decoded; everything else is skipped by the tokenizer without building Maps, Strings or model objects for it.
+ * A {@code *} segment matches every member of an object or element of an array.
+ *
+ * <pre>
+ * Projection state = Projection.of("/id", "/status", "/purchase_units/*&#47;payments/captures/*&#47;status");
+ * HttpRequest&lt;Map&gt; request = new HttpRequest&lt;&gt;("/v2/checkout/orders/" + orderId, "GET", Map.class)
+ *         .projection(state);
+ * </pre>
+ *
+ * Objects keep only the members that were asked for, and arrays only the elements, in their original order. A
+ * model decoded with a projection leaves the fields outside it unset. Decoding into a smaller {@code @Model}
+ * class, with only the fields that are needed, skips the rest of the response in the same way.
+ */
+public final class Projection {
+
+	private final List<String> paths;
+	private final Node root = new Node();
+
+	private Projection(List<String> paths) {
+		this.paths = paths;
+		for (String path : paths) {
+			add(path);
+		}
+	}
+
+	/**
+	 * @throws IllegalArgumentException if a path is not a JSON Pointer
+	 */
+	public static Projection of(String... paths) {
+		return new Projection(Collections.unmodifiableList(new ArrayList<>(Arrays.asList(paths))));
+	}
+
+	public List<String> paths() {
+		return paths;
+	}
+
+	Node root() {
+		return root;
+	}
+
+	private void add(String path) {
+		if (!path.isEmpty() && path.charAt(0) != '/') {
+			throw new IllegalArgumentException("A JSON Pointer must be empty or start with /, but was " + path);
+		}
+
+		Node node = root;
+		int start = 1;
+		while (start <= path.length() && !node.all) {
+			int end = path.indexOf('/', start);
+			if (end < 0) {
+				end = path.length();
+			}
+
+			String segment = path.substring(start, end).replace("~1", "/").replace("~0", "~");
+			if (segment.equals("*")) {
+				if (node.wildcard == null) {
+					node.wildcard = new Node();
+				}
+				node = node.wildcard;
+			} else {
+				node = node.children.computeIfAbsent(segment, name -> new Node());
+			}
+			start = end + 1;
+		}
+
+		node.all = true;
+		node.children.clear();
+		node.wildcard = null;
+	}
+
+	@Override
+	public String toString() {
+		return "Projection" + paths;
+	}
+
+	/**
+	 * A position in the projection: which members or elements of the value there to decode.
+	 */
+	static final class Node {
+
+		private final Map<String, Node> children = new HashMap<>();
+		private Node wildcard;
+		private boolean all;
+
+		/**
+		 * Whether the whole value is decoded.
+		 */
+		boolean all() {
+			return all;
+		}
+
+		/**
+		 * The projection of an object member, or null if the member is skipped.
+		 */
+		Node member(String name) {
+			if (all) {
+				return this;
+			}
+
+			Node child = children.get(name);
+			if (child == null) {
+				return wildcard;
+			} else if (wildcard == null || child.all) {
+				return child;
+			}
+			return merge(child, wildcard);
+		}
+
+		/**
+		 * The projection of an array element, or null if the element is skipped.
+		 */
+		Node element(int index) {
+			return member(Integer.toString(index));
+		}
+
+		/**
+		 * A node for a value that two paths reach, such as /items/0/id and /items/*&#47;name.
+		 */
+		private static Node merge(Node a, Node b) {
+			if (b.all) {
+				return b;
+			}
+
+			Node merged = new Node();
+			merged.children.putAll(a.children);
+			for (Map.Entry<String, Node> entry : b.children.entrySet()) {
+				Node existing = merged.children.get(entry.getKey());
+				merged.children.put(entry.getKey(), existing == null ? entry.getValue() : merge(existing, entry.getValue()));
+			}
+			merged.wildcard = a.wildcard == null ? b.wildcard : b.wildcard == null ? a.wildcard : merge(a.wildcard, b.wildcard);
+			return merged;
+		}
+	}
+}
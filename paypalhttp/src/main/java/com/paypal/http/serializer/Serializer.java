@@ -1,11 +1,49 @@
 package com.paypal.http.serializer;
 
 import com.paypal.http.HttpRequest;
+import com.paypal.http.RequestBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
 
 public interface Serializer {
 	String contentType();
 	byte[] encode(HttpRequest request) throws IOException;
 	<T> T decode(String source, Class<T> cls) throws IOException;
+
+	/**
+	 * Decodes a response body as it is read from its stream. Serializers that can parse the raw bytes should
+	 * override this so that the body is never copied into a String first. The default reads the stream into a
+	 * UTF-8 String and passes it to {@link #decode(String, Class)}. The caller closes the stream.
+	 */
+	default <T> T decode(InputStream stream, Class<T> cls) throws IOException {
+		return decode(StreamUtils.readStream(stream, null), cls);
+	}
+
+	/**
+	 * Decodes only the parts of a response body that a {@link Projection} asks for. Serializers that can skip
+	 * values without building them should override this; the default decodes the whole body with
+	 * {@link #decode(InputStream, Class)} and ignores the projection.
+	 */
+	default <T> T decode(InputStream stream, Class<T> cls, Projection projection) throws IOException {
+		return decode(stream, cls);
+	}
+
+	/**
+	 * Decodes a response body that is a list one element at a time, as it is read. The returned iterator owns
+	 * the stream and closes it. The default throws, for serializers that can only decode a body as a whole.
+	 */
+	default <T> ElementIterator<T> decodeElements(InputStream stream, Class<T> elementClass) throws IOException {
+		throw new UnsupportedEncodingException("Unable to decode " + contentType() + " one element at a time");
+	}
+
+	/**
+	 * Encodes a request as a {@link RequestBody} that transports write straight to the connection. Serializers
+	 * that can produce their output incrementally should override this so that large bodies are never held in
+	 * memory as a whole. The default buffers {@link #encode(HttpRequest)}.
+	 */
+	default RequestBody encodeBody(HttpRequest request) throws IOException {
+		return RequestBody.of(encode(request));
+	}
 }
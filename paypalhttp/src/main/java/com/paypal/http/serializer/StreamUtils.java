@@ -4,6 +4,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.util.zip.GZIPInputStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -20,13 +21,7 @@ public class StreamUtils {
 		}
 
 		try {
-			ByteArrayOutputStream out = new ByteArrayOutputStream();
-			byte[] buffer = new byte[1024];
-			for (int count; (count = in.read(buffer)) != -1; ) {
-				out.write(buffer, 0, count);
-			}
-
-			return new String(out.toByteArray(), UTF_8);
+			return new String(readBytes(in), UTF_8);
 		} finally {
 			try {
 				in.close();
@@ -34,6 +29,73 @@ public class StreamUtils {
 		}
 	}
 
+	/**
+	 * Reads a stream to its end, without closing it.
+	 */
+	public static byte[] readBytes(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		for (int count; (count = in.read(buffer)) != -1; ) {
+			out.write(buffer, 0, count);
+		}
+
+		return out.toByteArray();
+	}
+
+	/**
+	 * Prepares a response body to be decoded from, inflating it if it is gzipped.
+	 *
+	 * @return the body, or null if it is empty
+	 */
+	public static InputStream bodyStream(InputStream in, String contentEncoding) throws IOException {
+		if (in == null) {
+			return null;
+		}
+
+		PushbackInputStream body = new PushbackInputStream(in);
+		if (isEmpty(body)) {
+			return null;
+		}
+
+		if ("gzip".equals(contentEncoding)) {
+			body = new PushbackInputStream(new GZIPInputStream(body, 8 * 1024));
+			if (isEmpty(body)) {
+				body.close();
+				return null;
+			}
+		}
+
+		return body;
+	}
+
+	private static boolean isEmpty(PushbackInputStream in) throws IOException {
+		int first = in.read();
+		if (first == -1) {
+			return true;
+		}
+
+		in.unread(first);
+		return false;
+	}
+
+	/**
+	 * Reads the remainder of a stream and closes it, so that the underlying connection can be kept alive.
+	 */
+	public static void drain(InputStream in) throws IOException {
+		if (in == null) {
+			return;
+		}
+
+		try {
+			byte[] buffer = new byte[1024];
+			while (in.read(buffer) != -1) {
+				// discard
+			}
+		} finally {
+			in.close();
+		}
+	}
+
 	public static void writeOutputStream(OutputStream outputStream, String data) throws IOException {
 		writeOutputStream(outputStream, data.getBytes(UTF_8));
 	}
@@ -0,0 +1,154 @@
+package com.paypal.http.serializer;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A bounded cache of decoded strings, so that values a response repeats many times, such as {@code "USD"},
+ * {@code "COMPLETED"} or {@code "self"}, share one String instead of each being a copy. Responses that are kept
+ * around, in a cache or as a batch, then hold far fewer Strings.
+ *
+ * <pre>
+ * StringCache values = new StringCache();
+ * Json json = new Json().valueCache(values);
+ * ...
+ * System.out.println(values.stats());
+ * </pre>
+ *
+ * The cache is direct-mapped: a string whose slot holds a different string replaces it, so the cache never
+ * holds more than its size. Strings longer than the maximum length are not cached. A cache can be shared between
+ * threads; entries are immutable, so threads racing on a slot at worst decode a string again.
+ */
+public final class StringCache {
+
+	private final Entry[] table;
+	private final int maxLength;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * A cache of 1024 strings of up to 32 UTF-8 bytes each.
+	 */
+	public StringCache() {
+		this(1024, 32);
+	}
+
+	/**
+	 * @param size      the number of strings to hold, rounded up to a power of two
+	 * @param maxLength the length in UTF-8 bytes of the longest string to cache
+	 */
+	public StringCache(int size, int maxLength) {
+		if (size < 1 || size > 1 << 30) {
+			throw new IllegalArgumentException("size must be between 1 and 2^30");
+		}
+		if (maxLength < 0) {
+			throw new IllegalArgumentException("maxLength must not be negative");
+		}
+
+		int capacity = 1;
+		while (capacity < size) {
+			capacity <<= 1;
+		}
+		this.table = new Entry[capacity];
+		this.maxLength = maxLength;
+	}
+
+	public int size() { return table.length; }
+
+	public int maxLength() { return maxLength; }
+
+	public Stats stats() {
+		return new Stats(hits.sum(), misses.sum());
+	}
+
+	/**
+	 * Returns the cached String for UTF-8 bytes, decoding and caching them if they are not cached yet. The caller
+	 * has already computed the bytes' hash with {@link #hash(int, byte)} while scanning them.
+	 */
+	String intern(byte[] bytes, int offset, int length, int hash) {
+		if (length > maxLength) {
+			return new String(bytes, offset, length, UTF_8);
+		}
+
+		int index = (hash ^ (hash >>> 16)) & (table.length - 1);
+		Entry entry = table[index];
+		if (entry != null && entry.matches(bytes, offset, length)) {
+			hits.increment();
+			return entry.value;
+		}
+
+		misses.increment();
+		entry = new Entry(Arrays.copyOfRange(bytes, offset, offset + length));
+		table[index] = entry;
+		return entry.value;
+	}
+
+	static int hash(int hash, byte b) {
+		return 31 * hash + b;
+	}
+
+	private static final class Entry {
+
+		private final byte[] bytes;
+		private final String value;
+
+		private Entry(byte[] bytes) {
+			this.bytes = bytes;
+			this.value = new String(bytes, UTF_8);
+		}
+
+		private boolean matches(byte[] other, int offset, int length) {
+			if (bytes.length != length) {
+				return false;
+			}
+
+			for (int i = 0; i < length; i++) {
+				if (bytes[i] != other[offset + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * A point-in-time snapshot of a cache's counters. Strings too long to be cached are counted as neither hits
+	 * nor misses.
+	 */
+	public static class Stats {
+
+		private final long hits;
+		private final long misses;
+
+		Stats(long hits, long misses) {
+			this.hits = hits;
+			this.misses = misses;
+		}
+
+		/**
+		 * The number of strings that were found in the cache.
+		 */
+		public long hits() { return hits; }
+
+		/**
+		 * The number of strings that were decoded and added to the cache.
+		 */
+		public long misses() { return misses; }
+
+		/**
+		 * The share of lookups that were hits, between 0 and 1, or 0 before any lookup.
+		 */
+		public double hitRate() {
+			long lookups = hits + misses;
+			return lookups == 0 ? 0 : (double) hits / lookups;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("StringCache.Stats{hits=%d, misses=%d, hitRate=%.3f}", hits, misses, hitRate());
+		}
+	}
+}
@@ -0,0 +1,271 @@
+package com.paypal.http;
+
+import javax.net.ssl.SSLContext;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.URISyntaxException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link Transport} that speaks HTTP/2 through {@code java.net.http.HttpClient}, multiplexing concurrent
+ * requests to the same host over a small number of connections. Servers that do not negotiate HTTP/2 are
+ * spoken to over HTTP/1.1.
+ *
+ * The connect timeout is fixed when the transport is constructed, because java.net.http only supports one per
+ * client; the connect timeout of each request is ignored. The read timeout of each request bounds the time
+ * until its response headers arrive.
+ *
+ * Request bodies of up to {@value #BUFFERED_BODY_LIMIT} bytes are buffered and sent in one go. Larger bodies,
+ * and bodies of unknown length, are streamed from {@link RequestBody#writeTo(java.io.OutputStream)} on a
+ * separate thread, so that they are never held in memory whole.
+ */
+public class Http2Transport implements AsyncTransport {
+
+	// Headers that java.net.http manages itself and refuses to have set.
+	private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+	static final int BUFFERED_BODY_LIMIT = 64 * 1024;
+
+	private final java.net.http.HttpClient client;
+
+	public Http2Transport() {
+		this(null);
+	}
+
+	/**
+	 * @param sslContext the SSLContext used for https connections, or null for the JVM default. The client's
+	 *                   SSLSocketFactory is not used by this transport.
+	 */
+	public Http2Transport(SSLContext sslContext) {
+		this(sslContext, 0);
+	}
+
+	/**
+	 * @param sslContext     the SSLContext used for https connections, or null for the JVM default.
+	 * @param connectTimeout the connect timeout in milliseconds for every request, or 0 for none.
+	 */
+	public Http2Transport(SSLContext sslContext, int connectTimeout) {
+		java.net.http.HttpClient.Builder builder = java.net.http.HttpClient.newBuilder()
+				.version(java.net.http.HttpClient.Version.HTTP_2)
+				.followRedirects(java.net.http.HttpClient.Redirect.NORMAL);
+
+		if (connectTimeout > 0) {
+			builder.connectTimeout(Duration.ofMillis(connectTimeout));
+		}
+		if (sslContext != null) {
+			builder.sslContext(sslContext);
+		}
+
+		this.client = builder.build();
+	}
+
+	/**
+	 * Whether the running JVM provides the HTTP/2 client this transport is built on.
+	 */
+	public static boolean isSupported() {
+		return true;
+	}
+
+	@Override
+	public TransportResponse execute(TransportRequest request) throws IOException {
+		StreamedBody streamed = streamedBody(request.body());
+		try {
+			java.net.http.HttpResponse<InputStream> response = client.send(httpRequest(request, streamed), BodyHandlers.ofInputStream());
+			return new TransportResponse(response.statusCode(), responseHeaders(response.headers()), response.body());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			abort(streamed);
+			throw new InterruptedIOException("Interrupted while waiting for a response from " + request.url());
+		} catch (IOException | RuntimeException e) {
+			abort(streamed);
+			throw e;
+		}
+	}
+
+	@Override
+	public CompletableFuture<TransportResponse> executeAsync(TransportRequest request) {
+		StreamedBody streamed = streamedBody(request.body());
+		java.net.http.HttpRequest httpRequest;
+		try {
+			httpRequest = httpRequest(request, streamed);
+		} catch (IOException | RuntimeException e) {
+			CompletableFuture<TransportResponse> failed = new CompletableFuture<>();
+			failed.completeExceptionally(e);
+			return failed;
+		}
+
+		return client.sendAsync(httpRequest, BodyHandlers.ofInputStream())
+				.whenComplete((response, error) -> {
+					if (error != null) {
+						abort(streamed);
+					}
+				})
+				.thenApply(response -> new TransportResponse(response.statusCode(), responseHeaders(response.headers()), response.body()));
+	}
+
+	private static java.net.http.HttpRequest httpRequest(TransportRequest request, StreamedBody streamed) throws IOException {
+		java.net.http.HttpRequest.Builder builder;
+		try {
+			builder = java.net.http.HttpRequest.newBuilder(request.url().toURI());
+		} catch (URISyntaxException e) {
+			throw new IOException("Invalid request URL " + request.url(), e);
+		}
+
+		builder.method(request.verb().toUpperCase(), streamed != null ? streamed.publisher() : bufferedBody(request.body()));
+		if (request.readTimeout() > 0) {
+			builder.timeout(Duration.ofMillis(request.readTimeout()));
+		}
+
+		for (String key : request.headers()) {
+			String value = request.headers().header(key);
+			if (key != null && value != null && !RESTRICTED_HEADERS.contains(key.toLowerCase())) {
+				builder.header(key, value);
+			}
+		}
+
+		return builder.build();
+	}
+
+	private static StreamedBody streamedBody(RequestBody body) {
+		if (body == null || (body.contentLength() >= 0 && body.contentLength() <= BUFFERED_BODY_LIMIT)) {
+			return null;
+		}
+		return new StreamedBody(body);
+	}
+
+	private static BodyPublisher bufferedBody(RequestBody body) throws IOException {
+		if (body == null || body.contentLength() == 0) {
+			return BodyPublishers.noBody();
+		}
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream((int) body.contentLength());
+		body.writeTo(os);
+		return BodyPublishers.ofByteArray(os.toByteArray());
+	}
+
+	private static void abort(StreamedBody streamed) {
+		if (streamed != null) {
+			streamed.close();
+		}
+	}
+
+	private static Headers responseHeaders(HttpHeaders httpHeaders) {
+		Headers headers = new Headers();
+		for (Map.Entry<String, List<String>> entry : httpHeaders.map().entrySet()) {
+			List<String> values = entry.getValue();
+			if (!values.isEmpty()) {
+				headers.header(entry.getKey(), values.get(values.size() - 1));
+			}
+		}
+
+		return headers;
+	}
+
+	/**
+	 * Feeds a RequestBody to java.net.http through a pipe. Each time the client subscribes to the publisher a
+	 * writer thread runs {@link RequestBody#writeTo(java.io.OutputStream)} into a fresh pipe; if it fails, the
+	 * client's next read at the end of the pipe fails with the same IOException, which fails the request.
+	 */
+	private static final class StreamedBody {
+
+		private static final int PIPE_SIZE = 16 * 1024;
+
+		private final RequestBody body;
+		private volatile PipedInputStream current;
+
+		StreamedBody(RequestBody body) {
+			this.body = body;
+		}
+
+		BodyPublisher publisher() {
+			BodyPublisher publisher = BodyPublishers.ofInputStream(this::open);
+			return body.contentLength() > 0 ? BodyPublishers.fromPublisher(publisher, body.contentLength()) : publisher;
+		}
+
+		private InputStream open() {
+			PipedInputStream in = new PipedInputStream(PIPE_SIZE);
+			PipedOutputStream out;
+			try {
+				out = new PipedOutputStream(in);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			current = in;
+
+			IOException[] failure = new IOException[1];
+			Writers.INSTANCE.execute(() -> {
+				try {
+					body.writeTo(out);
+				} catch (IOException e) {
+					failure[0] = e;
+				} catch (RuntimeException e) {
+					failure[0] = new IOException("Failed to write the request body", e);
+				} finally {
+					try {
+						out.close();
+					} catch (IOException ignored) {}
+				}
+			});
+
+			return new FilterInputStream(in) {
+				@Override
+				public int read() throws IOException {
+					int b = super.read();
+					return b == -1 ? end() : b;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					int read = super.read(b, off, len);
+					return read == -1 ? end() : read;
+				}
+
+				// The pipe's end happens after the writer's last action, so its failure is visible here.
+				private int end() throws IOException {
+					if (failure[0] != null) {
+						throw failure[0];
+					}
+					return -1;
+				}
+			};
+		}
+
+		/**
+		 * Closes the pipe the client is reading from, so that a writer blocked on a full pipe gives up.
+		 */
+		void close() {
+			PipedInputStream in = current;
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException ignored) {}
+			}
+		}
+	}
+
+	private static class Writers {
+		private static final AtomicInteger threadCount = new AtomicInteger();
+
+		static final ExecutorService INSTANCE = Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, "paypalhttp-http2-body-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+}
@@ -0,0 +1,436 @@
+package com.paypal.http;
+
+import com.paypal.http.exceptions.HttpException;
+import com.paypal.http.serializer.ElementIterator;
+import com.paypal.http.utils.BasicWireMockHarness;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.testng.Assert.*;
+
+public class ConnectionPoolTest extends BasicWireMockHarness {
+
+	private HttpClient client;
+	private ConnectionPool pool;
+
+	@BeforeMethod
+	public void setup() {
+		super.setup();
+		pool = new ConnectionPool();
+		client = new HttpClient(environment());
+		client.setConnectionPool(pool);
+	}
+
+	@AfterMethod
+	public void shutdownPool() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void testConnectionPool_reusesConnectionForSequentialRequests() throws IOException {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, new HttpResponse<>(new Headers().header("Content-Type", "text/plain"), 200, "some data"));
+
+		for (int i = 0; i < 3; i++) {
+			HttpResponse<String> response = client.execute(request);
+			assertEquals(response.statusCode(), 200);
+			assertEquals(response.result(), "some data");
+		}
+
+		assertEquals(pool.stats().newConnections(), 1);
+		assertEquals(pool.stats().reusedConnections(), 2);
+		assertEquals(pool.stats().idleConnections(), 1);
+		assertEquals(pool.stats().leasedConnections(), 0);
+	}
+
+	@Test
+	public void testConnectionPool_drainsUnreadBodyForVoidResponses() throws IOException {
+		HttpRequest<Void> request = new HttpRequest<>("/", "GET", Void.class);
+		stub(request, new HttpResponse<>(new Headers().header("Content-Type", "text/plain"), 200, "an ignored body"));
+
+		client.execute(request);
+		client.execute(request);
+
+		assertEquals(pool.stats().newConnections(), 1);
+		assertEquals(pool.stats().reusedConnections(), 1);
+	}
+
+	@Test
+	public void testConnectionPool_writesRequestBody() throws IOException {
+		HttpRequest<String> request = simpleRequest()
+				.verb("POST")
+				.header(Headers.CONTENT_TYPE, "text/plain")
+				.requestBody("some data");
+		stub(request, null);
+
+		client.execute(request);
+
+		verify(postRequestedFor(urlEqualTo("/"))
+				.withRequestBody(equalTo("some data"))
+				.withHeader("Content-Length", equalTo("9")));
+	}
+
+	@Test
+	public void testConnectionPool_writesBodyOfUnknownLengthChunked() throws IOException {
+		HttpRequest<String> request = simpleRequest()
+				.verb("POST")
+				.header(Headers.CONTENT_TYPE, "text/plain")
+				.header("Content-Encoding", "gzip")
+				.requestBody("some data");
+		stub(request, null);
+
+		client.execute(request);
+		client.execute(request);
+
+		verify(2, postRequestedFor(urlEqualTo("/"))
+				.withHeader("Transfer-Encoding", equalTo("chunked"))
+				.withoutHeader("Content-Length"));
+		assertEquals(pool.stats().newConnections(), 1);
+	}
+
+	@Test
+	public void testConnectionPool_releasesConnectionWhenStreamingResponseIsClosed() throws IOException {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, new HttpResponse<>(new Headers().header("Content-Type", "text/plain"), 200, "some data"));
+
+		StreamingHttpResponse<String> response = client.executeStreaming(request);
+		assertEquals(pool.stats().leasedConnections(), 1);
+		assertEquals(response.body().read(), 's');
+
+		response.close();
+		assertEquals(pool.stats().leasedConnections(), 0);
+		assertEquals(pool.stats().idleConnections(), 1);
+
+		client.execute(request);
+		assertEquals(pool.stats().reusedConnections(), 1);
+	}
+
+	@Test
+	public void testConnectionPool_releasesConnectionWhenVoidStreamingResultIsRead() throws IOException {
+		HttpRequest<Void> request = new HttpRequest<>("/", "GET", Void.class);
+		stub(request, new HttpResponse<>(new Headers().header("Content-Type", "text/plain"), 200, "ignored"));
+
+		StreamingHttpResponse<Void> response = client.executeStreaming(request);
+		assertNull(response.result());
+
+		assertEquals(pool.stats().leasedConnections(), 0);
+		assertEquals(pool.stats().idleConnections(), 1);
+	}
+
+	@Test
+	public void testConnectionPool_keepsConnectionAfterHttpException() throws IOException {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, new HttpResponse<>(new Headers().header("Content-Type", "text/plain"), 400, "bad request"));
+
+		for (int i = 0; i < 2; i++) {
+			try {
+				client.execute(request);
+				fail("Expected HttpException");
+			} catch (HttpException e) {
+				assertEquals(e.statusCode(), 400);
+				assertEquals(e.getMessage(), "bad request");
+			}
+		}
+
+		assertEquals(pool.stats().newConnections(), 1);
+		assertEquals(pool.stats().reusedConnections(), 1);
+	}
+
+	@Test
+	public void testConnectionPool_doesNotKeepIdleConnectionsWhenMaxIdleIsZero() throws IOException {
+		pool.maxIdleConnectionsPerHost(0);
+		HttpRequest<String> request = simpleRequest();
+		stub(request, null);
+
+		client.execute(request);
+		client.execute(request);
+
+		assertEquals(pool.stats().newConnections(), 2);
+		assertEquals(pool.stats().reusedConnections(), 0);
+		assertEquals(pool.stats().totalConnections(), 0);
+	}
+
+	@Test
+	public void testConnectionPool_doesNotReuseConnectionClosedByServer() throws IOException {
+		stubFor(WireMock.get(urlPathEqualTo("/"))
+				.willReturn(new ResponseDefinitionBuilder()
+						.withStatus(200)
+						.withHeader("Connection", "close")
+						.withBody("closing")));
+
+		client.execute(simpleRequest());
+		client.execute(simpleRequest());
+
+		assertEquals(pool.stats().newConnections(), 2);
+		assertEquals(pool.stats().idleConnections(), 0);
+	}
+
+	@Test
+	public void testConnectionPool_evictIdleConnections_closesExpiredConnections() throws IOException, InterruptedException {
+		pool.keepAlive(1, TimeUnit.MILLISECONDS);
+		HttpRequest<String> request = simpleRequest();
+		stub(request, null);
+
+		client.execute(request);
+		Thread.sleep(10);
+		pool.evictIdleConnections();
+
+		assertEquals(pool.stats().idleConnections(), 0);
+		assertEquals(pool.stats().totalConnections(), 0);
+		assertEquals(pool.stats().evictedConnections(), 1);
+	}
+
+	@Test
+	public void testConnectionPool_retriesWhenIdleConnectionWasClosed() throws IOException {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, null);
+		client.execute(request);
+
+		// Restarting the server drops the pooled connection on the server side.
+		teardown();
+		super.setup();
+		stub(request, null);
+
+		HttpResponse<String> response = client.execute(request);
+
+		assertEquals(response.statusCode(), 200);
+		assertEquals(pool.stats().newConnections(), 2);
+	}
+
+	@Test
+	public void testConnectionPool_doesNotRetryPostWhenIdleConnectionWasClosed() throws IOException {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, null);
+		client.execute(request);
+
+		teardown();
+		super.setup();
+		HttpRequest<String> post = simpleRequest().verb("POST").header(Headers.CONTENT_TYPE, "text/plain").requestBody("capture");
+		stub(post, null);
+
+		try {
+			client.execute(post);
+			fail("Expected the POST to fail rather than be sent again");
+		} catch (IOException expected) {
+		}
+
+		verify(0, postRequestedFor(urlEqualTo("/")));
+		assertEquals(pool.stats().newConnections(), 1);
+	}
+
+	@Test
+	public void testConnectionPool_doesNotRetryOneShotBodyWhenIdleConnectionWasClosed() throws IOException {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, null);
+		client.execute(request);
+
+		teardown();
+		super.setup();
+		stubFor(WireMock.put(urlPathEqualTo("/records")).willReturn(new ResponseDefinitionBuilder().withStatus(200)));
+
+		try {
+			client.execute(new HttpRequest<>("/records", "PUT", Void.class)
+					.header(Headers.CONTENT_TYPE, "application/x-ndjson")
+					.requestBody(Stream.of("first", "second")));
+			fail("Expected the PUT to fail rather than be sent again without its records");
+		} catch (IOException expected) {
+		}
+
+		verify(0, putRequestedFor(urlEqualTo("/records")));
+	}
+
+	@Test
+	public void testConnectionPool_doesNotRetryAfterReadTimeoutOnReusedConnection() throws Exception {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, null);
+		client.execute(request);
+
+		stubFor(WireMock.post(urlPathEqualTo("/slow"))
+				.willReturn(new ResponseDefinitionBuilder().withStatus(200).withFixedDelay(1500)));
+		client.setReadTimeout(500);
+
+		long start = System.nanoTime();
+		try {
+			client.execute(simpleRequest().path("/slow").verb("POST").header(Headers.CONTENT_TYPE, "text/plain").requestBody("capture"));
+			fail("Expected a read timeout");
+		} catch (SocketTimeoutException expected) {
+		}
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+
+		// Wait out the delay, after which the server logs the request, and a second one had it been sent.
+		Thread.sleep(2500);
+		verify(1, postRequestedFor(urlEqualTo("/slow")));
+	}
+
+	@Test
+	public void testConnectionPool_pipelinesRequestsWhenPoolIsExhausted() throws Exception {
+		pool.maxTotalConnections(1).maxPipelinedRequests(4);
+		stubFor(WireMock.get(urlPathMatching("/items/.*"))
+				.willReturn(new ResponseDefinitionBuilder()
+						.withStatus(200)
+						.withHeader("Content-Type", "text/plain")
+						.withBody("item")
+						.withFixedDelay(100)));
+
+		List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			futures.add(client.executeAsync(simpleRequest().path("/items/" + i).pipelined(true)));
+		}
+
+		for (CompletableFuture<HttpResponse<String>> future : futures) {
+			assertEquals(future.get(5, TimeUnit.SECONDS).result(), "item");
+		}
+		assertEquals(pool.stats().newConnections(), 1);
+		assertTrue(pool.stats().pipelinedRequests() > 0);
+		assertEquals(pool.stats().leasedConnections(), 0);
+	}
+
+	@Test
+	public void testConnectionPool_doesNotPipelineRequestsThatDidNotOptIn() throws Exception {
+		pool.maxTotalConnections(1);
+		stubFor(WireMock.get(urlPathMatching("/items/.*"))
+				.willReturn(new ResponseDefinitionBuilder().withStatus(200).withFixedDelay(50)));
+
+		List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			futures.add(client.executeAsync(simpleRequest().path("/items/" + i)));
+		}
+		for (CompletableFuture<HttpResponse<String>> future : futures) {
+			future.get(5, TimeUnit.SECONDS);
+		}
+
+		assertEquals(pool.stats().pipelinedRequests(), 0);
+	}
+
+	@Test
+	public void testConnectionPool_releasesConnectionAfterLastStreamedElement() throws IOException {
+		HttpRequest<List> request = new HttpRequest<>("/", "GET", List.class);
+		stub(request, new HttpResponse<>(new Headers().header("Content-Type", "application/json"), 200, "[{\"name\": \"Shedd\"}, {\"name\": \"Monterey\"}]"));
+
+		StreamingHttpResponse<List> response = client.executeStreaming(request);
+		ElementIterator<Zoo> zoos = response.elements(Zoo.class);
+		assertEquals(zoos.next().name, "Shedd");
+		assertEquals(pool.stats().leasedConnections(), 1);
+		assertEquals(zoos.next().name, "Monterey");
+		assertFalse(zoos.hasNext());
+
+		assertEquals(pool.stats().leasedConnections(), 0);
+		assertEquals(pool.stats().idleConnections(), 1);
+	}
+
+	@Test
+	public void testConnectionPool_releasesConnectionWhenElementStreamIsClosed() throws IOException {
+		HttpRequest<List> request = new HttpRequest<>("/", "GET", List.class);
+		stub(request, new HttpResponse<>(new Headers().header("Content-Type", "application/json"), 200, "[{\"name\": \"Shedd\"}, {\"name\": \"Monterey\"}]"));
+
+		StreamingHttpResponse<List> response = client.executeStreaming(request);
+		try (Stream<Zoo> zoos = response.elements(Zoo.class).stream()) {
+			assertEquals(zoos.findFirst().get().name, "Shedd");
+			assertEquals(pool.stats().leasedConnections(), 1);
+		}
+
+		assertEquals(pool.stats().leasedConnections(), 0);
+	}
+
+	@Test
+	public void testConnectionPool_retriesPipelinedRequestsWhenServerClosesConnection() throws Exception {
+		pool.maxTotalConnections(1).maxPipelinedRequests(4);
+		stubFor(WireMock.get(urlPathEqualTo("/closing"))
+				.willReturn(new ResponseDefinitionBuilder()
+						.withStatus(200)
+						.withHeader("Content-Type", "text/plain")
+						.withHeader("Connection", "close")
+						.withBody("closing")
+						.withFixedDelay(200)));
+		stubFor(WireMock.get(urlPathMatching("/items/.*"))
+				.willReturn(new ResponseDefinitionBuilder()
+						.withStatus(200)
+						.withHeader("Content-Type", "text/plain")
+						.withBody("item")));
+
+		CompletableFuture<HttpResponse<String>> first = client.executeAsync(simpleRequest().path("/closing").pipelined(true));
+		Thread.sleep(50);
+		List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			futures.add(client.executeAsync(simpleRequest().path("/items/" + i).pipelined(true)));
+		}
+
+		assertEquals(first.get(5, TimeUnit.SECONDS).result(), "closing");
+		for (CompletableFuture<HttpResponse<String>> future : futures) {
+			assertEquals(future.get(5, TimeUnit.SECONDS).result(), "item");
+		}
+		assertTrue(pool.stats().pipelinedRequests() > 0);
+		assertTrue(pool.stats().newConnections() >= 2);
+
+		// The server closed the connection without reading the requests pipelined behind the first, so each was
+		// received once, on the connection it was retried on.
+		verify(1, getRequestedFor(urlEqualTo("/closing")));
+		for (int i = 0; i < 3; i++) {
+			verify(1, getRequestedFor(urlEqualTo("/items/" + i)));
+		}
+	}
+
+	@Test
+	public void testConnectionPool_failsPipelinedRequestsStuckBehindStalledResponse() throws Exception {
+		pool.maxTotalConnections(1).maxPipelinedRequests(4);
+		client.setReadTimeout(500);
+		stubFor(WireMock.get(urlPathEqualTo("/stalled"))
+				.willReturn(new ResponseDefinitionBuilder()
+						.withStatus(200)
+						.withHeader("Content-Type", "text/plain")
+						.withBody("stalled")
+						.withFixedDelay(2000)));
+		stubFor(WireMock.get(urlPathMatching("/items/.*"))
+				.willReturn(new ResponseDefinitionBuilder()
+						.withStatus(200)
+						.withHeader("Content-Type", "text/plain")
+						.withBody("item")));
+
+		CompletableFuture<HttpResponse<String>> first = client.executeAsync(simpleRequest().path("/stalled").pipelined(true));
+		Thread.sleep(50);
+		CompletableFuture<HttpResponse<String>> second = client.executeAsync(simpleRequest().path("/items/0").pipelined(true));
+
+		for (CompletableFuture<HttpResponse<String>> future : Arrays.asList(first, second)) {
+			try {
+				future.get(5, TimeUnit.SECONDS);
+				fail("Expected a read timeout");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof SocketTimeoutException, e.getCause().toString());
+			}
+		}
+
+		// Wait out the stall; neither request may have been sent a second time.
+		Thread.sleep(2000);
+		verify(1, getRequestedFor(urlEqualTo("/stalled")));
+		assertTrue(findAll(getRequestedFor(urlEqualTo("/items/0"))).size() <= 1);
+		assertEquals(pool.stats().pipelinedRequests(), 1);
+		assertEquals(pool.stats().newConnections(), 1);
+	}
+
+	@Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = "SSLSocketFactory was not set or failed to initialize")
+	public void testConnectionPool_throwsForHttpsRequestsWhenSSLSocketFactoryIsNull() throws IOException {
+		client = new HttpClient(() -> "https://localhost");
+		client.setConnectionPool(pool);
+		client.setSSLSocketFactory(null);
+
+		client.execute(simpleRequest());
+	}
+
+	private HttpRequest<String> simpleRequest() {
+		return new HttpRequest<>("/", "GET", String.class);
+	}
+}
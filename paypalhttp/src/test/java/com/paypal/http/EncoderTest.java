@@ -2,6 +2,8 @@ package com.paypal.http;
 
 import com.paypal.http.multipart.FormPart;
 import com.paypal.http.multipart.MultipartBody;
+import com.paypal.http.serializer.ElementIterator;
+import com.paypal.http.serializer.Projection;
 import org.testng.annotations.Test;
 
 import java.io.ByteArrayInputStream;
@@ -9,10 +11,12 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.zip.GZIPOutputStream;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.testng.AssertJUnit.*;
 
 public class EncoderTest {
@@ -91,6 +95,39 @@ public class EncoderTest {
 		assertEquals(s.name, "Brian Tree");
 	}
 
+	@Test
+	public void testEncoder_decode_json_withProjection() throws IOException {
+		String response = "{\"name\":\"Brian Tree\",\"number_of_animals\":12}";
+		Headers headers = new Headers();
+		headers.header("Content-Type", "application/json");
+
+		Encoder encoder = new Encoder();
+
+		Zoo s = encoder.deserializeResponse(new ByteArrayInputStream(response.getBytes()), Zoo.class, headers, Projection.of("/number_of_animals"));
+
+		assertNull(s.name);
+		assertEquals(Integer.valueOf(12), s.numberOfAnimals);
+	}
+
+	@Test
+	public void testEncoder_ndjson() throws IOException {
+		HttpRequest<Void> request = new HttpRequest<>("/", "POST", Void.class)
+				.header("Content-Type", "application/x-ndjson")
+				.requestBody(Arrays.asList(new Zoo("Shedd", 12, null), new Zoo("Monterey", 3, null)));
+
+		Encoder encoder = new Encoder();
+		byte[] body = encoder.serializeRequest(request);
+		assertEquals("{\"name\":\"Shedd\",\"number_of_animals\":12}\n{\"name\":\"Monterey\",\"number_of_animals\":3}\n", new String(body, UTF_8));
+
+		Headers headers = new Headers();
+		headers.header("Content-Type", "application/x-ndjson");
+		try (ElementIterator<Zoo> zoos = encoder.deserializeElements(new ByteArrayInputStream(body), Zoo.class, headers)) {
+			assertEquals("Shedd", zoos.next().name);
+			assertEquals(Integer.valueOf(3), zoos.next().numberOfAnimals);
+			assertFalse(zoos.hasNext());
+		}
+	}
+
 	@Test
 	public void testEncoder_decode_json_case_insensitive() throws IOException {
 		String response = "{\"name\":\"Brian Tree\"}";
@@ -139,6 +176,31 @@ public class EncoderTest {
 		assertArrayEquals(bos.toByteArray(), encoded);
 	}
 
+	@Test
+	public void testEncoder_serializeRequestBody_gzipHasUnknownLength() throws IOException {
+		HttpRequest<Void> request = new HttpRequest("/", "POST", Void.class);
+		request.header("Content-Type", "text/plain");
+		request.header("Content-Encoding", "gzip");
+		request.requestBody("Some plain text");
+
+		RequestBody body = new Encoder().serializeRequestBody(request);
+
+		assertEquals(-1, body.contentLength());
+		assertArrayEquals(new Encoder().serializeRequest(request), toByteArray(body));
+	}
+
+	@Test
+	public void testEncoder_serializeRequestBody_knowsLengthOfPlainBodies() throws IOException {
+		HttpRequest<Void> request = new HttpRequest("/", "POST", Void.class);
+		request.header("Content-Type", "text/plain");
+		request.requestBody("Some plain text");
+
+		RequestBody body = new Encoder().serializeRequestBody(request);
+
+		assertEquals(15, body.contentLength());
+		assertEquals("Some plain text", new String(toByteArray(body)));
+	}
+
 	@Test
 	public void testEncoder_decode_withGzip() throws IOException {
 		String rawData = "some plain text";
@@ -159,6 +221,30 @@ public class EncoderTest {
 		assertEquals(rawData, decoded);
 	}
 
+	@Test
+	public void testEncoder_decode_jsonWithGzip() throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		GZIPOutputStream gzos = new GZIPOutputStream(bos);
+		gzos.write("{\"name\":\"Brian Tree\"}".getBytes(UTF_8));
+		gzos.close();
+
+		Headers headers = new Headers();
+		headers.header("Content-Type", "application/json");
+		headers.header("Content-Encoding", "gzip");
+
+		Zoo s = new Encoder().deserializeResponse(new ByteArrayInputStream(bos.toByteArray()), Zoo.class, headers);
+
+		assertEquals("Brian Tree", s.name);
+	}
+
+	@Test
+	public void testEncoder_decode_emptyJsonBodyReturnsNull() throws IOException {
+		Headers headers = new Headers();
+		headers.header("Content-Type", "application/json");
+
+		assertNull(new Encoder().deserializeResponse(new ByteArrayInputStream(new byte[0]), Zoo.class, headers));
+	}
+
 	@Test
 	public void testEncoder_encode_list() throws IOException {
 		HttpRequest<Void> request = new HttpRequest("/", "POST", Void.class);
@@ -256,4 +342,10 @@ public class EncoderTest {
 
 		assertNotSame("", s);
 	}
+
+	private static byte[] toByteArray(RequestBody body) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		body.writeTo(bos);
+		return bos.toByteArray();
+	}
 }
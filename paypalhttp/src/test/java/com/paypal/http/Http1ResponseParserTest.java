@@ -0,0 +1,106 @@
+package com.paypal.http;
+
+import org.testng.annotations.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.testng.Assert.*;
+
+public class Http1ResponseParserTest {
+
+	@Test
+	public void testHttp1ResponseParser_parsesFixedLengthBody() throws IOException {
+		Http1ResponseParser parser = new Http1ResponseParser("GET");
+
+		assertTrue(parser.feed(bytes("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: 5\r\n\r\nhello")));
+		assertEquals(parser.statusCode(), 200);
+		assertEquals(parser.headers().header("content-type"), "text/plain");
+		assertEquals(new String(parser.body(), ISO_8859_1), "hello");
+		assertTrue(parser.keepAlive());
+	}
+
+	@Test
+	public void testHttp1ResponseParser_acceptsBytesOneAtATime() throws IOException {
+		Http1ResponseParser parser = new Http1ResponseParser("GET");
+		byte[] response = "HTTP/1.1 201 Created\r\nTransfer-Encoding: chunked\r\n\r\n3\r\nabc\r\n2;ext=1\r\nde\r\n0\r\nTrailer: x\r\n\r\n".getBytes(ISO_8859_1);
+
+		boolean complete = false;
+		for (int i = 0; i < response.length; i++) {
+			assertFalse(complete);
+			complete = parser.feed(ByteBuffer.wrap(response, i, 1));
+		}
+
+		assertTrue(complete);
+		assertEquals(parser.statusCode(), 201);
+		assertEquals(new String(parser.body(), ISO_8859_1), "abcde");
+	}
+
+	@Test
+	public void testHttp1ResponseParser_skipsInterimResponses() throws IOException {
+		Http1ResponseParser parser = new Http1ResponseParser("POST");
+
+		assertTrue(parser.feed(bytes("HTTP/1.1 100 Continue\r\n\r\nHTTP/1.1 204 No Content\r\n\r\n")));
+		assertEquals(parser.statusCode(), 204);
+		assertEquals(parser.body().length, 0);
+	}
+
+	@Test
+	public void testHttp1ResponseParser_ignoresContentLengthOfHeadResponses() throws IOException {
+		Http1ResponseParser parser = new Http1ResponseParser("HEAD");
+
+		assertTrue(parser.feed(bytes("HTTP/1.1 200 OK\r\nContent-Length: 100\r\n\r\n")));
+		assertEquals(parser.body().length, 0);
+	}
+
+	@Test
+	public void testHttp1ResponseParser_readsUnframedBodyUntilEndOfStream() throws IOException {
+		Http1ResponseParser parser = new Http1ResponseParser("GET");
+
+		assertFalse(parser.feed(bytes("HTTP/1.1 200 OK\r\n\r\nsome data")));
+		assertTrue(parser.endOfStream());
+		assertEquals(new String(parser.body(), ISO_8859_1), "some data");
+		assertFalse(parser.keepAlive());
+	}
+
+	@Test
+	public void testHttp1ResponseParser_honorsConnectionClose() throws IOException {
+		Http1ResponseParser parser = new Http1ResponseParser("GET");
+
+		assertTrue(parser.feed(bytes("HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 0\r\n\r\n")));
+		assertFalse(parser.keepAlive());
+	}
+
+	@Test(expectedExceptions = EOFException.class, expectedExceptionsMessageRegExp = "Unexpected end of stream")
+	public void testHttp1ResponseParser_throwsForTruncatedBody() throws IOException {
+		Http1ResponseParser parser = new Http1ResponseParser("GET");
+
+		parser.feed(bytes("HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\nshort"));
+		parser.endOfStream();
+	}
+
+	@Test
+	public void testHttp1ResponseParser_reportsWhetherResponseStarted() throws IOException {
+		Http1ResponseParser parser = new Http1ResponseParser("GET");
+		assertFalse(parser.started());
+
+		try {
+			parser.endOfStream();
+			fail("Expected EOFException");
+		} catch (EOFException e) {
+			assertEquals(e.getMessage(), "Connection closed by server before a response was received");
+		}
+	}
+
+	@Test(expectedExceptions = ProtocolException.class)
+	public void testHttp1ResponseParser_throwsForMalformedStatusLine() throws IOException {
+		new Http1ResponseParser("GET").feed(bytes("HTTP/1.1 OK\r\n\r\n"));
+	}
+
+	private static ByteBuffer bytes(String s) {
+		return ByteBuffer.wrap(s.getBytes(ISO_8859_1));
+	}
+}
@@ -0,0 +1,47 @@
+package com.paypal.http;
+
+import org.testng.annotations.Test;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import static org.testng.Assert.*;
+
+public class Http1Test {
+
+	@Test
+	public void testHttp1_requestHead_writesHeaders() throws MalformedURLException {
+		String head = Http1.requestHead("post", new URL("http://localhost:8080/items?page=2"),
+				new Headers().header("X-Request-Id", "abc 123"), true, 5);
+
+		assertEquals(head, "POST /items?page=2 HTTP/1.1\r\n"
+				+ "Host: localhost:8080\r\n"
+				+ "X-Request-Id: abc 123\r\n"
+				+ "Content-Length: 5\r\n"
+				+ "\r\n");
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testHttp1_requestHead_rejectsLineFeedInValue() throws MalformedURLException {
+		requestHead(new Headers().header("X-Note", "a\nInjected: yes"));
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testHttp1_requestHead_rejectsCarriageReturnInValue() throws MalformedURLException {
+		requestHead(new Headers().header("X-Note", "a\r\n\r\nGET /admin HTTP/1.1"));
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testHttp1_requestHead_rejectsLineBreakInName() throws MalformedURLException {
+		requestHead(new Headers().header("X-Note\r\nInjected", "yes"));
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testHttp1_requestHead_rejectsNameThatIsNotAToken() throws MalformedURLException {
+		requestHead(new Headers().header("X Note:", "yes"));
+	}
+
+	private static String requestHead(Headers headers) throws MalformedURLException {
+		return Http1.requestHead("GET", new URL("http://localhost/"), headers, false, 0);
+	}
+}
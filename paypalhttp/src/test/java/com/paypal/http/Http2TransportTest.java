@@ -0,0 +1,155 @@
+package com.paypal.http;
+
+import com.paypal.http.exceptions.HttpException;
+import com.paypal.http.utils.BasicWireMockHarness;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.testng.Assert.*;
+
+public class Http2TransportTest extends BasicWireMockHarness {
+
+	private HttpClient client;
+
+	@BeforeMethod
+	public void setup() {
+		super.setup();
+		client = new HttpClient(environment());
+	}
+
+	@Test
+	public void testHttp2Transport_isUnsupportedBeforeJava11() {
+		if (Http2Transport.isSupported()) {
+			throw new SkipException("Running on Java 11 or later");
+		}
+
+		try {
+			new Http2Transport();
+			fail("Expected UnsupportedOperationException");
+		} catch (UnsupportedOperationException expected) {}
+	}
+
+	@Test
+	public void testHttp2Transport_execute_decodesResponse() throws IOException {
+		requireHttp2Transport();
+
+		HttpRequest<Zoo> request = new HttpRequest<>("/zoo", "POST", Zoo.class)
+				.header(Headers.CONTENT_TYPE, "application/json")
+				.requestBody(new Zoo("Monterey Bay Aquarium", 1, null));
+		stub(request, new HttpResponse<>(new Headers().header("Content-Type", "application/json"), 201, new Zoo("Shedd", 2, null)));
+
+		HttpResponse<Zoo> response = client.execute(request);
+
+		assertEquals(response.statusCode(), 201);
+		assertEquals(response.result().name, "Shedd");
+		assertEquals(response.result().numberOfAnimals.intValue(), 2);
+		verify(postRequestedFor(urlEqualTo("/zoo"))
+				.withHeader("User-Agent", equalTo("Java HTTP/1.1")));
+	}
+
+	@Test
+	public void testHttp2Transport_execute_supportsPatch() throws IOException {
+		requireHttp2Transport();
+
+		HttpRequest<String> request = new HttpRequest<>("/", "PATCH", String.class);
+		stub(request, null);
+
+		assertEquals(client.execute(request).statusCode(), 200);
+	}
+
+	@Test
+	public void testHttp2Transport_execute_throwsHttpExceptionForErrorResponses() throws IOException {
+		requireHttp2Transport();
+
+		HttpRequest<String> request = new HttpRequest<>("/", "GET", String.class);
+		stub(request, new HttpResponse<>(new Headers().header("Content-Type", "text/plain"), 400, "bad request"));
+
+		try {
+			client.execute(request);
+			fail("Expected HttpException");
+		} catch (HttpException e) {
+			assertEquals(e.statusCode(), 400);
+			assertEquals(e.getMessage(), "bad request");
+		}
+	}
+
+	@Test
+	public void testHttp2Transport_executeAsync_decodesResponse() throws Exception {
+		requireHttp2Transport();
+
+		HttpRequest<Zoo> request = new HttpRequest<>("/zoo", "GET", Zoo.class);
+		stub(request, new HttpResponse<>(new Headers().header("Content-Type", "application/json"), 200, new Zoo("Shedd", 2, null)));
+
+		HttpResponse<Zoo> response = client.executeAsync(request).get(5, TimeUnit.SECONDS);
+
+		assertEquals(response.statusCode(), 200);
+		assertEquals(response.result().name, "Shedd");
+	}
+
+	@Test
+	public void testHttp2Transport_execute_streamsLargeBody() throws IOException {
+		requireHttp2Transport();
+
+		char[] chars = new char[200_000];
+		Arrays.fill(chars, 'a');
+		String body = new String(chars);
+		HttpRequest<String> request = new HttpRequest<>("/upload", "POST", String.class)
+				.header(Headers.CONTENT_TYPE, "text/plain")
+				.requestBody(body);
+		stub(request, null);
+
+		assertEquals(client.execute(request).statusCode(), 200);
+		verify(postRequestedFor(urlEqualTo("/upload"))
+				.withRequestBody(equalTo(body)));
+	}
+
+	@Test
+	public void testHttp2Transport_execute_streamsBodyOfUnknownLength() throws IOException {
+		requireHttp2Transport();
+
+		HttpRequest<String> request = new HttpRequest<>("/events", "POST", String.class)
+				.header(Headers.CONTENT_TYPE, "application/x-ndjson")
+				.requestBody(Arrays.asList("one", "two").stream());
+		stubFor(post(urlEqualTo("/events")).willReturn(aResponse().withStatus(204)));
+
+		assertEquals(client.execute(request).statusCode(), 204);
+		verify(postRequestedFor(urlEqualTo("/events"))
+				.withRequestBody(equalTo("\"one\"\n\"two\"\n")));
+	}
+
+	@Test
+	public void testHttp2Transport_appliesReadTimeoutOfEachRequest() throws Exception {
+		requireHttp2Transport();
+
+		stubFor(get(urlEqualTo("/fast")).willReturn(aResponse().withStatus(200)));
+		stubFor(get(urlEqualTo("/slow")).willReturn(aResponse().withStatus(200).withFixedDelay(2000)));
+
+		client.setReadTimeout(5000);
+		assertEquals(client.execute(new HttpRequest<>("/fast", "GET", String.class)).statusCode(), 200);
+
+		client.setReadTimeout(200);
+		try {
+			client.executeAsync(new HttpRequest<>("/slow", "GET", String.class)).get(1, TimeUnit.SECONDS);
+			fail("Expected the request to time out");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IOException, String.valueOf(e.getCause()));
+		} catch (TimeoutException e) {
+			fail("The read timeout of the second request was not applied");
+		}
+	}
+
+	private void requireHttp2Transport() {
+		if (!Http2Transport.isSupported()) {
+			throw new SkipException("Http2Transport requires Java 11 or later");
+		}
+		client.setTransport(new Http2Transport());
+	}
+}
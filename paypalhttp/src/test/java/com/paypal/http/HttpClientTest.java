@@ -13,11 +13,17 @@ import org.testng.annotations.Test;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLSocketFactory;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.HttpURLConnection;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.GZIPOutputStream;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
@@ -470,6 +476,278 @@ public class HttpClientTest extends BasicWireMockHarness {
 		}
 	}
 
+	@Test
+	public void testHttpClient_executeStreaming_exposesRawBody() throws IOException {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, new HttpResponse<>(new Headers().header("Content-Type", "text/plain"), 200, "a large report"));
+
+		try (StreamingHttpResponse<String> response = client.executeStreaming(request)) {
+			assertEquals(200, response.statusCode());
+			assertEquals("text/plain", response.headers().header("Content-Type"));
+
+			ByteArrayOutputStream sink = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4];
+			for (int count; (count = response.body().read(buffer)) != -1; ) {
+				sink.write(buffer, 0, count);
+			}
+			assertEquals("a large report", sink.toString("UTF-8"));
+		}
+	}
+
+	@Test
+	public void testHttpClient_executeStreaming_decodesResultLazily() throws IOException {
+		HttpRequest<Zoo> request = new HttpRequest<>("/", "GET", Zoo.class);
+		stub(request, new HttpResponse<>(new Headers().header("Content-Type", "application/json"), 200, new Zoo("Monterey Bay Aquarium", 1, null)));
+
+		try (StreamingHttpResponse<Zoo> response = client.executeStreaming(request)) {
+			Zoo zoo = response.result();
+			assertEquals("Monterey Bay Aquarium", zoo.name);
+			assertSame(zoo, response.result());
+		}
+	}
+
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void testHttpClient_executeStreaming_bodyCanOnlyBeConsumedOnce() throws IOException {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, null);
+
+		try (StreamingHttpResponse<String> response = client.executeStreaming(request)) {
+			response.result();
+			response.body();
+		}
+	}
+
+	@Test
+	public void testHttpClient_executeStreaming_throwsHttpExceptionForErrors() throws IOException {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, new HttpResponse<>(new Headers().header("Content-Type", "text/plain"), HTTP_NOT_FOUND, "not here"));
+
+		try {
+			client.executeStreaming(request);
+			fail("Expected HttpException");
+		} catch (HttpException e) {
+			assertEquals(HTTP_NOT_FOUND, e.statusCode());
+			assertEquals("not here", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testHttpClient_executeAll_returnsOutcomesInRequestOrder() throws Exception {
+		List<HttpRequest<String>> requests = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			HttpRequest<String> request = simpleRequest().path("/" + i);
+			stub(request, new HttpResponse<>(new Headers().header("Content-Type", "text/plain"), 200, "response " + i));
+			requests.add(request);
+		}
+
+		BatchResult result = client.executeAll(requests, 4);
+
+		assertEquals(20, result.outcomes().size());
+		assertEquals(20, result.successCount());
+		assertEquals(4, result.maxConcurrency());
+		for (int i = 0; i < 20; i++) {
+			BatchResult.Outcome outcome = result.outcomes().get(i);
+			assertSame(requests.get(i), outcome.request());
+			assertEquals("response " + i, outcome.response().result());
+		}
+		assertTrue(result.elapsed(TimeUnit.NANOSECONDS) >= result.maxLatency(TimeUnit.NANOSECONDS));
+	}
+
+	@Test
+	public void testHttpClient_executeAll_recordsFailuresWithoutStoppingTheBatch() throws Exception {
+		HttpRequest<String> failing = simpleRequest().path("/failing");
+		HttpRequest<String> succeeding = simpleRequest().path("/succeeding");
+		stub(failing, new HttpResponse<>(null, HTTP_UNAUTHORIZED, null));
+		stub(succeeding, null);
+
+		BatchResult result = client.executeAll(Arrays.asList(failing, succeeding), 2);
+
+		assertEquals(1, result.failureCount());
+		assertFalse(result.outcomes().get(0).isSuccess());
+		assertNull(result.outcomes().get(0).response());
+		assertEquals(HTTP_UNAUTHORIZED, ((HttpException) result.outcomes().get(0).exception()).statusCode());
+		assertTrue(result.outcomes().get(1).isSuccess());
+		assertEquals(200, result.outcomes().get(1).response().statusCode());
+	}
+
+	@Test
+	public void testHttpClient_executeAll_recordsErrorsAsFailures() throws Exception {
+		AssertionError error = new AssertionError("transport bug");
+		client.setTransport(request -> {
+			throw error;
+		});
+
+		BatchResult result = client.executeAll(Arrays.asList(simpleRequest(), simpleRequest()), 2);
+
+		assertEquals(2, result.failureCount());
+		assertSame(error, result.outcomes().get(0).exception());
+		assertSame(error, result.outcomes().get(1).exception());
+	}
+
+	@Test
+	public void testHttpClient_executeAll_neverExceedsMaxConcurrency() throws Exception {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		client.setTransport(request -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(5);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			inFlight.decrementAndGet();
+			return new TransportResponse(200, new Headers(), new ByteArrayInputStream(new byte[0]));
+		});
+
+		List<HttpRequest<Void>> requests = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			requests.add(new HttpRequest<>("/", "GET", Void.class));
+		}
+
+		BatchResult result = client.executeAll(requests, 3);
+
+		assertEquals(30, result.successCount());
+		assertTrue(maxInFlight.get() <= 3);
+	}
+
+	@Test
+	public void testHttpClient_executeAll_runsOnCallingThreadWhenExecutorRejects() throws Exception {
+		client.setExecutor(task -> {
+			throw new RejectedExecutionException("saturated");
+		});
+		HttpRequest<String> request = simpleRequest();
+		stub(request, null);
+
+		BatchResult result = client.executeAll(Arrays.asList(request, request, request), 3);
+
+		assertEquals(3, result.successCount());
+	}
+
+	@Test
+	public void testHttpClient_executeAll_handlesEmptyBatch() throws Exception {
+		BatchResult result = client.executeAll(Collections.<HttpRequest<?>>emptyList(), 4);
+
+		assertTrue(result.outcomes().isEmpty());
+		assertEquals(0, result.averageLatency(TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testHttpClient_executeAsync_completesWithResponse() throws Exception {
+		HttpRequest<String> request = simpleRequest();
+		HttpResponse<String> response = new HttpResponse<>(new Headers(), 200, "Here's the response");
+		response.headers().header("Content-Type", "text/plain");
+
+		stub(request, response);
+
+		HttpResponse<String> actualResponse = client.executeAsync(request).get(5, TimeUnit.SECONDS);
+		assertEquals(200, actualResponse.statusCode());
+		assertEquals("Here's the response", actualResponse.result());
+	}
+
+	@Test
+	public void testHttpClient_executeAsync_completesExceptionallyWithHttpException() throws Exception {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, new HttpResponse<>(null, HTTP_UNAUTHORIZED, null));
+
+		try {
+			client.executeAsync(request).get(5, TimeUnit.SECONDS);
+			fail("Expected the future to complete exceptionally");
+		} catch (ExecutionException ee) {
+			assertTrue(ee.getCause() instanceof HttpException);
+			assertEquals(HTTP_UNAUTHORIZED, ((HttpException) ee.getCause()).statusCode());
+		}
+	}
+
+	@Test
+	public void testHttpClient_executeAsync_runsInjectorsOnExecutor() throws Exception {
+		List<Runnable> tasks = new ArrayList<>();
+		client.setExecutor(tasks::add);
+
+		List<String> injectedOn = new ArrayList<>();
+		client.addInjector(request -> injectedOn.add(Thread.currentThread().getName()));
+
+		HttpRequest<String> request = simpleRequest();
+		stub(request, null);
+
+		CompletableFuture<HttpResponse<String>> future = client.executeAsync(request);
+		assertFalse(future.isDone());
+		assertTrue(injectedOn.isEmpty());
+		assertEquals(1, tasks.size());
+
+		tasks.get(0).run();
+
+		assertEquals(200, future.get().statusCode());
+		assertEquals(1, injectedOn.size());
+	}
+
+	@Test
+	public void testHttpClient_executeAllAsync_returnsFuturesInRequestOrder() throws Exception {
+		HttpRequest<String> first = simpleRequest().path("/first");
+		HttpRequest<String> second = simpleRequest().path("/second");
+		stub(first, new HttpResponse<>(new Headers().header("Content-Type", "text/plain"), 200, "first"));
+		stub(second, new HttpResponse<>(new Headers().header("Content-Type", "text/plain"), 200, "second"));
+
+		List<CompletableFuture<HttpResponse<?>>> futures = client.executeAllAsync(Arrays.asList(first, second));
+
+		assertEquals(2, futures.size());
+		assertEquals("first", futures.get(0).get(5, TimeUnit.SECONDS).result());
+		assertEquals("second", futures.get(1).get(5, TimeUnit.SECONDS).result());
+	}
+
+	@Test
+	public void testHttpClient_setTransport_sendsInjectedAndEncodedRequest() throws IOException {
+		List<TransportRequest> sent = new ArrayList<>();
+		client.setTransport(transportRequest -> {
+			sent.add(transportRequest);
+			Headers headers = new Headers().header("Content-Type", "application/json");
+			return new TransportResponse(201, headers, new ByteArrayInputStream("{\"name\":\"Brian Tree\"}".getBytes()));
+		});
+		client.addInjector(request -> request.header("Idempotency-Id", "abcd-uuid"));
+
+		HttpRequest<Zoo> request = new HttpRequest<>("/zoos", "POST", Zoo.class)
+				.header(Headers.CONTENT_TYPE, "text/plain")
+				.requestBody("some data");
+
+		HttpResponse<Zoo> response = client.execute(request);
+
+		assertEquals(201, response.statusCode());
+		assertEquals("Brian Tree", response.result().name);
+
+		TransportRequest transportRequest = sent.get(0);
+		assertEquals("POST", transportRequest.verb());
+		assertEquals(environment().baseUrl() + "/zoos", transportRequest.url().toString());
+		assertEquals("abcd-uuid", transportRequest.headers().header("Idempotency-Id"));
+		assertEquals("Java HTTP/1.1", transportRequest.headers().header(Headers.USER_AGENT));
+		assertEquals(9, transportRequest.body().contentLength());
+	}
+
+	@Test
+	public void testHttpClient_setTransport_throwsHttpExceptionForErrorResponses() throws IOException {
+		client.setTransport(transportRequest -> new TransportResponse(404, new Headers().header("Content-Type", "text/plain"),
+				new ByteArrayInputStream("not found".getBytes())));
+
+		try {
+			client.execute(simpleRequest());
+			fail("Expected HttpException");
+		} catch (HttpException e) {
+			assertEquals(404, e.statusCode());
+			assertEquals("not found", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testHttpClient_setConnectionPool_usesPooledTransport() {
+		ConnectionPool pool = new ConnectionPool();
+		client.setConnectionPool(pool);
+
+		assertTrue(client.getTransport() instanceof PooledTransport);
+		assertEquals(pool, client.getConnectionPool());
+
+		client.setConnectionPool(null);
+		assertTrue(client.getTransport() instanceof HttpURLConnectionTransport);
+		assertNull(client.getConnectionPool());
+	}
+
 	@DataProvider(name = "getVerbs")
 	public Object[][] getVerbs() {
 		return new Object[][]{
@@ -3,7 +3,9 @@ package com.paypal.http;
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
 
 public class HttpRequestTest {
 
@@ -15,4 +17,14 @@ public class HttpRequestTest {
 		assertNotNull(request.headers().header("key"));
 		assertEquals("value", request.headers().header("key"));
 	}
+
+	@Test
+	public void testHttpRequest_copy_keepsPipelinedFlag() {
+		HttpRequest<String> request = new HttpRequest<>("/", "GET", String.class);
+		assertFalse(request.pipelined());
+
+		request.pipelined(true);
+
+		assertTrue(request.copy().pipelined());
+	}
 }
@@ -0,0 +1,283 @@
+package com.paypal.http;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.paypal.http.exceptions.HttpException;
+import com.paypal.http.utils.BasicWireMockHarness;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509ExtendedTrustManager;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.testng.Assert.*;
+
+public class NioTransportTest extends BasicWireMockHarness {
+
+	private HttpClient client;
+	private NioTransport transport;
+
+	@BeforeMethod
+	public void setup() {
+		super.setup();
+		transport = new NioTransport(2);
+		client = new HttpClient(environment());
+		client.setTransport(transport);
+	}
+
+	@AfterMethod
+	public void closeTransport() {
+		transport.close();
+	}
+
+	@Test
+	public void testNioTransport_executesRequest() throws IOException {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, new HttpResponse<>(new Headers().header("Content-Type", "text/plain"), 200, "some data"));
+
+		HttpResponse<String> response = client.execute(request);
+
+		assertEquals(response.statusCode(), 200);
+		assertEquals(response.result(), "some data");
+		assertEquals(response.headers().header("Content-Type"), "text/plain");
+	}
+
+	@Test
+	public void testNioTransport_writesRequestBody() throws IOException {
+		HttpRequest<String> request = simpleRequest()
+				.verb("POST")
+				.header(Headers.CONTENT_TYPE, "application/json")
+				.requestBody(new Zoo("Monterey Bay Aquarium", 1, null));
+		stub(request, null);
+
+		client.execute(request);
+
+		verify(postRequestedFor(urlEqualTo("/"))
+				.withRequestBody(containing("\"name\":\"Monterey Bay Aquarium\""))
+				.withHeader("Content-Type", equalTo("application/json")));
+	}
+
+	@Test
+	public void testNioTransport_reusesConnections() throws IOException {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, null);
+
+		for (int i = 0; i < 3; i++) {
+			client.execute(request);
+		}
+
+		assertEquals(transport.stats().newConnections(), 1);
+		assertEquals(transport.stats().reusedConnections(), 2);
+		assertEquals(transport.stats().idleConnections(), 1);
+	}
+
+	@Test
+	public void testNioTransport_throwsHttpExceptionForErrors() throws IOException {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, new HttpResponse<>(new Headers().header("Content-Type", "text/plain"), 404, "not here"));
+
+		try {
+			client.execute(request);
+			fail("Expected HttpException");
+		} catch (HttpException e) {
+			assertEquals(e.statusCode(), 404);
+			assertEquals(e.getMessage(), "not here");
+		}
+	}
+
+	@Test
+	public void testNioTransport_executeAsync_runsManyRequestsConcurrently() throws Exception {
+		stubFor(WireMock.get(urlPathMatching("/items/.*"))
+				.willReturn(new ResponseDefinitionBuilder()
+						.withStatus(200)
+						.withHeader("Content-Type", "text/plain")
+						.withBody("item")));
+
+		List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			futures.add(client.executeAsync(simpleRequest().path("/items/" + i)));
+		}
+
+		for (CompletableFuture<HttpResponse<String>> future : futures) {
+			assertEquals(future.get(10, TimeUnit.SECONDS).result(), "item");
+		}
+		assertEquals(transport.stats().leasedConnections(), 0);
+	}
+
+	@Test
+	public void testNioTransport_executeAsync_completesExceptionallyWithHttpException() throws Exception {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, new HttpResponse<>(null, 401, null));
+
+		try {
+			client.executeAsync(request).get(5, TimeUnit.SECONDS);
+			fail("Expected the future to complete exceptionally");
+		} catch (ExecutionException ee) {
+			assertTrue(ee.getCause() instanceof HttpException);
+		}
+	}
+
+	@Test(expectedExceptions = SocketTimeoutException.class)
+	public void testNioTransport_throwsWhenReadTimesOut() throws IOException {
+		stubFor(WireMock.get(urlPathEqualTo("/"))
+				.willReturn(new ResponseDefinitionBuilder().withStatus(200).withFixedDelay(2000)));
+		client.setReadTimeout(200);
+
+		client.execute(simpleRequest());
+	}
+
+	@Test
+	public void testNioTransport_retriesWhenIdleConnectionWasClosed() throws IOException {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, null);
+		client.execute(request);
+
+		teardown();
+		super.setup();
+		stub(request, null);
+
+		assertEquals(client.execute(request).statusCode(), 200);
+		assertEquals(transport.stats().newConnections(), 2);
+	}
+
+	@Test
+	public void testNioTransport_doesNotRetryPostWhenReusedConnectionIsClosedAfterItWasSent() throws Exception {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, null);
+		client.execute(request);
+
+		stubFor(WireMock.post(urlPathEqualTo("/captures"))
+				.willReturn(new ResponseDefinitionBuilder().withFault(Fault.EMPTY_RESPONSE)));
+		HttpRequest<String> post = new HttpRequest<>("/captures", "POST", String.class)
+				.header(Headers.CONTENT_TYPE, "text/plain")
+				.requestBody("capture");
+
+		try {
+			client.execute(post);
+			fail("Expected the POST to fail rather than be sent again");
+		} catch (IOException expected) {
+		}
+
+		verify(1, postRequestedFor(urlPathEqualTo("/captures")));
+		assertEquals(transport.stats().newConnections(), 1);
+	}
+
+	@Test
+	public void testNioTransport_retriesGetWhenReusedConnectionIsClosedAfterItWasSent() throws Exception {
+		HttpRequest<String> request = simpleRequest();
+		stub(request, null);
+		client.execute(request);
+
+		stubFor(WireMock.get(urlPathEqualTo("/flaky"))
+				.willReturn(new ResponseDefinitionBuilder().withFault(Fault.EMPTY_RESPONSE)));
+
+		try {
+			client.execute(new HttpRequest<>("/flaky", "GET", String.class));
+			fail("Expected the GET to fail on both connections");
+		} catch (IOException expected) {
+		}
+
+		verify(2, getRequestedFor(urlPathEqualTo("/flaky")));
+		assertEquals(transport.stats().newConnections(), 2);
+	}
+
+	@Test
+	public void testNioTransport_rejectsLineBreaksInHeaderValues() throws Exception {
+		HttpRequest<String> request = simpleRequest().header("X-Note", "a\r\nX-Injected: yes");
+
+		try {
+			client.executeAsync(request).get(5, TimeUnit.SECONDS);
+			fail("Expected the request to be rejected");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException, String.valueOf(e.getCause()));
+		}
+
+		verify(0, getRequestedFor(urlPathEqualTo("/")));
+	}
+
+	@Test
+	public void testNioTransport_failsAsynchronouslyForUnknownHost() throws Exception {
+		HttpClient unknownHostClient = new HttpClient(() -> "http://unknown-host.invalid");
+		unknownHostClient.setTransport(transport);
+
+		try {
+			unknownHostClient.executeAsync(simpleRequest()).get(30, TimeUnit.SECONDS);
+			fail("Expected the request to fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof UnknownHostException, String.valueOf(e.getCause()));
+		}
+		assertEquals(transport.stats().totalConnections(), 0);
+	}
+
+	@Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = "NioTransport has been closed")
+	public void testNioTransport_throwsAfterClose() throws IOException {
+		transport.close();
+
+		client.execute(simpleRequest());
+	}
+
+	@Test
+	public void testNioTransport_speaksTls() throws Exception {
+		WireMockServer httpsServer = new WireMockServer(WireMockConfiguration.options().dynamicPort().dynamicHttpsPort());
+		httpsServer.start();
+		NioTransport tlsTransport = new NioTransport(1, trustAllContext());
+		try {
+			httpsServer.stubFor(WireMock.post(urlPathEqualTo("/secure"))
+					.willReturn(new ResponseDefinitionBuilder()
+							.withStatus(200)
+							.withHeader("Content-Type", "text/plain")
+							.withBody("secret")));
+
+			HttpClient tlsClient = new HttpClient(() -> "https://localhost:" + httpsServer.httpsPort());
+			tlsClient.setTransport(tlsTransport);
+
+			for (int i = 0; i < 2; i++) {
+				HttpRequest<String> request = simpleRequest().path("/secure").verb("POST")
+						.header(Headers.CONTENT_TYPE, "text/plain")
+						.requestBody("some data");
+				assertEquals(tlsClient.execute(request).result(), "secret");
+			}
+
+			assertEquals(tlsTransport.stats().newConnections(), 1);
+			httpsServer.verify(2, postRequestedFor(urlEqualTo("/secure")).withRequestBody(equalTo("some data")));
+		} finally {
+			tlsTransport.close();
+			httpsServer.stop();
+		}
+	}
+
+	private HttpRequest<String> simpleRequest() {
+		return new HttpRequest<>("/", "GET", String.class);
+	}
+
+	private static SSLContext trustAllContext() throws Exception {
+		SSLContext context = SSLContext.getInstance("TLS");
+		context.init(null, new TrustManager[] { new X509ExtendedTrustManager() {
+			public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) {}
+			public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) {}
+			public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {}
+			public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {}
+			public void checkClientTrusted(X509Certificate[] chain, String authType) {}
+			public void checkServerTrusted(X509Certificate[] chain, String authType) {}
+			public X509Certificate[] getAcceptedIssuers() { return new X509Certificate[0]; }
+		}}, null);
+		return context;
+	}
+}
@@ -0,0 +1,72 @@
+package com.paypal.http;
+
+import com.paypal.http.utils.BasicWireMockHarness;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+public class VirtualThreadsTest extends BasicWireMockHarness {
+
+	@Test
+	public void testVirtualThreads_newVirtualThreadExecutor_throwsWhenUnsupported() {
+		if (VirtualThreads.isSupported()) {
+			throw new SkipException("Running on Java 21 or later");
+		}
+
+		try {
+			VirtualThreads.newVirtualThreadExecutor();
+			fail("Expected UnsupportedOperationException");
+		} catch (UnsupportedOperationException expected) {}
+	}
+
+	@Test
+	public void testVirtualThreads_executeAllAsync_runsRequestsOnVirtualThreads() throws Exception {
+		if (!VirtualThreads.isSupported()) {
+			throw new SkipException("Virtual threads require Java 21 or later");
+		}
+
+		HttpRequest<String> request = new HttpRequest<>("/", "GET", String.class);
+		stub(request, null);
+
+		List<Boolean> injectedOnVirtualThread = new ArrayList<>();
+		ExecutorService executor = VirtualThreads.newVirtualThreadExecutor();
+		try {
+			HttpClient client = new HttpClient(environment());
+			client.setExecutor(executor);
+			client.addInjector(r -> {
+				synchronized (injectedOnVirtualThread) {
+					injectedOnVirtualThread.add(isVirtual(Thread.currentThread()));
+				}
+			});
+
+			List<HttpRequest<?>> requests = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				requests.add(request);
+			}
+
+			for (CompletableFuture<HttpResponse<?>> future : client.executeAllAsync(requests)) {
+				assertEquals(future.get(5, TimeUnit.SECONDS).statusCode(), 200);
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(injectedOnVirtualThread.size(), 20);
+		assertFalse(injectedOnVirtualThread.contains(false));
+	}
+
+	private static boolean isVirtual(Thread thread) {
+		try {
+			return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+		} catch (ReflectiveOperationException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.paypal.http.serializer;
+
+import com.paypal.http.Zoo;
+import com.paypal.http.exceptions.JsonParseException;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.*;
+
+public class JsonDocumentTest {
+
+	private static final String ORDER = "{\"id\": \"5O190127TN364715T\", \"status\": \"COMPLETED\", \"purchase_units\": [{"
+			+ "\"reference_id\": \"default\", \"amount\": {\"currency_code\": \"USD\", \"value\": 10.10}, "
+			+ "\"payments\": {\"captures\": [{\"id\": \"3C679366HH908993F\", \"final_capture\": true, \"fee\": null}]}}], "
+			+ "\"links\": [{\"href\": \"https://api.paypal.com/v2/checkout/orders/5O190127TN364715T\", \"rel\": \"self\"}], "
+			+ "\"caf\\u00e9\": 1, \"quote\\\"d\": 2}";
+
+	@Test
+	public void testJsonDocument_readsValuesByPath() throws IOException {
+		JsonDocument order = JsonDocument.parse(ORDER);
+
+		assertEquals(order.path("status").asString(), "COMPLETED");
+		assertEquals(order.path("purchase_units[0].payments.captures[0].id").asString(), "3C679366HH908993F");
+		assertTrue(order.path("purchase_units[0].payments.captures[0].final_capture").asBoolean());
+		assertTrue(order.path("purchase_units[0].payments.captures[0].fee").isNull());
+		assertEquals(order.path("purchase_units[0].amount.value").asBigDecimal(), new BigDecimal("10.10"));
+		assertEquals(order.path("purchase_units[0].amount.value").asDouble(), 10.1);
+		assertEquals(order.path("links[0].rel").asString(), "self");
+		assertEquals(order.root().get("caf\u00e9").asInt(), 1);
+		assertEquals(order.root().get("quote\"d").asLong(), 2);
+	}
+
+	@Test
+	public void testJsonDocument_returnsNullForMissingPaths() throws IOException {
+		JsonDocument order = JsonDocument.parse(ORDER);
+
+		assertNull(order.path("missing"));
+		assertNull(order.path("purchase_units[1].amount"));
+		assertNull(order.path("status.value"));
+		assertNull(order.path("id[0]"));
+		assertNull(order.root().get("stat"));
+	}
+
+	@Test
+	public void testJsonDocument_describesContainers() throws IOException {
+		JsonDocument order = JsonDocument.parse(ORDER);
+
+		assertEquals(order.root().type(), JsonToken.BEGIN_OBJECT);
+		assertEquals(order.root().size(), 6);
+		assertEquals(order.root().names(), Arrays.asList("id", "status", "purchase_units", "links", "caf\u00e9", "quote\"d"));
+		assertEquals(order.path("purchase_units").type(), JsonToken.BEGIN_ARRAY);
+		assertEquals(order.path("purchase_units").size(), 1);
+		assertEquals(order.path("purchase_units[0].amount").toString(), "{\"currency_code\": \"USD\", \"value\": 10.10}");
+		assertEquals(order.path("purchase_units[0].payments.captures[0].final_capture").toString(), "true");
+	}
+
+	@Test
+	public void testJsonDocument_decodesSubtrees() throws IOException {
+		JsonDocument document = JsonDocument.parse("{\"zoos\": [{\"name\": \"Monterey\", \"number_of_animals\": 3}], \"tags\": [\"a\", \"b\"]}");
+
+		Zoo zoo = document.path("zoos[0]").as(Zoo.class);
+		assertEquals(zoo.name, "Monterey");
+		assertEquals(zoo.numberOfAnimals, Integer.valueOf(3));
+		assertEquals(document.path("tags").as(List.class), Arrays.asList("a", "b"));
+		assertEquals(document.path("zoos[0].number_of_animals").as(Integer.class), Integer.valueOf(3));
+		assertEquals(((Map<?, ?>) document.path("zoos[0]").value()).get("name"), "Monterey");
+	}
+
+	@Test
+	public void testJsonDocument_decodedByJson() throws IOException {
+		JsonDocument document = new Json().decode(new ByteArrayInputStream(ORDER.getBytes(UTF_8)), JsonDocument.class);
+
+		assertEquals(document.path("id").asString(), "5O190127TN364715T");
+	}
+
+	@Test(expectedExceptions = JsonParseException.class)
+	public void testJsonDocument_throwsForMalformedJson() throws IOException {
+		JsonDocument.parse("{\"id\": \"5O190127TN364715T\", \"links\": [}");
+	}
+
+	@Test(expectedExceptions = JsonParseException.class)
+	public void testJsonDocument_throwsForTrailingContent() throws IOException {
+		JsonDocument.parse("{} {}");
+	}
+}
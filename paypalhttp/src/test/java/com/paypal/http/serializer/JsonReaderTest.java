@@ -0,0 +1,240 @@
+package com.paypal.http.serializer;
+
+import com.paypal.http.exceptions.JsonParseException;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.*;
+
+public class JsonReaderTest {
+
+	private static JsonReader reader(String json) {
+		return new JsonReader(new ByteArrayInputStream(json.getBytes(UTF_8)));
+	}
+
+	@Test
+	public void testJsonReader_readsTokens() throws IOException {
+		JsonReader reader = reader("{\"id\": \"5O190127TN364715T\", \"amount\": 10.99, \"quantity\": -2, \"captured\": true, \"note\": null, \"links\": [1, 2]}");
+
+		assertEquals(reader.peek(), JsonToken.BEGIN_OBJECT);
+		reader.beginObject();
+		assertEquals(reader.peek(), JsonToken.NAME);
+		assertEquals(reader.nextName(), "id");
+		assertEquals(reader.peek(), JsonToken.STRING);
+		assertEquals(reader.nextString(), "5O190127TN364715T");
+		assertEquals(reader.nextName(), "amount");
+		assertEquals(reader.peek(), JsonToken.NUMBER);
+		assertEquals(reader.nextDouble(), 10.99);
+		assertEquals(reader.nextName(), "quantity");
+		assertEquals(reader.nextInt(), -2);
+		assertEquals(reader.nextName(), "captured");
+		assertEquals(reader.peek(), JsonToken.BOOLEAN);
+		assertTrue(reader.nextBoolean());
+		assertEquals(reader.nextName(), "note");
+		assertEquals(reader.peek(), JsonToken.NULL);
+		reader.nextNull();
+		assertEquals(reader.nextName(), "links");
+		reader.beginArray();
+		assertTrue(reader.hasNext());
+		assertEquals(reader.nextLong(), 1L);
+		assertEquals(reader.nextString(), "2");
+		assertFalse(reader.hasNext());
+		assertEquals(reader.peek(), JsonToken.END_ARRAY);
+		reader.endArray();
+		assertFalse(reader.hasNext());
+		reader.endObject();
+		assertEquals(reader.peek(), JsonToken.END_DOCUMENT);
+	}
+
+	@Test
+	public void testJsonReader_skipValue_skipsNestedValuesAndNames() throws IOException {
+		JsonReader reader = reader("{\"skipped\": {\"a\": [1, {\"b\": \"]}\"}, [true]], \"c\": null}, \"name\": \"kept\", \"tail\": [[], {}]}");
+
+		reader.beginObject();
+		reader.skipValue();
+		assertEquals(reader.nextName(), "name");
+		assertEquals(reader.nextString(), "kept");
+		assertEquals(reader.nextName(), "tail");
+		reader.skipValue();
+		reader.endObject();
+		assertEquals(reader.peek(), JsonToken.END_DOCUMENT);
+	}
+
+	@Test
+	public void testJsonReader_readsFromReader() throws IOException {
+		JsonReader reader = new JsonReader(new StringReader("[\"Z\u00fcrich\", \"\ud83d\udcb3\", 3]"));
+
+		reader.beginArray();
+		assertEquals(reader.nextString(), "Z\u00fcrich");
+		assertEquals(reader.nextString(), "\ud83d\udcb3");
+		assertEquals(reader.nextLong(), 3L);
+		reader.endArray();
+		assertEquals(reader.peek(), JsonToken.END_DOCUMENT);
+	}
+
+	@Test
+	public void testJsonReader_readsLargeStreamInConstantMemory() throws IOException {
+		int records = 100000;
+		byte[] record = "{\"id\":\"5O190127TN364715T\",\"status\":\"COMPLETED\",\"amount\":{\"currency_code\":\"USD\",\"value\":\"10.99\"}}".getBytes(UTF_8);
+
+		// Generates a list of records as it is read, so the document never exists in memory as a whole.
+		InputStream stream = new InputStream() {
+			private int index = -1;
+			private int offset;
+
+			@Override
+			public int read() {
+				if (index == -1) {
+					index++;
+					return '[';
+				} else if (index == records) {
+					index++;
+					return ']';
+				} else if (index > records) {
+					return -1;
+				} else if (offset == record.length) {
+					offset = 0;
+					return ++index < records ? ',' : read();
+				}
+
+				return record[offset++];
+			}
+		};
+
+		List<String> statuses = new ArrayList<>();
+		int count = 0;
+		try (JsonReader reader = new JsonReader(stream)) {
+			reader.beginArray();
+			while (reader.hasNext()) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					if (reader.nextName().equals("status") && statuses.isEmpty()) {
+						statuses.add(reader.nextString());
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+				count++;
+			}
+			reader.endArray();
+		}
+
+		assertEquals(count, records);
+		assertEquals(statuses.get(0), "COMPLETED");
+	}
+
+	@Test(expectedExceptions = JsonParseException.class)
+	public void testJsonReader_throwsForUnexpectedToken() throws IOException {
+		JsonReader reader = reader("{\"id\": 1}");
+		reader.beginObject();
+		reader.nextName();
+		reader.nextString();
+		reader.endArray();
+	}
+
+	@Test(expectedExceptions = JsonParseException.class)
+	public void testJsonReader_nextInt_throwsForFraction() throws IOException {
+		JsonReader reader = reader("[1.5]");
+		reader.beginArray();
+		reader.nextInt();
+	}
+
+	@Test
+	public void testJsonReader_close_closesStream() throws IOException {
+		AtomicBoolean closed = new AtomicBoolean();
+		JsonReader reader = new JsonReader(new ByteArrayInputStream("[]".getBytes(UTF_8)) {
+			@Override
+			public void close() {
+				closed.set(true);
+			}
+		});
+
+		reader.close();
+
+		assertTrue(closed.get());
+	}
+
+	@Test
+	public void testJsonReader_nextNumber_matchesDoubleParsing() throws IOException {
+		String[] numbers = {
+				"0", "-0", "10.99", "-10.99", "0.1", "0.30000000000000004", "1.7976931348623157e308", "4.9e-324",
+				"2.2250738585072014E-308", "123456789012345.678", "9007199254740993.5", "1e22", "1e23", "-1.5e-7",
+				"3.14159265358979323846264338327950288", "0.000000000000000000000000000001", "12345678901234567890.5",
+				"9223372036854775807", "-9223372036854775808", "5e+2", "1E2"
+		};
+
+		for (String number : numbers) {
+			JsonReader reader = reader("[" + number + "]");
+			reader.beginArray();
+			Number read = reader.nextNumber();
+
+			if (number.contains(".") || number.contains("e") || number.contains("E")) {
+				assertEquals(read, Double.parseDouble(number), number);
+			} else {
+				assertEquals(read, Long.parseLong(number), number);
+			}
+		}
+	}
+
+	@Test
+	public void testJsonReader_nextNumber_overflowsToBigDecimal() throws IOException {
+		JsonReader reader = reader("[9223372036854775808, -123456789012345678901234567890, 1e400]");
+		reader.beginArray();
+
+		assertEquals(reader.nextNumber(), new BigDecimal("9223372036854775808"));
+		assertEquals(reader.nextNumber(), new BigDecimal("-123456789012345678901234567890"));
+		assertEquals(reader.nextNumber(), new BigDecimal("1e400"));
+	}
+
+	@Test
+	public void testJsonReader_nextBigDecimal_keepsTheWrittenValue() throws IOException {
+		JsonReader reader = reader("{\"value\": 10.10, \"rate\": 0.1e1, \"text\": 10.10}");
+		reader.beginObject();
+
+		reader.nextName();
+		assertEquals(reader.nextBigDecimal().toPlainString(), "10.10");
+		reader.nextName();
+		assertEquals(reader.nextBigDecimal(), new BigDecimal("0.1e1"));
+		reader.nextName();
+		assertEquals(reader.nextString(), "10.10");
+	}
+
+	@Test(expectedExceptions = JsonParseException.class)
+	public void testJsonReader_nextNumber_throwsForMissingExponentDigits() throws IOException {
+		JsonReader reader = reader("[1.5e]");
+		reader.beginArray();
+		reader.nextNumber();
+	}
+
+	@Test
+	public void testJsonReader_nextName_returnsSharedNames() throws IOException {
+		StringBuilder longName = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			longName.append('k');
+		}
+
+		JsonReader first = reader("{\"currency_code\": \"USD\", \"" + longName + "\": 1, \"caf\\u00e9\": 2}");
+		JsonReader second = reader("{\"currency_code\": \"EUR\", \"" + longName + "\": 1, \"caf\\u00e9\": 2}");
+		first.beginObject();
+		second.beginObject();
+
+		assertSame(first.nextName(), second.nextName());
+		first.skipValue();
+		second.skipValue();
+		assertEquals(first.nextName(), longName.toString());
+		assertEquals(second.nextName(), longName.toString());
+		first.skipValue();
+		second.skipValue();
+		assertEquals(first.nextName(), "caf\u00e9");
+	}
+}
@@ -8,13 +8,24 @@ import com.paypal.http.exceptions.JsonParseException;
 import com.paypal.http.exceptions.SerializeException;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.testng.Assert.*;
 
 public class JsonTest {
@@ -44,12 +55,24 @@ public class JsonTest {
                 fish
         );
 
-        String expected = "{\"name\":\"Monterey Bay Aquarium\",\"animal\":{\"locales\":[\"ocean\",\"lake\"],\"kind\":\"swimmy\",\"carnivorous\":false,\"weight\":10.0,\"age\":3,\"appendages\":{\"Dorsal fin\":{\"size\":2,\"location\":\"back\"},\"Ventral fin\":{\"size\":2,\"location\":\"front\"}}},\"number_of_animals\":1}";
+        String expected = "{\"name\":\"Monterey Bay Aquarium\",\"number_of_animals\":1,\"animal\":{\"kind\":\"swimmy\",\"age\":3,\"weight\":10.0,\"appendages\":{\"Dorsal fin\":{\"location\":\"back\",\"size\":2},\"Ventral fin\":{\"location\":\"front\",\"size\":2}},\"locales\":[\"ocean\",\"lake\"],\"carnivorous\":false}}";
 
         String s = new Json().serialize(zoo);
         assertEquals(s, expected);
     }
 
+	@Test
+	public void testJson_serializesToStream() throws IOException {
+		Map<String, Object> map = new HashMap<>();
+		map.put("name", "Z\u00fcrich Zoo");
+		map.put("open", true);
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		new Json().serialize(map, os);
+
+		assertEquals(new String(os.toByteArray(), UTF_8), new Json().serialize(map));
+	}
+
     @Test()
     public void testJson_serializesNestedMaps() throws SerializeException {
         HashMap<String, Object> map = new HashMap<>();
@@ -85,6 +108,28 @@ public class JsonTest {
         assertEquals(actual, expected);
     }
 
+	@Test
+	public void testJson_serializesModelsInDeclarationOrderWithoutNulls() throws IOException {
+		Counter counter = new Counter();
+		counter.count = 3;
+		counter.samples = new ArrayList<>();
+		counter.samples.add(1);
+		counter.samples.add(2);
+
+		assertEquals(new Json().serialize(counter), "{\"count\":3,\"total\":0,\"ratio\":0.0,\"samples\":[1,2]}");
+	}
+
+	@Test
+	public void testJson_serializesModelsThatRoundTrip() throws IOException {
+		Zoo zoo = new Zoo("Monterey Bay Aquarium", 1, new Zoo.Animal("swimmy", 3, 10, new Zoo.Fins(), null, true));
+
+		String json = new Json().serialize(zoo);
+		Zoo decoded = new Json().decode(json, Zoo.class);
+
+		assertEquals(new Json().serialize(decoded), json);
+		assertEquals(decoded.animal.appendages.ventralFin.location, "Ventral fin");
+	}
+
     /* Deserialize */
 
     @Test(expectedExceptions = JsonParseException.class)
@@ -324,6 +369,112 @@ public class JsonTest {
 		assertEquals(true, sheddAq.animal.carnivorous.booleanValue());
 	}
 
+	@Test
+	public void testJson_deserialize_listInParallel() throws IOException {
+		StringBuilder serializedZoos = new StringBuilder("[null");
+		for (int i = 0; i < 1000; i++) {
+			serializedZoos.append(", {\"name\": \"zoo-").append(i).append("\", \"number_of_animals\": ").append(i)
+					.append(", \"animal\": {\"kind\": \"swimmy\", \"locales\": [\"ocean\"]}}");
+		}
+		serializedZoos.append("]");
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			Json json = new Json().parallel(pool).parallelThreshold(100);
+			ZooList zoos = json.decode(new ByteArrayInputStream(serializedZoos.toString().getBytes(UTF_8)), ZooList.class);
+
+			assertEquals(zoos.size(), 1001);
+			assertNull(zoos.get(0));
+			for (int i = 0; i < 1000; i++) {
+				Zoo zoo = zoos.get(i + 1);
+				assertEquals(zoo.name, "zoo-" + i);
+				assertEquals(zoo.numberOfAnimals.intValue(), i);
+				assertEquals(zoo.animal.locales.get(0), "ocean");
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testJson_deserialize_listBelowParallelThreshold() throws IOException {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			ZooList zoos = new Json().parallel(pool).decode("[{\"name\": \"Shedd\"}, {\"name\": \"Monterey\"}]", ZooList.class);
+
+			assertEquals(zoos.size(), 2);
+			assertEquals(zoos.get(1).name, "Monterey");
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test(expectedExceptions = JsonParseException.class)
+	public void testJson_deserialize_listInParallel_throwsElementErrors() throws IOException {
+		StringBuilder serializedZoos = new StringBuilder("[");
+		for (int i = 0; i < 200; i++) {
+			serializedZoos.append("{\"number_of_animals\": ").append(i == 150 ? "\"twelve\"" : "12").append("},");
+		}
+		serializedZoos.setLength(serializedZoos.length() - 1);
+		serializedZoos.append("]");
+
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			new Json().parallel(pool).parallelThreshold(10).decode(serializedZoos.toString(), ZooList.class);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testJson_decodeElements_decodesOneElementAtATime() throws IOException {
+		String serializedZoos = "[{\"name\": \"Shedd\", \"number_of_animals\": 12}, null, {\"name\": \"Monterey\"}]";
+
+		List<Zoo> zoos = new ArrayList<>();
+		try (ElementIterator<Zoo> elements = new Json().decodeElements(new ByteArrayInputStream(serializedZoos.getBytes(UTF_8)), Zoo.class)) {
+			while (elements.hasNext()) {
+				zoos.add(elements.next());
+			}
+			assertFalse(elements.hasNext());
+		}
+
+		assertEquals(zoos.size(), 3);
+		assertEquals(zoos.get(0).name, "Shedd");
+		assertEquals(zoos.get(0).numberOfAnimals.intValue(), 12);
+		assertNull(zoos.get(1));
+		assertEquals(zoos.get(2).name, "Monterey");
+	}
+
+	@Test
+	public void testJson_decodeElements_closesStreamWhenStreamIsClosed() throws IOException {
+		AtomicBoolean closed = new AtomicBoolean();
+		InputStream body = new ByteArrayInputStream("[\"ocean\", \"lake\", \"river\"]".getBytes(UTF_8)) {
+			@Override
+			public void close() {
+				closed.set(true);
+			}
+		};
+
+		try (Stream<String> locales = new Json().decodeElements(body, String.class).stream()) {
+			assertEquals(locales.limit(2).collect(Collectors.toList()), Arrays.asList("ocean", "lake"));
+			assertFalse(closed.get());
+		}
+
+		assertTrue(closed.get());
+	}
+
+	@Test(expectedExceptions = JsonParseException.class)
+	public void testJson_decodeElements_throwsForObjects() throws IOException {
+		new Json().decodeElements(new ByteArrayInputStream("{\"name\": \"Shedd\"}".getBytes(UTF_8)), Zoo.class);
+	}
+
+	@Test(expectedExceptions = UncheckedIOException.class)
+	public void testJson_decodeElements_throwsForMalformedElements() throws IOException {
+		ElementIterator<Zoo> elements = new Json().decodeElements(new ByteArrayInputStream("[{\"name\": \"Shedd\"}, {\"name\" 1}]".getBytes(UTF_8)), Zoo.class);
+		elements.next();
+		elements.next();
+	}
+
     @Test
     public void testJson_deserialize_deserializesRawList() throws IOException {
 		String serializedZoo = "[\"name\",\"Monterey Bay Aquarium\"]";
@@ -417,4 +568,189 @@ public class JsonTest {
 		Map<String, Object> deserialized = new Json().decode(json, Map.class);
 		assertNotNull(deserialized.get("transaction_details"));
 	}
+
+	@Test
+	public void testJson_deserialize_parsesNegativeNumbers() throws IOException {
+		String json = "{\"balance\": -12, \"rate\": -0.5, \"big\": 9223372036854775807}";
+		Map<String, Object> deserialized = new Json().decode(json, Map.class);
+
+		assertEquals(deserialized.get("balance"), -12L);
+		assertEquals(deserialized.get("rate"), -0.5);
+		assertEquals(deserialized.get("big"), Long.MAX_VALUE);
+	}
+
+	@Test
+	public void testJson_deserialize_parsesDeeplyNestedJson() throws IOException {
+		int depth = 500;
+		StringBuilder json = new StringBuilder();
+		for (int i = 0; i < depth; i++) {
+			json.append("{\"child\":[");
+		}
+		json.append("\"leaf\"");
+		for (int i = 0; i < depth; i++) {
+			json.append("]}");
+		}
+
+		Object value = new Json().decode(json.toString(), Map.class);
+		for (int i = 0; i < depth; i++) {
+			value = ((List) ((Map) value).get("child")).get(0);
+		}
+
+		assertEquals(value, "leaf");
+	}
+
+	@Test
+	public void testJson_deserialize_stringEndingInEscapedBackslash() throws IOException {
+		String json = "{\"path\": \"C:\\\\\", \"next\": 1}";
+		Map<String, Object> deserialized = new Json().decode(json, Map.class);
+
+		assertEquals(deserialized.get("path"), "C:\\");
+		assertEquals(deserialized.get("next"), 1L);
+	}
+
+	@Test(expectedExceptions = JsonParseException.class)
+	public void testJson_deserialize_throwsForTrailingContent() throws IOException {
+		new Json().decode("{\"key\": 1} {\"key\": 2}", Map.class);
+	}
+
+	@Test(expectedExceptions = JsonParseException.class)
+	public void testJson_deserialize_throwsForUnterminatedString() throws IOException {
+		new Json().decode("{\"key\": \"value}", Map.class);
+	}
+
+	@Test
+	public void testJson_decodeStream_readsAcrossBufferBoundaries() throws IOException {
+		StringBuilder longValue = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			longValue.append("caf\u00e9 ");
+		}
+		String json = "{\"name\": \"Z\u00fcrich \\\"Zoo\\\"\", \"long\": \"" + longValue + "\", \"count\": -1234567890123456789, \"rate\": 1.5e3, \"open\": true}";
+
+		// Hand out one byte per read, so that every token is split over several refills of the parser's buffer.
+		InputStream stream = new ByteArrayInputStream(json.getBytes(UTF_8)) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				return super.read(b, off, Math.min(len, 1));
+			}
+		};
+
+		Map<String, Object> deserialized = new Json().decode(stream, Map.class);
+
+		assertEquals(deserialized.get("name"), "Z\u00fcrich \"Zoo\"");
+		assertEquals(deserialized.get("long"), longValue.toString());
+		assertEquals(deserialized.get("count"), -1234567890123456789L);
+		assertEquals(deserialized.get("rate"), 1500.0);
+		assertEquals(deserialized.get("open"), true);
+	}
+
+	@Model
+	public static class Counter {
+
+		@SerializedName("count")
+		public int count;
+
+		@SerializedName("total")
+		public long total;
+
+		@SerializedName("ratio")
+		public double ratio;
+
+		@SerializedName(value = "samples", listClass = Integer.class)
+		public List<Integer> samples;
+
+		@SerializedName("labels")
+		public Map<String, Object> labels;
+	}
+
+	@Test
+	public void testJson_deserialize_bindsModelFieldsDirectly() throws IOException {
+		String json = "{\"count\": 3, \"total\": 9000000000, \"ratio\": 2, \"samples\": [1, 2, 3], \"labels\": {\"env\": \"live\"}}";
+
+		Counter counter = new Json().decode(json, Counter.class);
+
+		assertEquals(counter.count, 3);
+		assertEquals(counter.total, 9000000000L);
+		assertEquals(counter.ratio, 2.0);
+		assertEquals(counter.samples.get(2), Integer.valueOf(3));
+		assertEquals(counter.labels.get("env"), "live");
+	}
+
+	@Test
+	public void testJson_deserialize_skipsUnknownKeys() throws IOException {
+		String json = "{\"extra\": {\"nested\": [1, {\"deep\": null}]}, \"name\": \"Monterey\", \"more\": [true]}";
+
+		Zoo zoo = new Json().decode(json, Zoo.class);
+
+		assertEquals(zoo.name, "Monterey");
+		assertNull(zoo.animal);
+	}
+
+	@Test(expectedExceptions = JsonParseException.class)
+	public void testJson_deserialize_throwsForMismatchedFieldType() throws IOException {
+		new Json().decode("{\"number_of_animals\": \"twelve\"}", Zoo.class);
+	}
+
+	@Model
+	public static class Payment {
+
+		@SerializedName("amount")
+		public BigDecimal amount;
+
+		@SerializedName("fee")
+		public String fee;
+
+		@SerializedName("rate")
+		public Object rate;
+	}
+
+	@Test
+	public void testJson_deserialize_bindsExactDecimalsToBigDecimalAndStringFields() throws IOException {
+		Payment payment = new Json().decode("{\"amount\": 10.10, \"fee\": 0.30, \"rate\": 0.5}", Payment.class);
+
+		assertEquals(payment.amount.toPlainString(), "10.10");
+		assertEquals(payment.fee, "0.30");
+		assertEquals(payment.rate, 0.5);
+	}
+
+	@Test
+	public void testJson_deserialize_decimalModes() throws IOException {
+		String json = "{\"value\": 10.10, \"count\": 3}";
+
+		Map<String, Object> doubles = new Json().decode(json, Map.class);
+		Map<String, Object> decimals = new Json().decimals(DecimalMode.BIG_DECIMAL).decode(json, Map.class);
+		Map<String, Object> text = new Json().decimals(DecimalMode.TEXT).decode(json, Map.class);
+		Payment payment = new Json().decimals(DecimalMode.TEXT).decode("{\"rate\": 0.5}", Payment.class);
+
+		assertEquals(doubles.get("value"), 10.1);
+		assertEquals(decimals.get("value"), new BigDecimal("10.10"));
+		assertEquals(text.get("value"), "10.10");
+		assertEquals(text.get("count"), 3L);
+		assertEquals(payment.rate, "0.5");
+	}
+
+	@Test
+	public void testJson_deserialize_unescapesStrings() throws IOException {
+		String json = "{\"text\": \"quote \\\" backslash \\\\ slash \\/ \\b\\f\\n\\r\\t \\u00e9\\u20AC \\ud83d\\ude00 \\ud800x\", \"caf\\u00e9\": 1}";
+
+		Map<String, Object> deserialized = new Json().decode(json, Map.class);
+
+		assertEquals(deserialized.get("text"), "quote \" backslash \\ slash / \b\f\n\r\t \u00e9\u20ac \ud83d\ude00 \ufffdx");
+		assertEquals(deserialized.get("caf\u00e9"), 1L);
+	}
+
+	@Test(expectedExceptions = JsonParseException.class)
+	public void testJson_deserialize_throwsForInvalidEscape() throws IOException {
+		new Json().decode("{\"text\": \"\\x\"}", Map.class);
+	}
+
+	@Test
+	public void testJson_serialize_escapesStrings() throws IOException {
+		Map<String, Object> map = new HashMap<>();
+		map.put("text", "quote \" backslash \\ slash / \n\t\u0001 \u00e9");
+
+		String serialized = new Json().serialize(map);
+
+		assertEquals(serialized, "{\"text\":\"quote \\\" backslash \\\\ slash / \\n\\t\\u0001 \u00e9\"}");
+		assertEquals(new Json().decode(serialized, Map.class), map);
+	}
 }
@@ -0,0 +1,98 @@
+package com.paypal.http.serializer;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.*;
+
+public class JsonWriterTest {
+
+	@Test
+	public void testJsonWriter_writesDocument() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try (JsonWriter writer = new JsonWriter(os)) {
+			writer.beginObject()
+					.name("id").value("5O190127TN364715T")
+					.name("amount").value(new BigDecimal("10.99"))
+					.name("quantity").value(-2)
+					.name("rate").value(0.5)
+					.name("captured").value(true)
+					.name("note").nullValue()
+					.name("links").beginArray().value(Long.MIN_VALUE).beginObject().endObject().beginArray().endArray().endArray()
+					.endObject();
+		}
+
+		assertEquals(new String(os.toByteArray(), UTF_8), "{\"id\":\"5O190127TN364715T\",\"amount\":10.99,\"quantity\":-2,\"rate\":0.5,\"captured\":true,\"note\":null,\"links\":[-9223372036854775808,{},[]]}");
+	}
+
+	@Test
+	public void testJsonWriter_encodesUtf8() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try (JsonWriter writer = new JsonWriter(os)) {
+			writer.beginArray().value("Z\u00fcrich \u20ac \ud83d\udcb3").endArray();
+		}
+
+		assertEquals(os.toByteArray(), "[\"Z\u00fcrich \u20ac \ud83d\udcb3\"]".getBytes(UTF_8));
+	}
+
+	@Test
+	public void testJsonWriter_writesDocumentsLargerThanItsBuffer() throws IOException {
+		StringBuilder value = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			value.append("caf\u00e9 ");
+		}
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try (JsonWriter writer = new JsonWriter(os)) {
+			writer.beginArray();
+			for (int i = 0; i < 3; i++) {
+				writer.value(value.toString());
+			}
+			writer.endArray();
+		}
+
+		String expected = "[\"" + value + "\",\"" + value + "\",\"" + value + "\"]";
+		assertEquals(new String(os.toByteArray(), UTF_8), expected);
+	}
+
+	@Test
+	public void testJsonWriter_escapesLongStringsAcrossBufferFlushes() throws IOException {
+		StringBuilder value = new StringBuilder();
+		StringBuilder escaped = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			value.append("line \"").append(i).append("\"\n\u00e9\ud83d\ude00");
+			escaped.append("line \\\"").append(i).append("\\\"\\n\u00e9\ud83d\ude00");
+		}
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try (JsonWriter writer = new JsonWriter(os)) {
+			writer.beginObject().name("description").value(value.toString()).endObject();
+		}
+
+		assertEquals(new String(os.toByteArray(), UTF_8), "{\"description\":\"" + escaped + "\"}");
+	}
+
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void testJsonWriter_throwsForValueWithoutName() throws IOException {
+		new JsonWriter(new ByteArrayOutputStream()).beginObject().value("orphan");
+	}
+
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void testJsonWriter_throwsForSecondTopLevelValue() throws IOException {
+		new JsonWriter(new ByteArrayOutputStream()).beginArray().endArray().beginArray();
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testJsonWriter_throwsForNaN() throws IOException {
+		new JsonWriter(new ByteArrayOutputStream()).beginArray().value(Double.NaN);
+	}
+
+	@Test(expectedExceptions = IOException.class)
+	public void testJsonWriter_close_throwsForIncompleteDocument() throws IOException {
+		new JsonWriter(new ByteArrayOutputStream()).beginObject().close();
+	}
+}
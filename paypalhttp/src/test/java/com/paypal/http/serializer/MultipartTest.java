@@ -2,15 +2,20 @@ package com.paypal.http.serializer;
 
 import com.paypal.http.Headers;
 import com.paypal.http.HttpRequest;
+import com.paypal.http.RequestBody;
 import com.paypal.http.Zoo;
+import com.paypal.http.exceptions.SerializeException;
 import com.paypal.http.multipart.FilePart;
+import com.paypal.http.multipart.FormData;
 import com.paypal.http.multipart.FormPart;
 import com.paypal.http.multipart.JsonPart;
 import com.paypal.http.multipart.MultipartBody;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -62,6 +67,64 @@ public class MultipartTest {
 		assertTrue(byteArrayContains(data, imageData));
 	}
 
+	@Test
+	public void testMultipart_encodeBody_reportsContentLengthOfStreamedParts() throws IOException {
+		FileUploadRequest request = simpleFileRequest()
+				.file("binary_file", resource("fileupload_test_binary.jpg").toFile())
+				.formData("some_field_key", "caf\u00e9");
+
+		Zoo.Animal mixedPart = new Zoo.Animal();
+		mixedPart.age = 1;
+		request.mixedData("some_mixed_part", mixedPart);
+
+		RequestBody body = multipart.encodeBody(request);
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		body.writeTo(os);
+
+		assertEquals(body.contentLength(), os.size());
+	}
+
+	@Test
+	public void testMultipart_encodeBody_hasUnknownLengthWhenAPartDoes() throws IOException {
+		HttpRequest request = new HttpRequest("/", "POST", Void.class);
+		request.header(Headers.CONTENT_TYPE, "multipart/form-data");
+		request.requestBody(new MultipartBody(new FormPart("key", "value"), new FormData("streamed") {
+			@Override
+			public void writeData(OutputStream os) throws IOException {
+				os.write("streamed data".getBytes());
+			}
+		}));
+
+		RequestBody body = multipart.encodeBody(request);
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		body.writeTo(os);
+
+		assertEquals(body.contentLength(), -1);
+		assertTrue(new String(os.toByteArray()).contains("streamed data"));
+	}
+
+	@Test
+	public void testMultipart_encodeBody_reencodesJsonPartsForEachBody() throws IOException {
+		Zoo.Animal mixedPart = new Zoo.Animal();
+		mixedPart.age = 1;
+		FileUploadRequest request = simpleFileRequest().mixedData("some_mixed_part", mixedPart);
+		long firstLength = multipart.encodeBody(request).contentLength();
+
+		mixedPart.age = 1000;
+		RequestBody body = multipart.encodeBody(request);
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		body.writeTo(os);
+
+		assertEquals(body.contentLength(), firstLength + 3);
+		assertEquals(body.contentLength(), os.size());
+		assertTrue(byteArrayContains(os.toByteArray(), new Json().serialize(mixedPart).getBytes()));
+	}
+
+	@Test(expectedExceptions = SerializeException.class)
+	public void testMultipart_encodeBody_throwsWhenJsonPartCannotBeSerialized() throws IOException {
+		multipart.encodeBody(simpleFileRequest().mixedData("some_mixed_part", new Object()));
+	}
+
 	@Test
 	public void testMultipart_serialize_throwsWhenBodyNotMap() throws IOException {
 		HttpRequest request = new HttpRequest("/", "POST", Void.class);
@@ -0,0 +1,117 @@
+package com.paypal.http.serializer;
+
+import com.paypal.http.HttpRequest;
+import com.paypal.http.Zoo;
+import com.paypal.http.annotations.ListOf;
+import com.paypal.http.exceptions.SerializeException;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.*;
+
+public class NdJsonTest {
+
+	private static final String ZOOS = "{\"name\":\"Shedd\",\"number_of_animals\":12}\n"
+			+ "{\"name\":\"Monterey\"}\r\n"
+			+ "\n"
+			+ "{\"name\":\"Georgia\",\"number_of_animals\":3}\n";
+
+	@ListOf(listClass = Zoo.class)
+	public static class ZooList extends ArrayList<Zoo> {
+	}
+
+	@Test
+	public void testNdJson_encode_writesOneRecordPerLine() throws IOException {
+		Zoo shedd = new Zoo();
+		shedd.name = "Shedd";
+		HttpRequest<Void> request = new HttpRequest<>("/", "POST", Void.class)
+				.requestBody(Arrays.asList(shedd, Collections.singletonMap("name", "line\nbreak"), "text", 5));
+
+		String encoded = new String(new NdJson().encode(request), UTF_8);
+
+		assertEquals(encoded, "{\"name\":\"Shedd\"}\n{\"name\":\"line\\nbreak\"}\n\"text\"\n5\n");
+	}
+
+	@Test
+	public void testNdJson_encodeBody_streamsRecordsFromAStream() throws IOException {
+		HttpRequest<Void> request = new HttpRequest<>("/", "POST", Void.class)
+				.requestBody(Stream.of(1, 2, 3).map(i -> Collections.singletonMap("id", i)));
+
+		assertEquals(new NdJson().encodeBody(request).contentLength(), -1);
+		assertEquals(new String(new NdJson().encode(request), UTF_8), "{\"id\":1}\n{\"id\":2}\n{\"id\":3}\n");
+	}
+
+	@Test(expectedExceptions = SerializeException.class)
+	public void testNdJson_encode_throwsWhenBodyIsNotASequence() throws IOException {
+		new NdJson().encode(new HttpRequest<>("/", "POST", Void.class).requestBody(new Zoo()));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testNdJson_decode_readsEveryRecord() throws IOException {
+		List<Map<String, Object>> maps = new NdJson().decode(ZOOS, List.class);
+		assertEquals(maps.size(), 3);
+		assertEquals(maps.get(0).get("number_of_animals"), 12L);
+
+		ZooList zoos = new NdJson().decode(new ByteArrayInputStream(ZOOS.getBytes(UTF_8)), ZooList.class);
+		assertEquals(zoos.size(), 3);
+		assertEquals(zoos.get(1).name, "Monterey");
+		assertEquals(zoos.get(2).numberOfAnimals.intValue(), 3);
+
+		assertTrue(new NdJson().decode("", List.class).isEmpty());
+	}
+
+	@Test(expectedExceptions = IOException.class)
+	public void testNdJson_decode_throwsForSingleObjects() throws IOException {
+		new NdJson().decode(ZOOS, Zoo.class);
+	}
+
+	@Test
+	public void testNdJson_decodeElements_readsRecordsAsTheyArrive() throws IOException {
+		// Hands out one line per read, as records trickling in over the wire would arrive.
+		List<String> lines = new ArrayList<>(Arrays.asList(ZOOS.split("(?<=\n)")));
+		InputStream wire = new InputStream() {
+			@Override
+			public int read() {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) {
+				if (lines.isEmpty()) {
+					return -1;
+				}
+				byte[] line = lines.remove(0).getBytes(UTF_8);
+				System.arraycopy(line, 0, b, off, line.length);
+				return line.length;
+			}
+		};
+
+		ElementIterator<Zoo> zoos = new NdJson().decodeElements(wire, Zoo.class);
+		assertEquals(zoos.next().name, "Shedd");
+		assertEquals(lines.size(), 3);
+
+		try (Stream<Zoo> rest = zoos.stream()) {
+			assertEquals(rest.map(zoo -> zoo.name).collect(Collectors.toList()), Arrays.asList("Monterey", "Georgia"));
+		}
+	}
+
+	@Test(expectedExceptions = UncheckedIOException.class)
+	public void testNdJson_decodeElements_throwsForMalformedRecords() {
+		ElementIterator<Zoo> zoos = new NdJson().decodeElements(new ByteArrayInputStream("{\"name\":\"Shedd\"}\n{\"name\" 1}\n".getBytes(UTF_8)), Zoo.class);
+		zoos.next();
+		zoos.next();
+	}
+}
@@ -0,0 +1,91 @@
+package com.paypal.http.serializer;
+
+import com.paypal.http.Zoo;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.*;
+
+public class ProjectionTest {
+
+	private static final String ORDER = "{\"id\": \"5O190127TN364715T\", \"status\": \"COMPLETED\", \"purchase_units\": ["
+			+ "{\"reference_id\": \"first\", \"amount\": {\"currency_code\": \"USD\", \"value\": \"10.10\"}},"
+			+ "{\"reference_id\": \"second\", \"amount\": {\"currency_code\": \"EUR\", \"value\": \"5.00\"}}], "
+			+ "\"links\": [{\"href\": \"https://api.paypal.com/v2/checkout/orders/5O190127TN364715T\", \"rel\": \"self\"}], "
+			+ "\"a/b\": 1, \"c~d\": 2}";
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testProjection_keepsOnlyProjectedMembers() throws IOException {
+		Map<String, Object> order = new Json().decode(stream(ORDER), Map.class, Projection.of("/id", "/purchase_units/1/amount/value"));
+
+		assertEquals(order.keySet(), new HashSet<>(Arrays.asList("id", "purchase_units")));
+		assertEquals(order.get("id"), "5O190127TN364715T");
+
+		List<Object> units = (List<Object>) order.get("purchase_units");
+		assertEquals(units.size(), 1);
+		assertEquals(units.get(0), Collections.singletonMap("amount", Collections.singletonMap("value", "5.00")));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testProjection_wildcardMatchesEveryElement() throws IOException {
+		Map<String, Object> order = new Json().decode(stream(ORDER), Map.class,
+				Projection.of("/purchase_units/*/reference_id", "/purchase_units/0/amount"));
+
+		List<Map<String, Object>> units = (List<Map<String, Object>>) order.get("purchase_units");
+		assertEquals(units.size(), 2);
+		assertEquals(units.get(0).get("reference_id"), "first");
+		assertEquals(((Map<String, Object>) units.get(0).get("amount")).get("currency_code"), "USD");
+		assertEquals(units.get(1).keySet(), Collections.singleton("reference_id"));
+	}
+
+	@Test
+	public void testProjection_unescapesPointerSegments() throws IOException {
+		Map<?, ?> order = new Json().decode(stream(ORDER), Map.class, Projection.of("/a~1b", "/c~0d"));
+
+		assertEquals(order.size(), 2);
+		assertEquals(order.get("a/b"), 1L);
+		assertEquals(order.get("c~d"), 2L);
+	}
+
+	@Test
+	public void testProjection_emptyPointerDecodesEverything() throws IOException {
+		Json json = new Json();
+
+		assertEquals(json.decode(stream(ORDER), Map.class, Projection.of("")), json.decode(ORDER, Map.class));
+		assertEquals(json.decode(stream(ORDER), Map.class, null), json.decode(ORDER, Map.class));
+	}
+
+	@Test
+	public void testProjection_leavesModelFieldsOutsideItUnset() throws IOException {
+		String zoo = "{\"name\": \"Brian Tree\", \"number_of_animals\": 12, \"animal\": {\"kind\": \"Shark\", \"age\": 10, "
+				+ "\"locales\": [\"ocean\", \"aquarium\"]}}";
+
+		Zoo decoded = new Json().decode(stream(zoo), Zoo.class, Projection.of("/name", "/animal/locales/1"));
+
+		assertEquals(decoded.name, "Brian Tree");
+		assertNull(decoded.numberOfAnimals);
+		assertNull(decoded.animal.kind);
+		assertNull(decoded.animal.age);
+		assertEquals(decoded.animal.locales, Collections.singletonList("aquarium"));
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testProjection_rejectsPathsThatAreNotPointers() {
+		Projection.of("purchase_units/0");
+	}
+
+	private static InputStream stream(String json) {
+		return new ByteArrayInputStream(json.getBytes(UTF_8));
+	}
+}
@@ -0,0 +1,72 @@
+package com.paypal.http.serializer;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.*;
+
+public class StringCacheTest {
+
+	private static String intern(StringCache cache, String value) {
+		byte[] bytes = value.getBytes(UTF_8);
+		int hash = 0;
+		for (byte b : bytes) {
+			hash = StringCache.hash(hash, b);
+		}
+		return cache.intern(bytes, 0, bytes.length, hash);
+	}
+
+	@Test
+	public void testStringCache_returnsSameInstanceAndCountsHits() {
+		StringCache cache = new StringCache();
+
+		String first = intern(cache, "COMPLETED");
+		String second = intern(cache, "COMPLETED");
+		intern(cache, "USD");
+
+		assertSame(first, second);
+		assertEquals(cache.stats().hits(), 1);
+		assertEquals(cache.stats().misses(), 2);
+		assertEquals(cache.stats().hitRate(), 1.0 / 3);
+	}
+
+	@Test
+	public void testStringCache_doesNotCacheLongStrings() {
+		StringCache cache = new StringCache(16, 4);
+
+		String first = intern(cache, "CAPTURE");
+		String second = intern(cache, "CAPTURE");
+
+		assertEquals(first, second);
+		assertNotSame(first, second);
+		assertEquals(cache.stats().hits() + cache.stats().misses(), 0);
+	}
+
+	@Test
+	public void testStringCache_isBounded() {
+		StringCache cache = new StringCache(100, 32);
+		assertEquals(cache.size(), 128);
+
+		for (int i = 0; i < 10000; i++) {
+			assertEquals(intern(cache, "value-" + i), "value-" + i);
+		}
+		assertEquals(cache.stats().misses(), 10000);
+	}
+
+	@Test
+	public void testStringCache_sharesValuesDecodedByJson() throws IOException {
+		StringCache cache = new StringCache();
+		Json json = new Json().valueCache(cache);
+
+		List<Map<String, Object>> links = json.decode("[{\"rel\": \"self\", \"method\": \"GET\"}, {\"rel\": \"self\", \"method\": \"GET\"}]", List.class);
+
+		assertSame(links.get(0).get("rel"), links.get(1).get("rel"));
+		assertSame(links.get(0).get("method"), links.get(1).get("method"));
+		assertEquals(cache.stats().hits(), 2);
+		assertEquals(cache.stats().misses(), 2);
+	}
+}